@@ -0,0 +1,55 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.benchmark;
+
+import io.github.davemeier82.homeautomation.spring.core.SpringBootTestApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts the application of the integration tests on its own in-memory H2 database. SQL and bind logging of the {@code it} profile is turned off,
+ * it would dominate every measurement.
+ */
+final class BenchmarkContext {
+
+  private BenchmarkContext() {
+  }
+
+  static ConfigurableApplicationContext start(Map<String, ?> properties, Object... singletons) {
+    Map<String, Object> arguments = new LinkedHashMap<>();
+    arguments.put("spring.datasource.url", "jdbc:h2:mem:benchmark;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+    arguments.put("spring.jpa.show-sql", false);
+    arguments.put("spring.jpa.properties.hibernate.show_sql", false);
+    arguments.put("logging.level.root", "warn");
+    arguments.put("logging.level.org.hibernate.orm.jdbc.bind", "warn");
+    arguments.putAll(properties);
+    // command line arguments, the properties of application-it.yml must not win
+    String[] args = arguments.entrySet().stream().map(entry -> "--" + entry.getKey() + "=" + entry.getValue()).toArray(String[]::new);
+    return new SpringApplicationBuilder(SpringBootTestApplication.class)
+        .profiles("it")
+        .initializers(context -> {
+          for (Object singleton : singletons) {
+            context.getBeanFactory().registerSingleton(singleton.getClass().getName(), singleton);
+          }
+        })
+        .run(args);
+  }
+}
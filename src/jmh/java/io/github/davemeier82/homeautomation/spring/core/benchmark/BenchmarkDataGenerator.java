@@ -0,0 +1,140 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.benchmark;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generates devices, device properties, push notification configs and values. Row ids are derived from the business keys and
+ * everything else is drawn from a seeded {@link Random}, so the same seed always produces the same data set.
+ */
+public final class BenchmarkDataGenerator {
+
+  public static final long SEED = 20211231L;
+  private static final String[] CONFIG_VALUE_TYPES = {"RelayState", "DimmingLevel", "Temperature", "RollerState"};
+  private final JdbcTemplate jdbcTemplate;
+  private final Random random;
+
+  public BenchmarkDataGenerator(JdbcTemplate jdbcTemplate, long seed) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * String representations of values of the given class as they are stored in the {@code value} column.
+   */
+  public static String[] values(Class<?> clazz, long seed, int count) {
+    Random random = new Random(seed);
+    String[] values = new String[count];
+    for (int i = 0; i < count; i++) {
+      values[i] = value(clazz, random);
+    }
+    return values;
+  }
+
+  private static String value(Class<?> clazz, Random random) {
+    if (clazz.isEnum()) {
+      Object[] constants = clazz.getEnumConstants();
+      return ((Enum<?>) constants[random.nextInt(constants.length)]).name();
+    }
+    if (clazz.equals(Boolean.class)) {
+      return String.valueOf(random.nextBoolean());
+    }
+    if (clazz.equals(Integer.class) || clazz.equals(Long.class) || clazz.equals(Short.class) || clazz.equals(Byte.class)) {
+      return String.valueOf(random.nextInt(100));
+    }
+    if (clazz.equals(Double.class) || clazz.equals(Float.class)) {
+      return String.valueOf(Math.round(random.nextDouble(-20, 40) * 100) / 100.0);
+    }
+    return Long.toHexString(random.nextLong());
+  }
+
+  private static UUID id(String key) {
+    return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public List<DevicePropertyId> devices(int deviceCount, int propertiesPerDevice) {
+    List<Object[]> devices = new ArrayList<>(deviceCount);
+    List<Object[]> properties = new ArrayList<>(deviceCount * propertiesPerDevice);
+    List<DevicePropertyId> devicePropertyIds = new ArrayList<>(deviceCount * propertiesPerDevice);
+    for (int d = 0; d < deviceCount; d++) {
+      String deviceId = "device-" + d;
+      UUID deviceRowId = id(deviceId);
+      devices.add(new Object[]{deviceRowId, deviceId, TestDeviceType.TEST.getTypeName(), "Device " + d});
+      for (int p = 0; p < propertiesPerDevice; p++) {
+        String propertyId = String.valueOf(p);
+        properties.add(new Object[]{id(deviceId + "/" + propertyId), deviceRowId, "benchmark", propertyId, "Property " + p});
+        devicePropertyIds.add(new DevicePropertyId(new DeviceId(deviceId, TestDeviceType.TEST), propertyId));
+      }
+    }
+    jdbcTemplate.batchUpdate("insert into device (id, device_id, device_type, display_name) values (?, ?, ?, ?)", devices);
+    jdbcTemplate.batchUpdate("insert into device_property (id, device_id, type, device_property_id, display_name) values (?, ?, ?, ?, ?)", properties);
+    return devicePropertyIds;
+  }
+
+  /**
+   * Inserts a config for every value type without a device or device property and, with the given ratio, configs per device and per device property.
+   */
+  public int pushNotificationConfigs(List<DevicePropertyId> devicePropertyIds, double ratio) {
+    List<Object[]> configs = new ArrayList<>();
+    for (String valueType : CONFIG_VALUE_TYPES) {
+      configs.add(new Object[]{id(valueType), null, null, valueType, random.nextBoolean(), null});
+    }
+    for (DevicePropertyId devicePropertyId : devicePropertyIds) {
+      String deviceId = devicePropertyId.deviceId().id();
+      String propertyKey = deviceId + "/" + devicePropertyId.id();
+      if ("0".equals(devicePropertyId.id()) && random.nextDouble() < ratio) {
+        configs.add(new Object[]{id(deviceId + "#config"), id(deviceId), null, randomValueType(), random.nextBoolean(), booleanValueFilter()});
+      }
+      if (random.nextDouble() < ratio) {
+        configs.add(new Object[]{id(propertyKey + "#config"), null, id(propertyKey), randomValueType(), random.nextBoolean(), booleanValueFilter()});
+      }
+    }
+    jdbcTemplate.batchUpdate("""
+        insert into event_push_notification_config (id, device_id, device_property_id, property_value_type, on_change_only, boolean_value_filter)
+        values (?, ?, ?, ?, ?, ?)
+        """, configs);
+    return configs.size();
+  }
+
+  public boolean nextBoolean() {
+    return random.nextBoolean();
+  }
+
+  public int nextInt(int bound) {
+    return random.nextInt(bound);
+  }
+
+  private String randomValueType() {
+    return CONFIG_VALUE_TYPES[random.nextInt(CONFIG_VALUE_TYPES.length)];
+  }
+
+  private Boolean booleanValueFilter() {
+    int filter = random.nextInt(4);
+    return filter < 2 ? null : filter == 2;
+  }
+}
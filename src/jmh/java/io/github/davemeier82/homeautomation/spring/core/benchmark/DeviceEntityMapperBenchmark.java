@@ -0,0 +1,89 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.benchmark;
+
+import io.github.davemeier82.homeautomation.core.device.Device;
+import io.github.davemeier82.homeautomation.core.device.DeviceFactory;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceTypeFactory;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.CustomIdentifierEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.CustomIdentifierId;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceParameterEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceParameterId;
+import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DeviceEntityMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Maps {@link DeviceEntity entities} with parameters and custom identifiers to devices. The device factory is a stub that returns the same device,
+ * so the measurement is dominated by the mapper itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeviceEntityMapperBenchmark {
+
+  private static final int ENTITY_COUNT = 1024;
+  @Param({"0", "4", "16"})
+  int parameters;
+  private DeviceEntityMapper mapper;
+  private DeviceEntity[] entities;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    DeviceFactory deviceFactory = mock(DeviceFactory.class);
+    doReturn(Set.of(TestDeviceType.TEST)).when(deviceFactory).getSupportedDeviceTypes();
+    doReturn(Optional.of(mock(Device.class))).when(deviceFactory).createDevice(any(), any(), any(), any(), any());
+    mapper = new DeviceEntityMapper(Set.of(deviceFactory), new DeviceTypeMapper(List.of(new TestDeviceTypeFactory())));
+
+    Random random = new Random(BenchmarkDataGenerator.SEED);
+    entities = new DeviceEntity[ENTITY_COUNT];
+    for (int i = 0; i < ENTITY_COUNT; i++) {
+      DeviceEntity entity = new DeviceEntity(TestDeviceType.TEST.getTypeName(), "device-" + i, "Device " + i);
+      for (int p = 0; p < parameters; p++) {
+        entity.addDeviceParameter(new DeviceParameterEntity(new DeviceParameterId(null, "parameter" + p), Long.toHexString(random.nextLong())));
+      }
+      entity.addCustomIdentifier(new CustomIdentifierEntity(new CustomIdentifierId(null, "room"), "room-" + random.nextInt(20)));
+      entities[i] = entity;
+    }
+  }
+
+  @Benchmark
+  public Device map() {
+    return mapper.map(entities[next++ & (ENTITY_COUNT - 1)]);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.benchmark;
+
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.event.DataWithTimestamp;
+import io.github.davemeier82.homeautomation.core.repositories.DevicePropertyValueRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.DevicePropertyValueHistory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.github.davemeier82.homeautomation.core.device.property.DefaultDevicePropertyValueType.RELAY_STATE;
+
+/**
+ * Inserts into and reads the latest value from the {@link DevicePropertyValueRepository}, with and without the write-behind buffer and with random or
+ * time-ordered primary keys. The history is read with the JPA and the JDBC queries, the implementation does not change the other paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DevicePropertyValueRepositoryBenchmark {
+
+  private static final OffsetDateTime START = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+  private final AtomicLong sequence = new AtomicLong();
+  @Param({"false", "true"})
+  boolean writeBehind;
+  @Param({"jpa", "jdbc"})
+  String implementation;
+  @Param({"RANDOM", "TIME_ORDERED"})
+  String idStrategy;
+  @Param({"100"})
+  int devices;
+  @Param({"10"})
+  int propertiesPerDevice;
+  private ConfigurableApplicationContext context;
+  private DevicePropertyValueRepository repository;
+  private DevicePropertyValueHistory history;
+  private DevicePropertyId[] devicePropertyIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkContext.start(Map.of("homeautomation.spring-core.device-property-value-repository.write-behind.enabled", writeBehind,
+        "homeautomation.spring-core.device-property-value-repository.id-strategy", idStrategy,
+        "homeautomation.spring-core.device-property-value-repository.implementation", implementation));
+    BenchmarkDataGenerator generator = new BenchmarkDataGenerator(context.getBean(JdbcTemplate.class), BenchmarkDataGenerator.SEED);
+    List<DevicePropertyId> ids = generator.devices(devices, propertiesPerDevice);
+    context.getBean(DevicePropertyIdCache.class).load();
+    repository = context.getBean(DevicePropertyValueRepository.class);
+    history = context.getBean(DevicePropertyValueHistory.class);
+    devicePropertyIds = ids.toArray(DevicePropertyId[]::new);
+    // every property has a latest value before the first measurement
+    for (int i = 0; i < devicePropertyIds.length; i++) {
+      repository.insert(devicePropertyIds[i], RELAY_STATE, "benchmark", generator.nextBoolean(), START.minusSeconds(devicePropertyIds.length - i));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void insert() {
+    long next = sequence.getAndIncrement();
+    // the timestamp is unique per device property, no insert is skipped as a duplicate
+    repository.insert(devicePropertyIds[(int) (next % devicePropertyIds.length)], RELAY_STATE, "benchmark", (next & 1) == 0, START.plusNanos(next * 1000));
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public Optional<DataWithTimestamp<Boolean>> findLatestValue() {
+    long next = sequence.getAndIncrement();
+    return repository.findLatestValue(devicePropertyIds[(int) (next % devicePropertyIds.length)], RELAY_STATE, Boolean.class);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public long findValues() {
+    long next = sequence.getAndIncrement();
+    return history.findValues(devicePropertyIds[(int) (next % devicePropertyIds.length)], RELAY_STATE, START.minusHours(1), START.plusHours(1), Boolean.class).count();
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.benchmark;
+
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.event.DataWithTimestamp;
+import io.github.davemeier82.homeautomation.core.event.EventPublisher;
+import io.github.davemeier82.homeautomation.core.event.defaults.DefaultRelayStateChangedEvent;
+import io.github.davemeier82.homeautomation.spring.core.SpringEventPublisher;
+import io.github.davemeier82.homeautomation.spring.core.event.EventPipelineObserver;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a device property event through {@link SpringEventPublisher} and waits until the value is committed by the persistence listener.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventPipelineBenchmark {
+
+  private static final OffsetDateTime START = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+  private final AtomicLong sequence = new AtomicLong();
+  private final Semaphore persisted = new Semaphore(0);
+  @Param({"prioritized", "virtual-threads"})
+  String multicaster;
+  @Param({"100"})
+  int devices;
+  private ConfigurableApplicationContext context;
+  private EventPublisher eventPublisher;
+  private DevicePropertyId[] devicePropertyIds;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    EventPipelineObserver observer = new EventPipelineObserver() {
+      @Override
+      public void valuePersisted(OffsetDateTime eventTimestamp) {
+        persisted.release();
+      }
+    };
+    context = BenchmarkContext.start(Map.of("homeautomation.spring-core.event-multicaster.type", multicaster), observer);
+    BenchmarkDataGenerator generator = new BenchmarkDataGenerator(context.getBean(JdbcTemplate.class), BenchmarkDataGenerator.SEED);
+    devicePropertyIds = generator.devices(devices, 1).toArray(DevicePropertyId[]::new);
+    context.getBean(DevicePropertyIdCache.class).load();
+    eventPublisher = context.getBean(EventPublisher.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void publishAndPersist() throws InterruptedException {
+    long next = sequence.getAndIncrement();
+    boolean value = (next & 1) == 0;
+    OffsetDateTime timestamp = START.plusNanos(next * 1000);
+    eventPublisher.publishEvent(new DefaultRelayStateChangedEvent(devicePropertyIds[(int) (next % devicePropertyIds.length)], "benchmark",
+        new DataWithTimestamp<>(timestamp, value), new DataWithTimestamp<>(timestamp.minusNanos(1000), !value)));
+    if (!persisted.tryAcquire(10, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("value of event " + next + " was not persisted");
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.benchmark;
+
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.event.DataWithTimestamp;
+import io.github.davemeier82.homeautomation.core.event.DevicePropertyEvent;
+import io.github.davemeier82.homeautomation.core.event.defaults.DefaultDimmingLevelChangedEvent;
+import io.github.davemeier82.homeautomation.core.event.defaults.DefaultRelayStateChangedEvent;
+import io.github.davemeier82.homeautomation.core.event.defaults.DefaultRelayStateUpdatedEvent;
+import io.github.davemeier82.homeautomation.core.notification.EventPushNotificationConfig;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.EventPushNotificationConfigIndex;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SpringDataEventPushNotificationConfigRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Looks up the push notification configs of device property events, from the database or from the {@link EventPushNotificationConfigIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventPushNotificationConfigMatchingBenchmark {
+
+  private static final int EVENT_COUNT = 1024;
+  private final AtomicInteger sequence = new AtomicInteger();
+  @Param({"false", "true"})
+  boolean index;
+  @Param({"200"})
+  int devices;
+  @Param({"0.25"})
+  double configRatio;
+  private ConfigurableApplicationContext context;
+  private SpringDataEventPushNotificationConfigRepository repository;
+  private DevicePropertyEvent<?>[] events;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkContext.start(Map.of("homeautomation.spring-core.notification.push.config-index.enabled", index));
+    BenchmarkDataGenerator generator = new BenchmarkDataGenerator(context.getBean(JdbcTemplate.class), BenchmarkDataGenerator.SEED);
+    List<DevicePropertyId> devicePropertyIds = generator.devices(devices, 4);
+    generator.pushNotificationConfigs(devicePropertyIds, configRatio);
+    context.getBean(DevicePropertyIdCache.class).load();
+    context.getBeanProvider(EventPushNotificationConfigIndex.class).ifAvailable(EventPushNotificationConfigIndex::refresh);
+    repository = context.getBean(SpringDataEventPushNotificationConfigRepository.class);
+
+    events = new DevicePropertyEvent<?>[EVENT_COUNT];
+    for (int i = 0; i < EVENT_COUNT; i++) {
+      DevicePropertyId devicePropertyId = devicePropertyIds.get(generator.nextInt(devicePropertyIds.size()));
+      events[i] = switch (generator.nextInt(3)) {
+        case 0 -> new DefaultRelayStateChangedEvent(devicePropertyId, "benchmark", new DataWithTimestamp<>(true), new DataWithTimestamp<>(false));
+        case 1 -> new DefaultRelayStateUpdatedEvent(devicePropertyId, "benchmark", new DataWithTimestamp<>(false), new DataWithTimestamp<>(false));
+        default -> new DefaultDimmingLevelChangedEvent(devicePropertyId, "benchmark", new DataWithTimestamp<>(generator.nextInt(101)), new DataWithTimestamp<>(50));
+      };
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Set<EventPushNotificationConfig> findAllByEvent() {
+    return repository.findAllByEvent(events[sequence.getAndIncrement() & (EVENT_COUNT - 1)]);
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.mapper;
+
+import io.github.davemeier82.homeautomation.core.device.property.DefaultDevicePropertyValueTypeFactory;
+import io.github.davemeier82.homeautomation.core.event.DataWithTimestamp;
+import io.github.davemeier82.homeautomation.spring.core.benchmark.BenchmarkDataGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.lang.reflect.InvocationTargetException;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts stored values back to the value class of their type. It is in the package of the mapper to measure {@link DevicePropertyValueEntityMapper#cast(String, Class)}
+ * directly next to the public {@code map} that also wraps the value. {@code reflectiveCast} is the conversion before the {@link DevicePropertyValueCodec codecs},
+ * kept as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DevicePropertyValueEntityMapperBenchmark {
+
+  private static final int VALUE_COUNT = 1024;
+  private static final OffsetDateTime TIMESTAMP = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+  @Param({"RelayState", "DimmingLevel", "Temperature", "RollerState", "AlarmState"})
+  String valueType;
+  private DevicePropertyValueEntityMapper mapper;
+  private Class<?> valueClass;
+  private String[] values;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    mapper = new DevicePropertyValueEntityMapper(new DefaultDevicePropertyValueTypeFactory());
+    valueClass = mapper.valueClass(valueType).orElseThrow(() -> new IllegalArgumentException("unknown value type " + valueType));
+    values = BenchmarkDataGenerator.values(valueClass, BenchmarkDataGenerator.SEED, VALUE_COUNT);
+  }
+
+  @Benchmark
+  public Object cast() {
+    return DevicePropertyValueEntityMapper.cast(values[next++ & (VALUE_COUNT - 1)], valueClass);
+  }
+
+  @Benchmark
+  public Object reflectiveCast() throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
+    String value = values[next++ & (VALUE_COUNT - 1)];
+    if (value.getClass().equals(valueClass)) {
+      return value;
+    } else if (valueClass.equals(Long.class)) {
+      return Long.valueOf(value);
+    } else if (valueClass.equals(Integer.class)) {
+      return Integer.valueOf(value);
+    } else if (valueClass.equals(Float.class)) {
+      return Float.valueOf(value);
+    } else if (valueClass.equals(Double.class)) {
+      return Double.valueOf(value);
+    } else if (valueClass.equals(Short.class)) {
+      return Short.valueOf(value);
+    } else if (valueClass.equals(Byte.class)) {
+      return Byte.valueOf(value);
+    } else if (valueClass.equals(Boolean.class)) {
+      return Boolean.valueOf(value);
+    }
+    return valueClass.getMethod("valueOf", String.class).invoke(null, value);
+  }
+
+  @Benchmark
+  public Object decodeByType() {
+    return mapper.codec(valueType).orElseThrow().decode(values[next++ & (VALUE_COUNT - 1)]);
+  }
+
+  @Benchmark
+  public Optional<? extends DataWithTimestamp<?>> map() {
+    return mapper.map(values[next++ & (VALUE_COUNT - 1)], TIMESTAMP, valueClass);
+  }
+}
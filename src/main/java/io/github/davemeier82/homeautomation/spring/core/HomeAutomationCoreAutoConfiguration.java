@@ -21,22 +21,40 @@ import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyV
 import io.github.davemeier82.homeautomation.core.event.EventPublisher;
 import io.github.davemeier82.homeautomation.core.event.factory.DefaultEventFactory;
 import io.github.davemeier82.homeautomation.core.event.factory.EventFactory;
+import io.github.davemeier82.homeautomation.spring.core.event.EventMulticasterConfiguration;
+import io.github.davemeier82.homeautomation.spring.core.event.EventPipelineObserver;
+import io.github.davemeier82.homeautomation.spring.core.event.PrioritizedApplicationEventMulticaster;
+import io.github.davemeier82.homeautomation.spring.core.http.HttpClientConfiguration;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureOrder;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.ApplicationEventMulticaster;
 import org.springframework.context.event.SimpleApplicationEventMulticaster;
 import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.client.ReactorClientHttpRequestFactory;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.client.RestClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import static org.springframework.core.Ordered.HIGHEST_PRECEDENCE;
 
 @Configuration
 @AutoConfigureOrder(HIGHEST_PRECEDENCE)
+@EnableConfigurationProperties({HttpClientConfiguration.class, EventMulticasterConfiguration.class})
 public class HomeAutomationCoreAutoConfiguration {
 
+  private static boolean isMicrometerPresent() {
+    return ClassUtils.isPresent("io.micrometer.core.instrument.MeterRegistry", HomeAutomationCoreAutoConfiguration.class.getClassLoader());
+  }
+
   @Bean
   @ConditionalOnMissingBean
   EventFactory eventFactory() {
@@ -45,19 +63,53 @@ public class HomeAutomationCoreAutoConfiguration {
 
   @Bean
   @ConditionalOnMissingBean
-  EventPublisher eventPublisher(ApplicationEventPublisher applicationEventPublisher) {
-    return new SpringEventPublisher(applicationEventPublisher);
+  EventPublisher eventPublisher(ApplicationEventPublisher applicationEventPublisher, ObjectProvider<EventPipelineObserver> eventPipelineObserver) {
+    return new SpringEventPublisher(applicationEventPublisher, eventPipelineObserver.getIfAvailable(() -> EventPipelineObserver.NOOP));
+  }
+
+  @Bean(destroyMethod = "dispose")
+  @ConditionalOnMissingBean(name = "homeAutomationConnectionProvider")
+  ConnectionProvider homeAutomationConnectionProvider(HttpClientConfiguration httpClientConfiguration) {
+    return ConnectionProvider.builder("homeautomation")
+                             .maxConnections(httpClientConfiguration.maxConnections())
+                             .pendingAcquireTimeout(httpClientConfiguration.pendingAcquireTimeout())
+                             .maxIdleTime(httpClientConfiguration.maxIdleTime())
+                             .maxLifeTime(httpClientConfiguration.maxLifeTime())
+                             .evictInBackground(httpClientConfiguration.maxIdleTime())
+                             .metrics(httpClientConfiguration.metrics() && isMicrometerPresent())
+                             .build();
   }
 
   @Bean
   @ConditionalOnMissingBean
-  RestClient restClient() {
-    return RestClient.create();
+  RestClient restClient(ConnectionProvider homeAutomationConnectionProvider, HttpClientConfiguration httpClientConfiguration) {
+    HttpClient httpClient = HttpClient.create(homeAutomationConnectionProvider)
+                                      .keepAlive(true)
+                                      .option(ChannelOption.SO_KEEPALIVE, true)
+                                      .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) httpClientConfiguration.connectTimeout().toMillis())
+                                      .responseTimeout(httpClientConfiguration.readTimeout());
+    if (httpClientConfiguration.http2()) {
+      // HTTP/2 is negotiated during the TLS handshake, plain HTTP connections stay on HTTP/1.1
+      httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+    }
+    if (httpClientConfiguration.metrics() && isMicrometerPresent()) {
+      // the query string is left out of the uri tag because it contains the Pushover credentials
+      httpClient = httpClient.metrics(true, uri -> uri.contains("?") ? uri.substring(0, uri.indexOf('?')) : uri);
+    }
+    return RestClient.builder().requestFactory(new ReactorClientHttpRequestFactory(httpClient)).build();
   }
 
   @Bean
-  @ConditionalOnMissingBean
-  ApplicationEventMulticaster applicationEventMulticaster() {
+  @ConditionalOnMissingBean(ApplicationEventMulticaster.class)
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.event-multicaster", name = "type", havingValue = "prioritized", matchIfMissing = true)
+  PrioritizedApplicationEventMulticaster applicationEventMulticaster(EventMulticasterConfiguration eventMulticasterConfiguration) {
+    return new PrioritizedApplicationEventMulticaster(eventMulticasterConfiguration);
+  }
+
+  @Bean(name = "applicationEventMulticaster")
+  @ConditionalOnMissingBean(ApplicationEventMulticaster.class)
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.event-multicaster", name = "type", havingValue = "virtual-threads")
+  ApplicationEventMulticaster virtualThreadApplicationEventMulticaster() {
     SimpleApplicationEventMulticaster eventMulticaster = new SimpleApplicationEventMulticaster();
     eventMulticaster.setTaskExecutor(new VirtualThreadTaskExecutor());
     return eventMulticaster;
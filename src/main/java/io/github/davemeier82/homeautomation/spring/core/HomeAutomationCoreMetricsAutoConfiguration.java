@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core;
+
+import io.github.davemeier82.homeautomation.spring.core.event.EventPipelineObserver;
+import io.github.davemeier82.homeautomation.spring.core.event.PrioritizedApplicationEventMulticaster;
+import io.github.davemeier82.homeautomation.spring.core.metrics.DevicePropertyIdCacheMetrics;
+import io.github.davemeier82.homeautomation.spring.core.metrics.DevicePropertyValueHousekeeperMetrics;
+import io.github.davemeier82.homeautomation.spring.core.metrics.DeviceRegistryMetrics;
+import io.github.davemeier82.homeautomation.spring.core.metrics.EventMulticasterMetrics;
+import io.github.davemeier82.homeautomation.spring.core.metrics.LatestDevicePropertyValueStoreMetrics;
+import io.github.davemeier82.homeautomation.spring.core.metrics.MicrometerEventPipelineObserver;
+import io.github.davemeier82.homeautomation.spring.core.metrics.PipelineTimingBeanPostProcessor;
+import io.github.davemeier82.homeautomation.spring.core.metrics.PushNotificationCoalescerMetrics;
+import io.github.davemeier82.homeautomation.spring.core.metrics.PushNotificationDispatcherMetrics;
+import io.github.davemeier82.homeautomation.spring.core.metrics.ReadReplicaMetrics;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DeviceRegistry;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.LatestDevicePropertyValueStore;
+import io.github.davemeier82.homeautomation.spring.core.persistence.routing.ReadReplica;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.coalescing.PushNotificationCoalescer;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery.PushNotificationDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@AutoConfigureAfter({HomeAutomationCoreAutoConfiguration.class, HomeAutomationCorePersistenceAutoConfiguration.class, HomeAutomationCorePushNotificationAutoConfiguration.class,
+    HomeAutomationCoreReadReplicaAutoConfiguration.class})
+@ConditionalOnClass(MeterBinder.class)
+public class HomeAutomationCoreMetricsAutoConfiguration {
+
+  @Bean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.metrics.pipeline", name = "enabled", havingValue = "true", matchIfMissing = true)
+  static PipelineTimingBeanPostProcessor pipelineTimingBeanPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+    return new PipelineTimingBeanPostProcessor(meterRegistry);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(EventPipelineObserver.class)
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.metrics.pipeline", name = "enabled", havingValue = "true", matchIfMissing = true)
+  MicrometerEventPipelineObserver eventPipelineObserver(ObjectProvider<MeterRegistry> meterRegistry) {
+    return new MicrometerEventPipelineObserver(meterRegistry);
+  }
+
+  @Bean
+  @ConditionalOnBean(DevicePropertyIdCache.class)
+  DevicePropertyIdCacheMetrics devicePropertyIdCacheMetrics(DevicePropertyIdCache devicePropertyIdCache) {
+    return new DevicePropertyIdCacheMetrics(devicePropertyIdCache);
+  }
+
+  @Bean
+  @ConditionalOnBean(DeviceRegistry.class)
+  DeviceRegistryMetrics deviceRegistryMetrics(DeviceRegistry deviceRegistry) {
+    return new DeviceRegistryMetrics(deviceRegistry);
+  }
+
+  @Bean
+  @ConditionalOnBean(ReadReplica.class)
+  ReadReplicaMetrics readReplicaMetrics(ReadReplica readReplica) {
+    return new ReadReplicaMetrics(readReplica);
+  }
+
+  @Bean
+  @ConditionalOnBean(LatestDevicePropertyValueStore.class)
+  LatestDevicePropertyValueStoreMetrics latestDevicePropertyValueStoreMetrics(LatestDevicePropertyValueStore latestDevicePropertyValueStore) {
+    return new LatestDevicePropertyValueStoreMetrics(latestDevicePropertyValueStore);
+  }
+
+  @Bean
+  @ConditionalOnBean(SpringDataDevicePropertyValueRepositoryHousekeeper.class)
+  DevicePropertyValueHousekeeperMetrics devicePropertyValueHousekeeperMetrics(SpringDataDevicePropertyValueRepositoryHousekeeper housekeeper) {
+    return new DevicePropertyValueHousekeeperMetrics(housekeeper);
+  }
+
+  @Bean
+  @ConditionalOnBean(PushNotificationDispatcher.class)
+  PushNotificationDispatcherMetrics pushNotificationDispatcherMetrics(PushNotificationDispatcher pushNotificationDispatcher) {
+    return new PushNotificationDispatcherMetrics(pushNotificationDispatcher);
+  }
+
+  @Bean
+  @ConditionalOnBean(PushNotificationCoalescer.class)
+  PushNotificationCoalescerMetrics pushNotificationCoalescerMetrics(PushNotificationCoalescer pushNotificationCoalescer) {
+    return new PushNotificationCoalescerMetrics(pushNotificationCoalescer);
+  }
+
+  @Bean
+  @ConditionalOnBean(PrioritizedApplicationEventMulticaster.class)
+  EventMulticasterMetrics eventMulticasterMetrics(PrioritizedApplicationEventMulticaster applicationEventMulticaster) {
+    return new EventMulticasterMetrics(applicationEventMulticaster);
+  }
+
+}
@@ -28,35 +28,65 @@ import io.github.davemeier82.homeautomation.core.notification.EventPushNotificat
 import io.github.davemeier82.homeautomation.core.repositories.DevicePropertyRepository;
 import io.github.davemeier82.homeautomation.core.repositories.DevicePropertyValueRepository;
 import io.github.davemeier82.homeautomation.core.repositories.DeviceRepository;
+import io.github.davemeier82.homeautomation.spring.core.event.EventPipelineObserver;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DeviceRegistry;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.EventPushNotificationConfigIndex;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.LatestDevicePropertyValueStore;
 import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DeviceEntityMapper;
 import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DevicePropertyEntityMapper;
 import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DevicePropertyValueEntityMapper;
 import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.EventPushNotificationConfigEntityMapper;
+import io.github.davemeier82.homeautomation.spring.core.persistence.partitioning.DevicePropertyValuePartitionManager;
+import io.github.davemeier82.homeautomation.spring.core.persistence.partitioning.PartitioningConfiguration;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.DevicePropertyValueIdStrategy;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.DevicePropertyValueQueries;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.DevicePropertyValueRetention;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.DevicePropertyValueTypedColumnBackfill;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JdbcDevicePropertyValueQueries;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JdbcDevicePropertyValueWriter;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDevicePropertyValueRollupRepository;
 import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaCustomIdentifierRepository;
 import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDeviceParameterRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDevicePropertyLatestValueRepository;
 import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDevicePropertyRepository;
 import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDevicePropertyValueRepository;
 import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDeviceRepository;
 import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaEventPushNotificationConfigRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaLatestDevicePropertyValueRepository;
 import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SpringDataDevicePropertyRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SpringDataDevicePropertyValueQueries;
 import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SpringDataDevicePropertyValueRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SpringDataDevicePropertyValueWriter;
 import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SpringDataDeviceRepository;
 import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SpringDataEventPushNotificationConfigRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SqlDialect;
+import io.github.davemeier82.homeautomation.spring.core.persistence.rollup.DevicePropertyValueRollupJob;
+import io.github.davemeier82.homeautomation.spring.core.persistence.rollup.DevicePropertyValueRollupRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.rollup.RollupConfiguration;
+import io.github.davemeier82.homeautomation.spring.core.persistence.writebehind.DevicePropertyValueWriteBehindBuffer;
+import io.github.davemeier82.homeautomation.spring.core.persistence.writebehind.WriteBehindConfiguration;
 import net.javacrumbs.shedlock.core.LockProvider;
 import net.javacrumbs.shedlock.provider.jdbctemplate.JdbcTemplateLockProvider;
 import net.javacrumbs.shedlock.spring.annotation.EnableSchedulerLock;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.persistence.autoconfigure.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
 import java.time.Duration;
@@ -70,17 +100,50 @@ import java.util.Set;
 @EntityScan("io.github.davemeier82.homeautomation.spring.core.persistence.entity")
 @EnableScheduling
 @EnableSchedulerLock(defaultLockAtMostFor = "PT30S")
+@EnableConfigurationProperties({WriteBehindConfiguration.class, PartitioningConfiguration.class, RollupConfiguration.class})
 public class HomeAutomationCorePersistenceAutoConfiguration {
 
+  @Bean
+  @ConditionalOnMissingBean
+  DevicePropertyIdCache devicePropertyIdCache(JpaDevicePropertyRepository jpaDevicePropertyRepository, DeviceTypeMapper deviceTypeMapper) {
+    return new DevicePropertyIdCache(jpaDevicePropertyRepository, deviceTypeMapper);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  LatestDevicePropertyValueStore latestDevicePropertyValueStore(JpaLatestDevicePropertyValueRepository jpaLatestDevicePropertyValueRepository,
+                                                                JpaDevicePropertyLatestValueRepository jpaDevicePropertyLatestValueRepository,
+                                                                DevicePropertyIdCache devicePropertyIdCache,
+                                                                DeviceTypeMapper deviceTypeMapper
+  ) {
+    return new LatestDevicePropertyValueStore(jpaLatestDevicePropertyValueRepository, jpaDevicePropertyLatestValueRepository, devicePropertyIdCache, deviceTypeMapper);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.device-registry", name = "enabled", havingValue = "true", matchIfMissing = true)
+  DeviceRegistry deviceRegistry(JpaDeviceRepository jpaDeviceRepository,
+                                DeviceEntityMapper deviceEntityMapper,
+                                DeviceTypeMapper deviceTypeMapper,
+                                PlatformTransactionManager transactionManager
+  ) {
+    return new DeviceRegistry(jpaDeviceRepository, deviceEntityMapper, deviceTypeMapper, readOnlyTransactionTemplate(transactionManager));
+  }
+
   @Bean
   @ConditionalOnMissingBean
   DeviceRepository deviceRepository(JpaDeviceRepository jpaDeviceRepository,
                                     JpaCustomIdentifierRepository jpaCustomIdentifierRepository,
                                     JpaDeviceParameterRepository jpaDeviceParameterRepository,
                                     DeviceEntityMapper deviceEntityMapper,
-                                    DeviceTypeMapper deviceTypeMapper
+                                    DeviceTypeMapper deviceTypeMapper,
+                                    DevicePropertyIdCache devicePropertyIdCache,
+                                    LatestDevicePropertyValueStore latestDevicePropertyValueStore,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectProvider<DeviceRegistry> deviceRegistry
   ) {
-    return new SpringDataDeviceRepository(jpaDeviceRepository, jpaCustomIdentifierRepository, jpaDeviceParameterRepository, deviceEntityMapper, deviceTypeMapper);
+    return new SpringDataDeviceRepository(jpaDeviceRepository, jpaCustomIdentifierRepository, jpaDeviceParameterRepository, deviceEntityMapper, deviceTypeMapper, devicePropertyIdCache,
+        latestDevicePropertyValueStore, readOnlyTransactionTemplate(transactionManager), deviceRegistry.getIfAvailable());
   }
 
   @Bean
@@ -89,9 +152,12 @@ public class HomeAutomationCorePersistenceAutoConfiguration {
   DevicePropertyRepository devicePropertyRepository(JpaDevicePropertyRepository jpaDevicePropertyRepository,
                                                     JpaDeviceRepository jpaDeviceRepository,
                                                     DevicePropertyEntityMapper devicePropertyEntityMapper,
-                                                    DeviceTypeMapper deviceTypeMapper
+                                                    DeviceTypeMapper deviceTypeMapper,
+                                                    DevicePropertyIdCache devicePropertyIdCache,
+                                                    LatestDevicePropertyValueStore latestDevicePropertyValueStore
   ) {
-    return new SpringDataDevicePropertyRepository(jpaDevicePropertyRepository, jpaDeviceRepository, devicePropertyEntityMapper, deviceTypeMapper);
+    return new SpringDataDevicePropertyRepository(jpaDevicePropertyRepository, jpaDeviceRepository, devicePropertyEntityMapper, deviceTypeMapper, devicePropertyIdCache,
+        latestDevicePropertyValueStore);
   }
 
   @Bean
@@ -133,30 +199,114 @@ public class HomeAutomationCorePersistenceAutoConfiguration {
     return new EventPushNotificationConfigEntityMapper(deviceTypeMapper, devicePropertyValueTypeFactory);
   }
 
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.notification.push.config-index", name = "enabled", havingValue = "true")
+  EventPushNotificationConfigIndex eventPushNotificationConfigIndex(JpaEventPushNotificationConfigRepository eventPushNotificationConfigRepository,
+                                                                    EventPushNotificationConfigEntityMapper eventPushNotificationConfigEntityMapper,
+                                                                    DevicePropertyIdCache devicePropertyIdCache,
+                                                                    DeviceTypeMapper deviceTypeMapper
+  ) {
+    return new EventPushNotificationConfigIndex(eventPushNotificationConfigRepository, eventPushNotificationConfigEntityMapper, devicePropertyIdCache, deviceTypeMapper);
+  }
+
   @Bean
   @ConditionalOnMissingBean
   EventPushNotificationConfigRepository eventPushNotificationConfigRepository(JpaEventPushNotificationConfigRepository eventPushNotificationConfigRepository,
                                                                               JpaDevicePropertyRepository jpaDevicePropertyRepository,
                                                                               EventPushNotificationConfigEntityMapper eventPushNotificationConfigEntityMapper,
-                                                                              DeviceTypeMapper deviceTypeMapper
+                                                                              DeviceTypeMapper deviceTypeMapper,
+                                                                              ObjectProvider<EventPushNotificationConfigIndex> eventPushNotificationConfigIndex
+  ) {
+    return new SpringDataEventPushNotificationConfigRepository(eventPushNotificationConfigRepository, jpaDevicePropertyRepository, eventPushNotificationConfigEntityMapper, deviceTypeMapper,
+        eventPushNotificationConfigIndex.getIfAvailable());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  DevicePropertyValueEntityMapper devicePropertyValueEntityMapper(DevicePropertyValueTypeFactory devicePropertyValueTypeFactory) {
+    return new DevicePropertyValueEntityMapper(devicePropertyValueTypeFactory);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  JdbcDevicePropertyValueWriter jdbcDevicePropertyValueWriter(DataSource dataSource,
+                                                              DevicePropertyIdCache devicePropertyIdCache,
+                                                              DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                                              ObjectProvider<EventPipelineObserver> eventPipelineObserver,
+                                                              @Value("${homeautomation.spring-core.device-property-value-repository.id-strategy:TIME_ORDERED}")
+                                                              DevicePropertyValueIdStrategy idStrategy
+  ) {
+    return new JdbcDevicePropertyValueWriter(new NamedParameterJdbcTemplate(dataSource), SqlDialect.of(dataSource), devicePropertyIdCache, devicePropertyValueEntityMapper,
+        eventPipelineObserver.getIfAvailable(() -> EventPipelineObserver.NOOP), idStrategy.generator());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.device-property-value-repository.write-behind", name = "enabled", havingValue = "true")
+  DevicePropertyValueWriteBehindBuffer devicePropertyValueWriteBehindBuffer(JdbcDevicePropertyValueWriter jdbcDevicePropertyValueWriter,
+                                                                            DeviceTypeMapper deviceTypeMapper,
+                                                                            WriteBehindConfiguration writeBehindConfiguration
+  ) {
+    return new DevicePropertyValueWriteBehindBuffer(jdbcDevicePropertyValueWriter, deviceTypeMapper, writeBehindConfiguration);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.device-property-value-repository", name = "implementation", havingValue = "jpa", matchIfMissing = true)
+  DevicePropertyValueQueries springDataDevicePropertyValueQueries(JpaDevicePropertyValueRepository devicePropertyValueRepository) {
+    return new SpringDataDevicePropertyValueQueries(devicePropertyValueRepository);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.device-property-value-repository", name = "implementation", havingValue = "jpa", matchIfMissing = true)
+  SpringDataDevicePropertyValueWriter springDataDevicePropertyValueWriter(JpaDevicePropertyValueRepository devicePropertyValueRepository,
+                                                                          JpaDevicePropertyLatestValueRepository devicePropertyLatestValueRepository,
+                                                                          DevicePropertyIdCache devicePropertyIdCache,
+                                                                          DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                                                          ObjectProvider<EventPipelineObserver> eventPipelineObserver
   ) {
-    return new SpringDataEventPushNotificationConfigRepository(eventPushNotificationConfigRepository, jpaDevicePropertyRepository, eventPushNotificationConfigEntityMapper, deviceTypeMapper);
+    return new SpringDataDevicePropertyValueWriter(devicePropertyValueRepository, devicePropertyLatestValueRepository, devicePropertyIdCache, devicePropertyValueEntityMapper,
+        eventPipelineObserver.getIfAvailable(() -> EventPipelineObserver.NOOP));
   }
 
   @Bean
   @ConditionalOnMissingBean
-  DevicePropertyValueEntityMapper devicePropertyValueEntityMapper() {
-    return new DevicePropertyValueEntityMapper();
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.device-property-value-repository", name = "implementation", havingValue = "jdbc")
+  DevicePropertyValueQueries jdbcDevicePropertyValueQueries(DataSource dataSource) {
+    return new JdbcDevicePropertyValueQueries(new NamedParameterJdbcTemplate(dataSource));
   }
 
   @Bean
   @ConditionalOnMissingBean
-  SpringDataDevicePropertyValueRepository springDataDevicePropertyValueRepository(JpaDevicePropertyValueRepository devicePropertyValueRepository,
-                                                                                  JpaDevicePropertyRepository devicePropertyRepository,
-                                                                                  DeviceTypeMapper deviceTypeMapper,
-                                                                                  DevicePropertyValueEntityMapper devicePropertyValueEntityMapper
+  SpringDataDevicePropertyValueRepository springDataDevicePropertyValueRepository(DevicePropertyValueQueries devicePropertyValueQueries,
+                                                                                  DevicePropertyIdCache devicePropertyIdCache,
+                                                                                  LatestDevicePropertyValueStore latestDevicePropertyValueStore,
+                                                                                  DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                                                                  ObjectProvider<SpringDataDevicePropertyValueWriter> springDataDevicePropertyValueWriter,
+                                                                                  JdbcDevicePropertyValueWriter jdbcDevicePropertyValueWriter,
+                                                                                  ObjectProvider<DevicePropertyValueWriteBehindBuffer> writeBehindBuffer
   ) {
-    return new SpringDataDevicePropertyValueRepository(devicePropertyValueRepository, devicePropertyRepository, deviceTypeMapper, devicePropertyValueEntityMapper);
+    return new SpringDataDevicePropertyValueRepository(devicePropertyValueQueries, devicePropertyIdCache, latestDevicePropertyValueStore, devicePropertyValueEntityMapper,
+        springDataDevicePropertyValueWriter.getIfAvailable(), jdbcDevicePropertyValueWriter, writeBehindBuffer.getIfAvailable());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.device-property-value-repository.rollup", name = "enabled", havingValue = "true")
+  DevicePropertyValueRollupJob devicePropertyValueRollupJob(DataSource dataSource, PlatformTransactionManager transactionManager, RollupConfiguration rollupConfiguration) {
+    return new DevicePropertyValueRollupJob(new JdbcTemplate(dataSource), new TransactionTemplate(transactionManager), rollupConfiguration);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.device-property-value-repository.rollup", name = "enabled", havingValue = "true")
+  DevicePropertyValueRollupRepository devicePropertyValueRollupRepository(JpaDevicePropertyValueRollupRepository jpaDevicePropertyValueRollupRepository,
+                                                                          DevicePropertyIdCache devicePropertyIdCache,
+                                                                          RollupConfiguration rollupConfiguration
+  ) {
+    return new DevicePropertyValueRollupRepository(jpaDevicePropertyValueRollupRepository, devicePropertyIdCache, rollupConfiguration);
   }
 
   @Bean
@@ -167,12 +317,46 @@ public class HomeAutomationCorePersistenceAutoConfiguration {
 
   @Bean
   @ConditionalOnMissingBean
+  @ConditionalOnProperty(value = "homeautomation.spring-core.device-property-value-repository.backfill.enabled", havingValue = "true")
+  DevicePropertyValueTypedColumnBackfill devicePropertyValueTypedColumnBackfill(DataSource dataSource,
+                                                                                DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                                                                @Value("${homeautomation.spring-core.device-property-value-repository.backfill.chunk-size:1000}")
+                                                                                int chunkSize
+  ) {
+    return new DevicePropertyValueTypedColumnBackfill(new JdbcTemplate(dataSource), devicePropertyValueEntityMapper, chunkSize);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.device-property-value-repository.partitioning", name = "enabled", havingValue = "true")
+  DevicePropertyValuePartitionManager devicePropertyValuePartitionManager(DataSource dataSource,
+                                                                          PartitioningConfiguration partitioningConfiguration,
+                                                                          @Value("${homeautomation.spring-core.device-property-value-repository.clean-up.duration:P30D}")
+                                                                          Duration deleteOlderThanDuration
+  ) {
+    return new DevicePropertyValuePartitionManager(new JdbcTemplate(dataSource), partitioningConfiguration, deleteOlderThanDuration);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean({SpringDataDevicePropertyValueRepositoryHousekeeper.class, DevicePropertyValuePartitionManager.class})
   @ConditionalOnProperty(value = "homeautomation.spring-core.device-property-value-repository.clean-up.enabled", havingValue = "true", matchIfMissing = true)
-  @ConditionalOnBean(SpringDataDevicePropertyValueRepository.class)
-  SpringDataDevicePropertyValueRepositoryHousekeeper springDataDevicePropertyValueRepositoryHousekeeper(SpringDataDevicePropertyValueRepository springDataDevicePropertyValueRepository,
+  @ConditionalOnBean(DevicePropertyValueRetention.class)
+  SpringDataDevicePropertyValueRepositoryHousekeeper springDataDevicePropertyValueRepositoryHousekeeper(DevicePropertyValueRetention devicePropertyValueRetention,
                                                                                                         @Value("${homeautomation.spring-core.device-property-value-repository.clean-up.duration:P30D}")
-                                                                                                        Duration deleteOlderThanDuration
+                                                                                                        Duration deleteOlderThanDuration,
+                                                                                                        @Value("${homeautomation.spring-core.device-property-value-repository.clean-up.chunk-size:10000}")
+                                                                                                        int chunkSize,
+                                                                                                        @Value("${homeautomation.spring-core.device-property-value-repository.clean-up.pause:PT0.1S}")
+                                                                                                        Duration pause,
+                                                                                                        @Value("${homeautomation.spring-core.device-property-value-repository.clean-up.max-duration:PT50M}")
+                                                                                                        Duration maxDuration
   ) {
-    return new SpringDataDevicePropertyValueRepositoryHousekeeper(springDataDevicePropertyValueRepository, deleteOlderThanDuration);
+    return new SpringDataDevicePropertyValueRepositoryHousekeeper(devicePropertyValueRetention, deleteOlderThanDuration, chunkSize, pause, maxDuration);
+  }
+
+  private static TransactionTemplate readOnlyTransactionTemplate(PlatformTransactionManager transactionManager) {
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setReadOnly(true);
+    return transactionTemplate;
   }
 }
@@ -22,11 +22,18 @@ import io.github.davemeier82.homeautomation.core.notification.EventPushNotificat
 import io.github.davemeier82.homeautomation.core.notification.EventPushNotificationSender;
 import io.github.davemeier82.homeautomation.core.notification.PushNotificationService;
 import io.github.davemeier82.homeautomation.spring.core.pushnotification.DefaultEventPushNotificationMessageTranslator;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaPushNotificationOutboxRepository;
 import io.github.davemeier82.homeautomation.spring.core.pushnotification.SpringEventPushNotificationSenderAdapter;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.coalescing.PushNotificationCoalescer;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.coalescing.PushNotificationCoalescingConfiguration;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery.PushNotificationDeliveryConfiguration;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery.PushNotificationDispatcher;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery.PushNotificationTransport;
 import io.github.davemeier82.homeautomation.spring.core.pushnotification.pushbullet.PushbulletConfiguration;
 import io.github.davemeier82.homeautomation.spring.core.pushnotification.pushbullet.PushbulletService;
 import io.github.davemeier82.homeautomation.spring.core.pushnotification.pushover.PushoverConfiguration;
 import io.github.davemeier82.homeautomation.spring.core.pushnotification.pushover.PushoverService;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -37,32 +44,53 @@ import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ResourceBundleMessageSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestClient;
 
 import java.util.Set;
 
+import static java.util.stream.Collectors.toSet;
+
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 @Configuration
 @AutoConfigureAfter(HomeAutomationCorePersistenceAutoConfiguration.class)
-@EnableConfigurationProperties({PushoverConfiguration.class, PushbulletConfiguration.class})
+@EnableConfigurationProperties({PushoverConfiguration.class, PushbulletConfiguration.class, PushNotificationDeliveryConfiguration.class,
+    PushNotificationCoalescingConfiguration.class})
 @ConditionalOnProperty(prefix = "homeautomation.spring-core.notification.push", name = "enabled", havingValue = "true")
 public class HomeAutomationCorePushNotificationAutoConfiguration {
 
   @Bean
   @ConditionalOnProperty(prefix = "homeautomation.spring-core.notification.push.pushover", name = "enabled", havingValue = "true")
   PushoverService pushoverNotificationServiceFactory(RestClient restClient,
-                                                     PushoverConfiguration pushoverConfiguration
+                                                     PushoverConfiguration pushoverConfiguration,
+                                                     ObjectProvider<PushNotificationDispatcher> pushNotificationDispatcher
   ) {
-    return new PushoverService(restClient, pushoverConfiguration);
+    return new PushoverService(restClient, pushoverConfiguration, pushNotificationDispatcher.getIfAvailable());
   }
 
   @Bean
   @ConditionalOnProperty(prefix = "homeautomation.spring-core.notification.push.pushbullet", name = "enabled", havingValue = "true")
   PushbulletService pushbulletNotificationServiceFactory(RestClient restClient,
-                                                         PushbulletConfiguration pushbulletConfiguration
+                                                         PushbulletConfiguration pushbulletConfiguration,
+                                                         ObjectProvider<PushNotificationDispatcher> pushNotificationDispatcher
+  ) {
+    return new PushbulletService(restClient, pushbulletConfiguration, pushNotificationDispatcher.getIfAvailable());
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.notification.push.delivery", name = "enabled", havingValue = "true")
+  PushNotificationDispatcher pushNotificationDispatcher(JpaPushNotificationOutboxRepository jpaPushNotificationOutboxRepository,
+                                                        PlatformTransactionManager transactionManager,
+                                                        ObjectProvider<PushNotificationTransport> pushNotificationTransports,
+                                                        PushNotificationDeliveryConfiguration pushNotificationDeliveryConfiguration
   ) {
-    return new PushbulletService(restClient, pushbulletConfiguration);
+    TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    return new PushNotificationDispatcher(jpaPushNotificationOutboxRepository, transactionTemplate, pushNotificationTransports, pushNotificationDeliveryConfiguration);
   }
 
   @Bean
@@ -70,15 +98,27 @@ public class HomeAutomationCorePushNotificationAutoConfiguration {
   @ConditionalOnMissingBean
   EventPushNotificationSender eventPushNotificationSender(EventPushNotificationConfigRepository eventPushNotificationConfigRepository,
                                                           Set<PushNotificationService> pushNotificationServices,
-                                                          EventPushNotificationMessageTranslator eventPushNotificationMessageTranslator
+                                                          EventPushNotificationMessageTranslator eventPushNotificationMessageTranslator,
+                                                          ObjectProvider<PushNotificationCoalescer> pushNotificationCoalescer
   ) {
-    return new DefaultEventPushNotificationSender(eventPushNotificationConfigRepository, pushNotificationServices, eventPushNotificationMessageTranslator);
+    PushNotificationCoalescer coalescer = pushNotificationCoalescer.getIfAvailable();
+    Set<PushNotificationService> services = coalescer == null ? pushNotificationServices : pushNotificationServices.stream().map(coalescer::wrap).collect(toSet());
+    return new DefaultEventPushNotificationSender(eventPushNotificationConfigRepository, services, eventPushNotificationMessageTranslator);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean
+  @ConditionalOnProperty(prefix = "homeautomation.spring-core.notification.push.coalescing", name = "enabled", havingValue = "true")
+  PushNotificationCoalescer pushNotificationCoalescer(PushNotificationCoalescingConfiguration pushNotificationCoalescingConfiguration) {
+    return new PushNotificationCoalescer(pushNotificationCoalescingConfiguration);
   }
 
   @Bean
   @ConditionalOnBean(EventPushNotificationSender.class)
-  SpringEventPushNotificationSenderAdapter springEventPushNotificationSenderAdapter(EventPushNotificationSender eventPushNotificationSender) {
-    return new SpringEventPushNotificationSenderAdapter(eventPushNotificationSender);
+  SpringEventPushNotificationSenderAdapter springEventPushNotificationSenderAdapter(EventPushNotificationSender eventPushNotificationSender,
+                                                                                    ObjectProvider<PushNotificationCoalescer> pushNotificationCoalescer
+  ) {
+    return new SpringEventPushNotificationSenderAdapter(eventPushNotificationSender, pushNotificationCoalescer.getIfAvailable());
   }
 
   @Bean
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.davemeier82.homeautomation.spring.core.persistence.routing.ReadReplica;
+import io.github.davemeier82.homeautomation.spring.core.persistence.routing.ReadReplicaConfiguration;
+import io.github.davemeier82.homeautomation.spring.core.persistence.routing.ReadReplicaRoutingBeanPostProcessor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.StringUtils;
+
+@Configuration
+@ConditionalOnProperty(prefix = "homeautomation.spring-core.read-replica", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadReplicaConfiguration.class)
+public class HomeAutomationCoreReadReplicaAutoConfiguration {
+
+  @Bean
+  static ReadReplicaRoutingBeanPostProcessor readReplicaRoutingBeanPostProcessor(ObjectProvider<ReadReplica> readReplica) {
+    return new ReadReplicaRoutingBeanPostProcessor(readReplica);
+  }
+
+  // the replica is not a DataSource bean, otherwise the auto-configured primary would back off
+  @Bean
+  @ConditionalOnMissingBean
+  ReadReplica readReplica(ReadReplicaConfiguration readReplicaConfiguration, Environment environment) {
+    DataSourceBuilder<HikariDataSource> builder = DataSourceBuilder.create()
+                                                                   .type(HikariDataSource.class)
+                                                                   .url(readReplicaConfiguration.url())
+                                                                   .username(readReplicaConfiguration.username())
+                                                                   .password(readReplicaConfiguration.password());
+    if (StringUtils.hasText(readReplicaConfiguration.driverClassName())) {
+      builder.driverClassName(readReplicaConfiguration.driverClassName());
+    }
+    HikariDataSource dataSource = builder.build();
+    // the pool is configured like spring.datasource.hikari of the primary, its connections are always read-only
+    Binder.get(environment).bind("homeautomation.spring-core.read-replica.hikari", Bindable.ofInstance(dataSource));
+    dataSource.setReadOnly(true);
+    if (!StringUtils.hasText(dataSource.getPoolName())) {
+      dataSource.setPoolName("read-replica");
+    }
+    return new ReadReplica(dataSource, readReplicaConfiguration.maxLag(), readReplicaConfiguration.fallbackToPrimary());
+  }
+}
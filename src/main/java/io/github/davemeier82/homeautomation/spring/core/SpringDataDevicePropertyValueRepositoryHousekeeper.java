@@ -16,27 +16,99 @@
 
 package io.github.davemeier82.homeautomation.spring.core;
 
-import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SpringDataDevicePropertyValueRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.DevicePropertyValueRetention;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.Scheduled;
 
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.concurrent.atomic.LongAdder;
 
 public class SpringDataDevicePropertyValueRepositoryHousekeeper {
 
-  private final SpringDataDevicePropertyValueRepository repository;
+  private static final Logger log = LoggerFactory.getLogger(SpringDataDevicePropertyValueRepositoryHousekeeper.class);
+  private final DevicePropertyValueRetention repository;
   private final Duration duration;
+  private final int chunkSize;
+  private final Duration pause;
+  private final Duration maxDuration;
+  private final LongAdder deletedCount = new LongAdder();
+  private final LongAdder chunkCount = new LongAdder();
+  private volatile long lastRunDeletedCount;
+  private volatile Duration lastRunDuration = Duration.ZERO;
 
-  public SpringDataDevicePropertyValueRepositoryHousekeeper(SpringDataDevicePropertyValueRepository repository, Duration deleteOlderThanDuration) {
+  public SpringDataDevicePropertyValueRepositoryHousekeeper(DevicePropertyValueRetention repository, Duration deleteOlderThanDuration) {
+    this(repository, deleteOlderThanDuration, 10000, Duration.ofMillis(100), Duration.ofMinutes(50));
+  }
+
+  public SpringDataDevicePropertyValueRepositoryHousekeeper(DevicePropertyValueRetention repository,
+                                                            Duration deleteOlderThanDuration,
+                                                            int chunkSize,
+                                                            Duration pause,
+                                                            Duration maxDuration
+  ) {
     this.repository = repository;
     duration = deleteOlderThanDuration;
+    this.chunkSize = chunkSize;
+    this.pause = pause;
+    this.maxDuration = maxDuration;
   }
 
+  // every chunk is deleted in its own transaction, values that are left over are deleted on the next run
   @Scheduled(cron = "0 0 3 * * ?")
   @SchedulerLock(name = "SDDPVR_Housekeeper",
       lockAtLeastFor = "PT5M", lockAtMostFor = "PT60M")
   public void deleteOldValues() {
-    repository.deleteAllBefore(OffsetDateTime.now().minus(duration));
+    OffsetDateTime deleteBefore = OffsetDateTime.now().minus(duration);
+    long start = System.nanoTime();
+    long deleted = 0;
+    int chunkDeleted;
+    do {
+      chunkDeleted = repository.deleteBefore(deleteBefore, chunkSize);
+      deleted += chunkDeleted;
+      deletedCount.add(chunkDeleted);
+      chunkCount.increment();
+      if (chunkDeleted >= chunkSize) {
+        if (Duration.ofNanos(System.nanoTime() - start).compareTo(maxDuration) >= 0) {
+          log.info("stopping housekeeping after {}, remaining values are deleted on the next run", maxDuration);
+          break;
+        }
+        if (!sleep()) {
+          break;
+        }
+      }
+    } while (chunkDeleted >= chunkSize);
+    lastRunDeletedCount = deleted;
+    lastRunDuration = Duration.ofNanos(System.nanoTime() - start);
+    log.info("deleted {} device property values older than {} in {}", deleted, deleteBefore, lastRunDuration);
+  }
+
+  public long getDeletedCount() {
+    return deletedCount.sum();
+  }
+
+  public long getChunkCount() {
+    return chunkCount.sum();
+  }
+
+  public long getLastRunDeletedCount() {
+    return lastRunDeletedCount;
+  }
+
+  public Duration getLastRunDuration() {
+    return lastRunDuration;
+  }
+
+  private boolean sleep() {
+    try {
+      Thread.sleep(pause);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("housekeeping interrupted");
+      return false;
+    }
   }
 }
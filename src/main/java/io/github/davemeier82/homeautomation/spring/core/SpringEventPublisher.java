@@ -17,6 +17,7 @@
 package io.github.davemeier82.homeautomation.spring.core;
 
 import io.github.davemeier82.homeautomation.core.event.EventPublisher;
+import io.github.davemeier82.homeautomation.spring.core.event.EventPipelineObserver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
@@ -25,14 +26,21 @@ public class SpringEventPublisher implements EventPublisher {
 
   private static final Logger log = LoggerFactory.getLogger(SpringEventPublisher.class);
   private final ApplicationEventPublisher applicationEventPublisher;
+  private final EventPipelineObserver eventPipelineObserver;
 
   public SpringEventPublisher(ApplicationEventPublisher applicationEventPublisher) {
+    this(applicationEventPublisher, EventPipelineObserver.NOOP);
+  }
+
+  public SpringEventPublisher(ApplicationEventPublisher applicationEventPublisher, EventPipelineObserver eventPipelineObserver) {
     this.applicationEventPublisher = applicationEventPublisher;
+    this.eventPipelineObserver = eventPipelineObserver;
   }
 
   @Override
   public void publishEvent(Object event) {
     log.debug("publishing event: {}", event.getClass().getSimpleName());
+    eventPipelineObserver.eventPublished(event);
     applicationEventPublisher.publishEvent(event);
   }
 }
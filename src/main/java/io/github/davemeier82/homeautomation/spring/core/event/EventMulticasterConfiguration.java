@@ -0,0 +1,46 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.event;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "homeautomation.spring-core.event-multicaster")
+public record EventMulticasterConfiguration(@DefaultValue("10000") int queueCapacity,
+                                            @DefaultValue("4") int concurrency,
+                                            @DefaultValue("NONE") EventOrdering ordering,
+                                            Map<String, Integer> listenerConcurrency,
+                                            @DefaultValue({"AlarmState", "SmokeState"}) List<String> highPriorityValueTypes
+) {
+
+  /**
+   * Returns the concurrency of the first entry of {@code listenerConcurrency} whose key is part of the listener id, for example the simple class name of the listener.
+   */
+  public int concurrencyOf(String listenerId) {
+    if (listenerConcurrency != null && listenerId != null) {
+      for (Map.Entry<String, Integer> entry : listenerConcurrency.entrySet()) {
+        if (listenerId.contains(entry.getKey())) {
+          return entry.getValue();
+        }
+      }
+    }
+    return concurrency;
+  }
+}
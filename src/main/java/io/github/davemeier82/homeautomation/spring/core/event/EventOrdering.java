@@ -0,0 +1,35 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.event;
+
+/**
+ * Defines which events the {@link PrioritizedApplicationEventMulticaster} hands to a listener one after the other.
+ */
+public enum EventOrdering {
+  /**
+   * No ordering, a listener handles up to {@code concurrency} events at the same time.
+   */
+  NONE,
+  /**
+   * Events of the same device are handled in the order they were published, events of different devices in parallel.
+   */
+  DEVICE,
+  /**
+   * Events of the same device property are handled in the order they were published, events of different device properties in parallel.
+   */
+  DEVICE_PROPERTY
+}
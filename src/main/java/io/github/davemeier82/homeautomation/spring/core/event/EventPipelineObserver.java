@@ -0,0 +1,37 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.event;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Callbacks of the event pipeline, from publishing an event to the commit of the persisted value, used to record metrics.
+ */
+public interface EventPipelineObserver {
+
+  EventPipelineObserver NOOP = new EventPipelineObserver() {
+  };
+
+  default void eventPublished(Object event) {
+  }
+
+  /**
+   * Called after the transaction that stored a device property value with the given event timestamp was committed.
+   */
+  default void valuePersisted(OffsetDateTime eventTimestamp) {
+  }
+}
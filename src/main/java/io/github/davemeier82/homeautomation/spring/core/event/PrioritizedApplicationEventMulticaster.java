@@ -0,0 +1,256 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.event;
+
+import io.github.davemeier82.homeautomation.core.event.DevicePropertyEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.SimpleApplicationEventMulticaster;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.core.ResolvableType;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Hands events to the listeners on virtual threads like a {@link SimpleApplicationEventMulticaster} with a task executor, but
+ * <ul>
+ *   <li>at most {@code queue-capacity} listener invocations wait at the same time, further events are handled on the publishing thread or, with an
+ *   {@link EventOrdering}, wait for a free slot so they do not overtake the waiting events of their device,</li>
+ *   <li>every listener runs at most {@code concurrency} invocations at the same time,</li>
+ *   <li>events of device properties with a high priority value type (alarm and smoke by default) are handed to a listener before all other waiting events.</li>
+ * </ul>
+ * With an {@link EventOrdering} other than {@code NONE} the invocations of a listener are spread over {@code concurrency} lanes by the hash of the
+ * device or device property, each lane handles one event at a time. With {@code DEVICE} a lane is strictly first in first out, with
+ * {@code DEVICE_PROPERTY} high priority events still go first since all events of a device property and value type have the same priority.
+ */
+public class PrioritizedApplicationEventMulticaster extends SimpleApplicationEventMulticaster {
+
+  private static final Logger log = LoggerFactory.getLogger(PrioritizedApplicationEventMulticaster.class);
+  private static final Comparator<Task> TASK_ORDER = Comparator.comparing(Task::priority).thenComparingLong(Task::sequence);
+  private static final Comparator<Task> PUBLICATION_ORDER = Comparator.comparingLong(Task::sequence);
+  private static final ThreadLocal<Boolean> DRAINING = ThreadLocal.withInitial(() -> Boolean.FALSE);
+  private final EventMulticasterConfiguration configuration;
+  private final Set<String> highPriorityValueTypes;
+  private final Semaphore capacity;
+  private final Map<ApplicationListener<?>, Lane[]> lanes = new ConcurrentHashMap<>();
+  private final ThreadFactory threadFactory = Thread.ofVirtual().name("event-listener-", 0).factory();
+  private final AtomicLong sequence = new AtomicLong();
+  private final AtomicInteger queueSize = new AtomicInteger();
+  private final LongAdder callerRunsCount = new LongAdder();
+  private final LongAdder overflowCount = new LongAdder();
+  private final Map<EventPriority, LongAdder> dispatchedCount = new EnumMap<>(EventPriority.class);
+  private final Map<EventPriority, LongAdder> waitNanos = new EnumMap<>(EventPriority.class);
+
+  public PrioritizedApplicationEventMulticaster(EventMulticasterConfiguration configuration) {
+    this.configuration = configuration;
+    highPriorityValueTypes = configuration.highPriorityValueTypes().stream().map(PrioritizedApplicationEventMulticaster::normalize).collect(toSet());
+    capacity = new Semaphore(configuration.queueCapacity());
+    for (EventPriority priority : EventPriority.values()) {
+      dispatchedCount.put(priority, new LongAdder());
+      waitNanos.put(priority, new LongAdder());
+    }
+  }
+
+  // AlarmState, ALARM_STATE and alarmState are the same type
+  private static String normalize(String typeName) {
+    return typeName.replace("_", "").toLowerCase(Locale.ROOT);
+  }
+
+  private static String listenerId(ApplicationListener<?> listener) {
+    if (listener instanceof SmartApplicationListener smartListener && !smartListener.getListenerId().isEmpty()) {
+      return smartListener.getListenerId();
+    }
+    return listener.getClass().getName();
+  }
+
+  @Override
+  public void multicastEvent(ApplicationEvent event, ResolvableType eventType) {
+    ResolvableType type = eventType != null ? eventType : ResolvableType.forInstance(event);
+    EventPriority priority = priorityOf(event);
+    Object orderingKey = orderingKey(event);
+    for (ApplicationListener<?> listener : getApplicationListeners(event, type)) {
+      if (!listener.supportsAsyncExecution()) {
+        invokeListener(listener, event);
+      } else if (capacity.tryAcquire()) {
+        submit(listener, event, priority, orderingKey, true);
+      } else if (orderingKey == null) {
+        // blocking would dead-lock listeners that publish events themselves
+        callerRunsCount.increment();
+        invokeListener(listener, event);
+      } else {
+        // running it on this thread would overtake the waiting events of the same device
+        submit(listener, event, priority, orderingKey, awaitCapacity());
+      }
+    }
+  }
+
+  private void submit(ApplicationListener<?> listener, ApplicationEvent event, EventPriority priority, Object orderingKey, boolean holdsCapacity) {
+    long taskSequence = sequence.getAndIncrement();
+    Lane[] listenerLanes = lanes.computeIfAbsent(listener, this::createLanes);
+    int hash = orderingKey == null ? Long.hashCode(taskSequence) : orderingKey.hashCode();
+    listenerLanes[Math.floorMod(hash ^ (hash >>> 16), listenerLanes.length)].submit(new Task(listener, event, priority, taskSequence, System.nanoTime(), holdsCapacity));
+  }
+
+  /**
+   * Waits for a free slot in the queue. A listener that publishes an event does not wait, the queue only shrinks while the listeners run, so it
+   * queues the event beyond the capacity instead.
+   *
+   * @return true if a slot was taken
+   */
+  private boolean awaitCapacity() {
+    if (DRAINING.get()) {
+      overflowCount.increment();
+      return false;
+    }
+    try {
+      capacity.acquire();
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      overflowCount.increment();
+      return false;
+    }
+  }
+
+  public int getQueueSize() {
+    return queueSize.get();
+  }
+
+  public long getCallerRunsCount() {
+    return callerRunsCount.sum();
+  }
+
+  public long getOverflowCount() {
+    return overflowCount.sum();
+  }
+
+  public long getDispatchedCount(EventPriority priority) {
+    return dispatchedCount.get(priority).sum();
+  }
+
+  public long getWaitNanos(EventPriority priority) {
+    return waitNanos.get(priority).sum();
+  }
+
+  private Lane[] createLanes(ApplicationListener<?> listener) {
+    int concurrency = Math.max(1, configuration.concurrencyOf(listenerId(listener)));
+    if (configuration.ordering() == EventOrdering.NONE) {
+      return new Lane[]{new Lane(concurrency, TASK_ORDER)};
+    }
+    Lane[] listenerLanes = new Lane[concurrency];
+    for (int i = 0; i < concurrency; i++) {
+      listenerLanes[i] = new Lane(1, configuration.ordering() == EventOrdering.DEVICE ? PUBLICATION_ORDER : TASK_ORDER);
+    }
+    return listenerLanes;
+  }
+
+  private Object orderingKey(ApplicationEvent event) {
+    if (event instanceof PayloadApplicationEvent<?> payloadEvent && payloadEvent.getPayload() instanceof DevicePropertyEvent<?> devicePropertyEvent) {
+      return switch (configuration.ordering()) {
+        case NONE -> null;
+        case DEVICE -> devicePropertyEvent.getDevicePropertyId().deviceId();
+        case DEVICE_PROPERTY -> devicePropertyEvent.getDevicePropertyId();
+      };
+    }
+    return null;
+  }
+
+  private EventPriority priorityOf(ApplicationEvent event) {
+    if (event instanceof PayloadApplicationEvent<?> payloadEvent
+        && payloadEvent.getPayload() instanceof DevicePropertyEvent<?> devicePropertyEvent
+        && devicePropertyEvent.getValueType() != null
+        && highPriorityValueTypes.contains(normalize(devicePropertyEvent.getValueType().getTypeName()))) {
+      return EventPriority.HIGH;
+    }
+    return EventPriority.NORMAL;
+  }
+
+  private void run(Task task) {
+    queueSize.decrementAndGet();
+    if (task.holdsCapacity()) {
+      capacity.release();
+    }
+    dispatchedCount.get(task.priority()).increment();
+    waitNanos.get(task.priority()).add(System.nanoTime() - task.enqueuedAt());
+    try {
+      invokeListener(task.listener(), task.event());
+    } catch (RuntimeException e) {
+      log.error("listener {} failed to handle {}", listenerId(task.listener()), task.event(), e);
+    }
+  }
+
+  private record Task(ApplicationListener<?> listener, ApplicationEvent event, EventPriority priority, long sequence, long enqueuedAt, boolean holdsCapacity) {
+  }
+
+  private class Lane {
+
+    private final PriorityBlockingQueue<Task> queue;
+    private final AtomicInteger drainers = new AtomicInteger();
+    private final int maxDrainers;
+
+    private Lane(int maxDrainers, Comparator<Task> order) {
+      this.maxDrainers = maxDrainers;
+      queue = new PriorityBlockingQueue<>(16, order);
+    }
+
+    private void submit(Task task) {
+      queueSize.incrementAndGet();
+      queue.add(task);
+      if (tryAddDrainer()) {
+        threadFactory.newThread(this::drain).start();
+      }
+    }
+
+    private boolean tryAddDrainer() {
+      int current;
+      while ((current = drainers.get()) < maxDrainers) {
+        if (drainers.compareAndSet(current, current + 1)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private void drain() {
+      DRAINING.set(Boolean.TRUE);
+      do {
+        Task task;
+        while ((task = queue.poll()) != null) {
+          run(task);
+        }
+        drainers.decrementAndGet();
+        // a task that was added after the last poll but before the decrement found no free drainer
+      } while (!queue.isEmpty() && tryAddDrainer());
+    }
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.http;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "homeautomation.spring-core.http-client")
+public record HttpClientConfiguration(@DefaultValue("16") int maxConnections,
+                                      @DefaultValue("PT10S") Duration pendingAcquireTimeout,
+                                      @DefaultValue("PT30S") Duration maxIdleTime,
+                                      @DefaultValue("PT5M") Duration maxLifeTime,
+                                      @DefaultValue("PT5S") Duration connectTimeout,
+                                      @DefaultValue("PT10S") Duration readTimeout,
+                                      @DefaultValue("true") boolean http2,
+                                      @DefaultValue("true") boolean metrics
+) {
+}
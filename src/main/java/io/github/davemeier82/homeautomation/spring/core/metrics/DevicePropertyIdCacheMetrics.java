@@ -0,0 +1,47 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.metrics;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+public class DevicePropertyIdCacheMetrics implements MeterBinder {
+
+  private final DevicePropertyIdCache cache;
+
+  public DevicePropertyIdCacheMetrics(DevicePropertyIdCache cache) {
+    this.cache = cache;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("homeautomation.device-property-id.cache.requests", cache, DevicePropertyIdCache::getHitCount)
+                   .tag("result", "hit")
+                   .description("Device property id lookups served from the cache")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.device-property-id.cache.requests", cache, DevicePropertyIdCache::getMissCount)
+                   .tag("result", "miss")
+                   .description("Device property id lookups that queried the database")
+                   .register(registry);
+    Gauge.builder("homeautomation.device-property-id.cache.size", cache, DevicePropertyIdCache::size)
+         .description("Number of cached device property ids")
+         .register(registry);
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.metrics;
+
+import io.github.davemeier82.homeautomation.spring.core.SpringDataDevicePropertyValueRepositoryHousekeeper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+public class DevicePropertyValueHousekeeperMetrics implements MeterBinder {
+
+  private final SpringDataDevicePropertyValueRepositoryHousekeeper housekeeper;
+
+  public DevicePropertyValueHousekeeperMetrics(SpringDataDevicePropertyValueRepositoryHousekeeper housekeeper) {
+    this.housekeeper = housekeeper;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("homeautomation.device-property-value.housekeeping.deleted", housekeeper, SpringDataDevicePropertyValueRepositoryHousekeeper::getDeletedCount)
+                   .description("Device property values deleted by the housekeeping")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.device-property-value.housekeeping.chunks", housekeeper, SpringDataDevicePropertyValueRepositoryHousekeeper::getChunkCount)
+                   .description("Chunks deleted by the housekeeping")
+                   .register(registry);
+    Gauge.builder("homeautomation.device-property-value.housekeeping.last-run.deleted", housekeeper, SpringDataDevicePropertyValueRepositoryHousekeeper::getLastRunDeletedCount)
+         .description("Device property values deleted by the last housekeeping run")
+         .register(registry);
+    Gauge.builder("homeautomation.device-property-value.housekeeping.last-run.duration", housekeeper, h -> h.getLastRunDuration().toMillis() / 1000.0)
+         .description("Duration of the last housekeeping run")
+         .baseUnit("seconds")
+         .register(registry);
+  }
+}
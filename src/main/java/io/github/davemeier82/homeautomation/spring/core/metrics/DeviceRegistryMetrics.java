@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.metrics;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DeviceRegistry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+public class DeviceRegistryMetrics implements MeterBinder {
+
+  private final DeviceRegistry deviceRegistry;
+
+  public DeviceRegistryMetrics(DeviceRegistry deviceRegistry) {
+    this.deviceRegistry = deviceRegistry;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("homeautomation.device.registry.requests", deviceRegistry, DeviceRegistry::getHitCount)
+                   .tag("result", "hit")
+                   .description("Device lookups served from the registry")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.device.registry.requests", deviceRegistry, DeviceRegistry::getMissCount)
+                   .tag("result", "miss")
+                   .description("Device lookups that queried the database")
+                   .register(registry);
+    Gauge.builder("homeautomation.device.registry.size", deviceRegistry, DeviceRegistry::size)
+         .description("Number of devices in the registry")
+         .register(registry);
+  }
+}
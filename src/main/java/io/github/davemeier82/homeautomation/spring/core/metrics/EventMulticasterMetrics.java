@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.metrics;
+
+import io.github.davemeier82.homeautomation.spring.core.event.EventPriority;
+import io.github.davemeier82.homeautomation.spring.core.event.PrioritizedApplicationEventMulticaster;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Locale;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+public class EventMulticasterMetrics implements MeterBinder {
+
+  private final PrioritizedApplicationEventMulticaster multicaster;
+
+  public EventMulticasterMetrics(PrioritizedApplicationEventMulticaster multicaster) {
+    this.multicaster = multicaster;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("homeautomation.event.dispatch.queue.size", multicaster, PrioritizedApplicationEventMulticaster::getQueueSize)
+         .description("Listener invocations waiting for a thread")
+         .register(registry);
+    FunctionCounter.builder("homeautomation.event.dispatch.caller-runs", multicaster, PrioritizedApplicationEventMulticaster::getCallerRunsCount)
+                   .description("Listener invocations run on the publishing thread because the queue was full")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.event.dispatch.overflow", multicaster, PrioritizedApplicationEventMulticaster::getOverflowCount)
+                   .description("Ordered listener invocations queued beyond the capacity because a listener published them")
+                   .register(registry);
+    for (EventPriority priority : EventPriority.values()) {
+      FunctionTimer.builder("homeautomation.event.dispatch.wait", multicaster, m -> m.getDispatchedCount(priority), m -> m.getWaitNanos(priority), NANOSECONDS)
+                   .description("Time listener invocations waited in the queue")
+                   .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                   .register(registry);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.metrics;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.LatestDevicePropertyValueStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+public class LatestDevicePropertyValueStoreMetrics implements MeterBinder {
+
+  private final LatestDevicePropertyValueStore store;
+
+  public LatestDevicePropertyValueStoreMetrics(LatestDevicePropertyValueStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("homeautomation.latest-device-property-value.store.requests", store, LatestDevicePropertyValueStore::getHitCount)
+                   .tag("result", "hit")
+                   .description("Latest value lookups served from memory")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.latest-device-property-value.store.requests", store, LatestDevicePropertyValueStore::getMissCount)
+                   .tag("result", "miss")
+                   .description("Latest value lookups that queried the database")
+                   .register(registry);
+    Gauge.builder("homeautomation.latest-device-property-value.store.size", store, LatestDevicePropertyValueStore::size)
+         .description("Number of device property values held in memory")
+         .register(registry);
+  }
+}
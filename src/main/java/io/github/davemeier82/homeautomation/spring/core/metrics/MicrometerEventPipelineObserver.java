@@ -0,0 +1,80 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.metrics;
+
+import io.github.davemeier82.homeautomation.spring.core.event.EventPipelineObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MicrometerEventPipelineObserver implements EventPipelineObserver {
+
+  private final ObjectProvider<MeterRegistry> meterRegistry;
+  private final Map<Class<?>, Counter> publishedCounters = new ConcurrentHashMap<>();
+  private volatile Timer persistedLatency;
+
+  public MicrometerEventPipelineObserver(ObjectProvider<MeterRegistry> meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void eventPublished(Object event) {
+    Counter counter = publishedCounters.get(event.getClass());
+    if (counter == null) {
+      MeterRegistry registry = meterRegistry.getIfAvailable();
+      if (registry == null) {
+        return;
+      }
+      counter = publishedCounters.computeIfAbsent(event.getClass(), type -> Counter.builder("homeautomation.event.published")
+                                                                                     .description("Published events")
+                                                                                     .tag("type", type.getSimpleName())
+                                                                                     .register(registry));
+    }
+    counter.increment();
+  }
+
+  @Override
+  public void valuePersisted(OffsetDateTime eventTimestamp) {
+    if (eventTimestamp == null) {
+      return;
+    }
+    Duration latency = Duration.between(eventTimestamp, OffsetDateTime.now());
+    if (latency.isNegative()) {
+      // the clock of the device is ahead
+      return;
+    }
+    Timer timer = persistedLatency;
+    if (timer == null) {
+      MeterRegistry registry = meterRegistry.getIfAvailable();
+      if (registry == null) {
+        return;
+      }
+      // registering is idempotent, a concurrent first call gets the same timer
+      timer = Timer.builder("homeautomation.event.persisted.latency")
+                   .description("Time from the event timestamp to the commit of the persisted value")
+                   .register(registry);
+      persistedLatency = timer;
+    }
+    timer.record(latency);
+  }
+}
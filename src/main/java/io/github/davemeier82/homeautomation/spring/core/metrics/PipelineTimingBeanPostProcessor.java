@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.metrics;
+
+import io.github.davemeier82.homeautomation.spring.core.DeviceStatePersistenceHandler;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SpringDataDeviceRepository;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.SpringEventPushNotificationSenderAdapter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Times the event listener methods of the {@link DeviceStatePersistenceHandler} and the {@link SpringEventPushNotificationSenderAdapter}
+ * and the public methods of the {@code SpringData*Repository} classes. The timer wraps an existing transaction proxy, so the commit is included.
+ */
+public class PipelineTimingBeanPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+  public PipelineTimingBeanPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+    advisor = new DefaultPointcutAdvisor(new PipelinePointcut(), new TimingInterceptor(meterRegistry));
+    setBeforeExistingAdvisors(true);
+    setProxyTargetClass(true);
+  }
+
+  private static boolean isListener(Class<?> clazz) {
+    return DeviceStatePersistenceHandler.class.isAssignableFrom(clazz) || SpringEventPushNotificationSenderAdapter.class.isAssignableFrom(clazz);
+  }
+
+  private static boolean isRepository(Class<?> clazz) {
+    Class<?> userClass = ClassUtils.getUserClass(clazz);
+    return userClass.getPackageName().equals(SpringDataDeviceRepository.class.getPackageName())
+        && userClass.getSimpleName().startsWith("SpringData")
+        && userClass.getSimpleName().endsWith("Repository");
+  }
+
+  private static class PipelinePointcut extends StaticMethodMatcherPointcut {
+
+    PipelinePointcut() {
+      setClassFilter(clazz -> isListener(clazz) || isRepository(clazz));
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+      if (isListener(targetClass)) {
+        return AnnotatedElementUtils.hasAnnotation(method, EventListener.class);
+      }
+      return isRepository(targetClass) && Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+    }
+  }
+
+  private static class TimingInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    private TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry) {
+      this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+      MeterRegistry registry = meterRegistry.getIfAvailable();
+      if (registry == null) {
+        return invocation.proceed();
+      }
+      Class<?> targetClass = ClassUtils.getUserClass(invocation.getThis() == null ? invocation.getMethod().getDeclaringClass() : invocation.getThis().getClass());
+      long start = System.nanoTime();
+      String exception = "none";
+      try {
+        return invocation.proceed();
+      } catch (Throwable e) {
+        exception = e.getClass().getSimpleName();
+        throw e;
+      } finally {
+        timers.computeIfAbsent(new TimerKey(targetClass, invocation.getMethod(), exception), key -> register(registry, key))
+              .record(System.nanoTime() - start, NANOSECONDS);
+      }
+    }
+
+    private static Timer register(MeterRegistry registry, TimerKey key) {
+      boolean listener = isListener(key.targetClass());
+      return Timer.builder(listener ? "homeautomation.event.listener" : "homeautomation.repository.invocation")
+                  .description(listener ? "Execution time of event listeners" : "Execution time of repository methods")
+                  .tag(listener ? "listener" : "repository", key.targetClass().getSimpleName())
+                  .tag("method", key.method().getName())
+                  .tag("exception", key.exception())
+                  .register(registry);
+    }
+  }
+
+  private record TimerKey(Class<?> targetClass, Method method, String exception) {
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.metrics;
+
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.coalescing.PushNotificationCoalescer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+public class PushNotificationCoalescerMetrics implements MeterBinder {
+
+  private final PushNotificationCoalescer coalescer;
+
+  public PushNotificationCoalescerMetrics(PushNotificationCoalescer coalescer) {
+    this.coalescer = coalescer;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("homeautomation.push-notification.coalescing", coalescer, PushNotificationCoalescer::getSentCount)
+                   .description("Push notifications passed to the coalescing")
+                   .tag("result", "sent")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.push-notification.coalescing", coalescer, PushNotificationCoalescer::getCoalescedCount)
+                   .description("Push notifications passed to the coalescing")
+                   .tag("result", "coalesced")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.push-notification.coalescing", coalescer, PushNotificationCoalescer::getSuppressedCount)
+                   .description("Push notifications passed to the coalescing")
+                   .tag("result", "suppressed")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.push-notification.coalescing.digests", coalescer, PushNotificationCoalescer::getDigestCount)
+                   .description("Digests sent at the end of a window")
+                   .register(registry);
+    Gauge.builder("homeautomation.push-notification.coalescing.windows", coalescer, PushNotificationCoalescer::getOpenWindowCount)
+         .description("Open coalescing windows")
+         .register(registry);
+  }
+}
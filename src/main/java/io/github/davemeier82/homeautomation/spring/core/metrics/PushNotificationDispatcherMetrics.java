@@ -0,0 +1,51 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.metrics;
+
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery.PushNotificationDispatcher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+public class PushNotificationDispatcherMetrics implements MeterBinder {
+
+  private final PushNotificationDispatcher dispatcher;
+
+  public PushNotificationDispatcherMetrics(PushNotificationDispatcher dispatcher) {
+    this.dispatcher = dispatcher;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("homeautomation.push-notification.delivery", dispatcher, PushNotificationDispatcher::getDeliveredCount)
+                   .description("Push notification delivery attempts")
+                   .tag("result", "delivered")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.push-notification.delivery", dispatcher, PushNotificationDispatcher::getRetriedCount)
+                   .description("Push notification delivery attempts")
+                   .tag("result", "retried")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.push-notification.delivery", dispatcher, PushNotificationDispatcher::getFailedCount)
+                   .description("Push notification delivery attempts")
+                   .tag("result", "failed")
+                   .register(registry);
+    Gauge.builder("homeautomation.push-notification.delivery.queue.size", dispatcher, PushNotificationDispatcher::getQueueSize)
+         .description("Push notifications waiting for a worker")
+         .register(registry);
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.metrics;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.routing.ReadReplica;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+public class ReadReplicaMetrics implements MeterBinder {
+
+  private final ReadReplica readReplica;
+
+  public ReadReplicaMetrics(ReadReplica readReplica) {
+    this.readReplica = readReplica;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    FunctionCounter.builder("homeautomation.read-replica.connections", readReplica, ReadReplica::getReplicaConnectionCount)
+                   .tag("target", "replica")
+                   .description("Connections of replica reads served by the read replica")
+                   .register(registry);
+    FunctionCounter.builder("homeautomation.read-replica.connections", readReplica, ReadReplica::getPrimaryConnectionCount)
+                   .tag("target", "primary")
+                   .description("Connections of replica reads that fell back to the primary")
+                   .register(registry);
+    Gauge.builder("homeautomation.read-replica.lag", readReplica, ReadReplica::getLagSeconds)
+         .baseUnit("seconds")
+         .description("Replication lag of the read replica at the last check")
+         .register(registry);
+  }
+}
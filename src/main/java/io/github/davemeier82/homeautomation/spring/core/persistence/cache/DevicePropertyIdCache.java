@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.cache;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.DevicePropertyIdRow;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDevicePropertyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.github.davemeier82.homeautomation.spring.core.persistence.TransactionCallbacks.afterCompletion;
+
+/**
+ * Resolves a {@link DevicePropertyId} to the primary key of its {@code device_property} row without querying the database.
+ * Unknown ids are not cached, so device properties created later are found on their first lookup. Callers that remember unknown ids themselves
+ * compare {@link #getGeneration()}, which changes whenever an entry is invalidated.
+ */
+public class DevicePropertyIdCache {
+
+  private static final Logger log = LoggerFactory.getLogger(DevicePropertyIdCache.class);
+  private final Map<DevicePropertyId, UUID> cache = new ConcurrentHashMap<>();
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final AtomicLong generation = new AtomicLong();
+  private final JpaDevicePropertyRepository devicePropertyRepository;
+  private final DeviceTypeMapper deviceTypeMapper;
+
+  public DevicePropertyIdCache(JpaDevicePropertyRepository devicePropertyRepository, DeviceTypeMapper deviceTypeMapper) {
+    this.devicePropertyRepository = devicePropertyRepository;
+    this.deviceTypeMapper = deviceTypeMapper;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void load() {
+    for (DevicePropertyIdRow row : devicePropertyRepository.findAllIdRows()) {
+      DeviceId deviceId = new DeviceId(row.deviceId(), deviceTypeMapper.map(row.deviceType()));
+      cache.put(new DevicePropertyId(deviceId, row.devicePropertyId()), row.id());
+    }
+    log.info("loaded {} device property ids", cache.size());
+  }
+
+  public Optional<UUID> find(DevicePropertyId devicePropertyId) {
+    UUID id = cache.get(devicePropertyId);
+    if (id != null) {
+      hitCount.increment();
+      return Optional.of(id);
+    }
+    missCount.increment();
+    String deviceType = deviceTypeMapper.map(devicePropertyId.deviceId().type());
+    Optional<UUID> loaded = devicePropertyRepository.findByDevicePropertyIdAndDevice_DeviceIdAndDevice_DeviceType(devicePropertyId.id(), devicePropertyId.deviceId().id(), deviceType)
+                                                    .map(DevicePropertyEntity::getId);
+    loaded.ifPresent(uuid -> cache.put(devicePropertyId, uuid));
+    return loaded;
+  }
+
+  public void invalidate(DevicePropertyId devicePropertyId) {
+    cache.remove(devicePropertyId);
+    generation.incrementAndGet();
+    // a concurrent lookup can cache the old row again before the change is committed
+    afterCompletion(() -> {
+      cache.remove(devicePropertyId);
+      generation.incrementAndGet();
+    });
+  }
+
+  public void invalidate(DeviceId deviceId) {
+    cache.keySet().removeIf(id -> id.deviceId().equals(deviceId));
+    generation.incrementAndGet();
+    afterCompletion(() -> {
+      cache.keySet().removeIf(id -> id.deviceId().equals(deviceId));
+      generation.incrementAndGet();
+    });
+  }
+
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  public int size() {
+    return cache.size();
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.cache;
+
+import io.github.davemeier82.homeautomation.core.device.Device;
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.CustomIdentifierEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceParameterEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DeviceEntityMapper;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDeviceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static io.github.davemeier82.homeautomation.spring.core.persistence.TransactionCallbacks.afterCommit;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * In-memory copy of the devices with their parameters and custom identifiers. Readers get immutable snapshots, a change copies the snapshot and
+ * replaces it as a whole. The registry keeps the data of a device, not the device: every lookup creates a new instance with its {@code DeviceFactory},
+ * so a caller can change the device it got without affecting the registry or other callers, like a device read from the database.
+ * The registry is loaded at startup and periodically, changes made through the repository are applied after their transaction is committed.
+ * A device that is not in the registry is read from the database on its first lookup, only such a miss opens a read-only transaction.
+ */
+public class DeviceRegistry {
+
+  private static final Logger log = LoggerFactory.getLogger(DeviceRegistry.class);
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final JpaDeviceRepository jpaDeviceRepository;
+  private final DeviceEntityMapper deviceEntityMapper;
+  private final DeviceTypeMapper deviceTypeMapper;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+  private volatile Snapshot snapshot;
+
+  public DeviceRegistry(JpaDeviceRepository jpaDeviceRepository,
+                        DeviceEntityMapper deviceEntityMapper,
+                        DeviceTypeMapper deviceTypeMapper,
+                        TransactionTemplate readOnlyTransactionTemplate
+  ) {
+    this.jpaDeviceRepository = jpaDeviceRepository;
+    this.deviceEntityMapper = deviceEntityMapper;
+    this.deviceTypeMapper = deviceTypeMapper;
+    this.readOnlyTransactionTemplate = readOnlyTransactionTemplate;
+  }
+
+  private static Map<String, String> parameters(DeviceEntity entity) {
+    return entity.getDeviceParameters().stream().collect(toMap(p -> p.getId().getName(), DeviceParameterEntity::getValue));
+  }
+
+  private static Map<String, String> customIdentifiers(DeviceEntity entity) {
+    return entity.getCustomIdentifiers().stream().collect(toMap(c -> c.getId().getName(), CustomIdentifierEntity::getValue));
+  }
+
+  // a change committed while the devices are loaded waits for the lock and is applied on top of the loaded snapshot
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(initialDelayString = "${homeautomation.spring-core.device-registry.refresh-interval:PT10M}",
+      fixedDelayString = "${homeautomation.spring-core.device-registry.refresh-interval:PT10M}")
+  @Transactional(readOnly = true)
+  public synchronized void load() {
+    Map<DeviceKey, Entry> entries = new HashMap<>();
+    for (DeviceEntity entity : jpaDeviceRepository.findAllWithParametersAndCustomIdentifiers()) {
+      try {
+        Entry entry = entry(entity);
+        // a device its factory cannot create would fail on every lookup
+        createDevice(entry);
+        entries.put(entry.key(), entry);
+      } catch (RuntimeException e) {
+        log.warn("failed to create device {} of type {}, it is not in the registry", entity.getDeviceId(), entity.getDeviceType(), e);
+      }
+    }
+    snapshot = Snapshot.of(entries);
+    log.info("loaded {} devices", entries.size());
+  }
+
+  public boolean isLoaded() {
+    return snapshot != null;
+  }
+
+  public Optional<Device> find(DeviceId deviceId) {
+    DeviceKey key = new DeviceKey(deviceId.id(), deviceTypeMapper.map(deviceId.type()));
+    Snapshot current = snapshot;
+    Entry entry = current == null ? null : current.entries().get(key);
+    if (entry != null) {
+      hitCount.increment();
+      return Optional.of(createDevice(entry));
+    }
+    missCount.increment();
+    return readOnlyTransactionTemplate.execute(status -> loadDevice(key));
+  }
+
+  public Set<Device> getDevices() {
+    return createDevices(loadedSnapshot().entries().values());
+  }
+
+  public Set<Device> getDevicesByType(String deviceType) {
+    return createDevices(loadedSnapshot().entriesByType().getOrDefault(deviceType, List.of()));
+  }
+
+  public Map<DeviceId, Map<String, String>> getAllCustomIdentifiers() {
+    return loadedSnapshot().customIdentifiers();
+  }
+
+  public Map<DeviceId, Map<String, String>> getAllParameters() {
+    return loadedSnapshot().parameters();
+  }
+
+  /**
+   * Stores the saved device once the current transaction is committed. The display name, parameters and custom identifiers are taken from the entity.
+   */
+  public void put(DeviceEntity entity) {
+    Entry entry = entry(entity);
+    afterCommit(() -> update(entries -> entries.put(entry.key(), entry)));
+  }
+
+  public void remove(DeviceId deviceId) {
+    DeviceKey key = new DeviceKey(deviceId.id(), deviceTypeMapper.map(deviceId.type()));
+    afterCommit(() -> update(entries -> entries.remove(key)));
+  }
+
+  public int size() {
+    Snapshot current = snapshot;
+    return current == null ? 0 : current.entries().size();
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  private Optional<Device> loadDevice(DeviceKey key) {
+    Optional<DeviceEntity> entity = jpaDeviceRepository.findByDeviceIdAndDeviceType(key.deviceId(), key.deviceType());
+    if (entity.isEmpty()) {
+      return Optional.empty();
+    }
+    Entry loaded = entry(entity.get());
+    Device device = createDevice(loaded);
+    afterCommit(() -> update(entries -> entries.putIfAbsent(key, loaded)));
+    return Optional.of(device);
+  }
+
+  private Entry entry(DeviceEntity entity) {
+    DeviceId deviceId = new DeviceId(entity.getDeviceId(), deviceTypeMapper.map(entity.getDeviceType()));
+    return new Entry(new DeviceKey(entity.getDeviceId(), entity.getDeviceType()), deviceId, entity.getDisplayName(), Map.copyOf(parameters(entity)),
+        Map.copyOf(customIdentifiers(entity)));
+  }
+
+  private Device createDevice(Entry entry) {
+    return deviceEntityMapper.createDevice(entry.deviceId().type(), entry.deviceId().id(), entry.displayName(), entry.parameters(), entry.customIdentifiers());
+  }
+
+  private Set<Device> createDevices(Collection<Entry> entries) {
+    Set<Device> devices = HashSet.newHashSet(entries.size());
+    for (Entry entry : entries) {
+      devices.add(createDevice(entry));
+    }
+    return devices;
+  }
+
+  private Snapshot loadedSnapshot() {
+    Snapshot current = snapshot;
+    if (current == null) {
+      throw new IllegalStateException("device registry is not loaded yet");
+    }
+    return current;
+  }
+
+  // changes before the first load are dropped, the load reads them from the database
+  private synchronized void update(Consumer<Map<DeviceKey, Entry>> change) {
+    if (snapshot != null) {
+      Map<DeviceKey, Entry> entries = new HashMap<>(snapshot.entries());
+      change.accept(entries);
+      snapshot = Snapshot.of(entries);
+    }
+  }
+
+  private record DeviceKey(String deviceId, String deviceType) {
+  }
+
+  private record Entry(DeviceKey key, DeviceId deviceId, String displayName, Map<String, String> parameters, Map<String, String> customIdentifiers) {
+  }
+
+  private record Snapshot(Map<DeviceKey, Entry> entries,
+                          Map<String, List<Entry>> entriesByType,
+                          Map<DeviceId, Map<String, String>> customIdentifiers,
+                          Map<DeviceId, Map<String, String>> parameters
+  ) {
+
+    static Snapshot of(Map<DeviceKey, Entry> entries) {
+      Map<String, List<Entry>> entriesByType = new HashMap<>();
+      Map<DeviceId, Map<String, String>> customIdentifiers = HashMap.newHashMap(entries.size());
+      Map<DeviceId, Map<String, String>> parameters = HashMap.newHashMap(entries.size());
+      for (Entry entry : entries.values()) {
+        entriesByType.computeIfAbsent(entry.key().deviceType(), type -> new ArrayList<>()).add(entry);
+        if (!entry.customIdentifiers().isEmpty()) {
+          customIdentifiers.put(entry.deviceId(), entry.customIdentifiers());
+        }
+        if (!entry.parameters().isEmpty()) {
+          parameters.put(entry.deviceId(), entry.parameters());
+        }
+      }
+      Map<String, List<Entry>> byType = HashMap.newHashMap(entriesByType.size());
+      entriesByType.forEach((type, typeEntries) -> byType.put(type, List.copyOf(typeEntries)));
+      return new Snapshot(Map.copyOf(entries), Map.copyOf(byType), Map.copyOf(customIdentifiers), Map.copyOf(parameters));
+    }
+  }
+}
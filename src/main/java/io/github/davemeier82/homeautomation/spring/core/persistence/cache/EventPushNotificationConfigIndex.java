@@ -0,0 +1,162 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.cache;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.event.DevicePropertyEvent;
+import io.github.davemeier82.homeautomation.core.event.DevicePropertyUpdatedEvent;
+import io.github.davemeier82.homeautomation.core.notification.EventPushNotificationConfig;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.EventPushNotificationConfigEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.EventPushNotificationConfigEntityMapper;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaEventPushNotificationConfigRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the {@code event_push_notification_config} table. The rules are grouped by device, device property and value type, where a missing
+ * device, device property or value type is its own wildcard group, so matching an event takes a fixed number of map lookups.
+ * The rules are reloaded at startup, periodically and whenever {@link #refresh()} is called after the table was changed.
+ * Device properties that do not exist are remembered until the {@link DevicePropertyIdCache} is invalidated or the rules are reloaded, so events of
+ * unknown device properties do not query the database each time.
+ */
+public class EventPushNotificationConfigIndex {
+
+  private static final Logger log = LoggerFactory.getLogger(EventPushNotificationConfigIndex.class);
+  private final JpaEventPushNotificationConfigRepository eventPushNotificationConfigRepository;
+  private final EventPushNotificationConfigEntityMapper mapper;
+  private final DevicePropertyIdCache devicePropertyIdCache;
+  private final DeviceTypeMapper deviceTypeMapper;
+  private final Map<DevicePropertyId, Long> unknownDeviceProperties = new ConcurrentHashMap<>();
+  private volatile Map<RuleKey, List<Rule>> rules = Map.of();
+
+  public EventPushNotificationConfigIndex(JpaEventPushNotificationConfigRepository eventPushNotificationConfigRepository,
+                                          EventPushNotificationConfigEntityMapper mapper,
+                                          DevicePropertyIdCache devicePropertyIdCache,
+                                          DeviceTypeMapper deviceTypeMapper
+  ) {
+    this.eventPushNotificationConfigRepository = eventPushNotificationConfigRepository;
+    this.mapper = mapper;
+    this.devicePropertyIdCache = devicePropertyIdCache;
+    this.deviceTypeMapper = deviceTypeMapper;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(initialDelayString = "${homeautomation.spring-core.notification.push.config-index.refresh-interval:PT5M}",
+      fixedDelayString = "${homeautomation.spring-core.notification.push.config-index.refresh-interval:PT5M}")
+  @Transactional(readOnly = true)
+  public void refresh() {
+    Map<RuleKey, List<Rule>> loaded = new HashMap<>();
+    int count = 0;
+    for (EventPushNotificationConfigEntity entity : eventPushNotificationConfigRepository.findAll()) {
+      DeviceEntity device = entity.getDevice();
+      DevicePropertyEntity deviceProperty = entity.getDeviceProperty();
+      String propertyId = null;
+      if (deviceProperty != null) {
+        if (device != null && !device.getId().equals(deviceProperty.getDevice().getId())) {
+          log.warn("push notification config {} references a device property of another device, it never matches", entity.getId());
+          continue;
+        }
+        device = deviceProperty.getDevice();
+        propertyId = deviceProperty.getDevicePropertyId();
+      }
+      DeviceKey deviceKey = device == null ? null : new DeviceKey(device.getDeviceId(), device.getDeviceType());
+      Rule rule = new Rule(entity.isOnChangeOnly(), entity.getBooleanValueFilter(), mapper.map(entity));
+      loaded.computeIfAbsent(new RuleKey(deviceKey, propertyId, entity.getPropertyValueType()), key -> new ArrayList<>()).add(rule);
+      count++;
+    }
+    loaded.replaceAll((key, value) -> List.copyOf(value));
+    rules = Map.copyOf(loaded);
+    unknownDeviceProperties.clear();
+    log.debug("loaded {} push notification configs", count);
+  }
+
+  /**
+   * Returns the configs that match the event. Like the query based lookup nothing matches if the device property does not exist.
+   */
+  public Set<EventPushNotificationConfig> findAllByEvent(DevicePropertyEvent<?> event) {
+    if (!exists(event.getDevicePropertyId())) {
+      return Set.of();
+    }
+    DeviceId deviceId = event.getDevicePropertyId().deviceId();
+    DeviceKey deviceKey = new DeviceKey(deviceId.id(), deviceTypeMapper.map(deviceId.type()));
+    String propertyId = event.getDevicePropertyId().id();
+    String type = event.getValueType().getTypeName();
+    boolean isUpdateEvent = event instanceof DevicePropertyUpdatedEvent;
+    boolean isBooleanEvent = Boolean.class.equals(event.getValueType().getClazz());
+
+    Map<RuleKey, List<Rule>> current = rules;
+    Set<EventPushNotificationConfig> configs = new HashSet<>();
+    for (RuleKey key : List.of(new RuleKey(deviceKey, propertyId, type), new RuleKey(deviceKey, propertyId, null),
+        new RuleKey(deviceKey, null, type), new RuleKey(deviceKey, null, null),
+        new RuleKey(null, null, type), new RuleKey(null, null, null))) {
+      for (Rule rule : current.getOrDefault(key, List.of())) {
+        if (isUpdateEvent) {
+          if (!rule.onChangeOnly()) {
+            configs.add(rule.config());
+          }
+        } else if (rule.booleanValueFilter() == null || !isBooleanEvent || event.getNewValue() == null || rule.booleanValueFilter().equals(event.getNewValue())) {
+          configs.add(rule.config());
+        }
+      }
+    }
+    return configs;
+  }
+
+  private boolean exists(DevicePropertyId devicePropertyId) {
+    // read before the lookup, so a device property created in the meantime invalidates the remembered miss
+    long generation = devicePropertyIdCache.getGeneration();
+    Long unknownSince = unknownDeviceProperties.get(devicePropertyId);
+    if (unknownSince != null && unknownSince == generation) {
+      return false;
+    }
+    if (devicePropertyIdCache.find(devicePropertyId).isPresent()) {
+      unknownDeviceProperties.remove(devicePropertyId);
+      return true;
+    }
+    unknownDeviceProperties.put(devicePropertyId, generation);
+    return false;
+  }
+
+  public int size() {
+    return rules.values().stream().mapToInt(List::size).sum();
+  }
+
+  private record DeviceKey(String deviceId, String deviceType) {
+  }
+
+  private record RuleKey(DeviceKey device, String devicePropertyId, String propertyValueType) {
+  }
+
+  private record Rule(boolean onChangeOnly, Boolean booleanValueFilter, EventPushNotificationConfig config) {
+  }
+}
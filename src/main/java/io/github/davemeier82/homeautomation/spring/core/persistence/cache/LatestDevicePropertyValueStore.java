@@ -0,0 +1,155 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.cache;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyLatestValueId;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.LatestDevicePropertyValueEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDevicePropertyLatestValueRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaLatestDevicePropertyValueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.github.davemeier82.homeautomation.spring.core.persistence.TransactionCallbacks.afterCompletion;
+import static io.github.davemeier82.homeautomation.spring.core.persistence.TransactionCallbacks.afterRollback;
+
+/**
+ * Write-through store of the latest value per device property and value type.
+ * It is warmed from the {@code latest_device_property_value} view at startup. A device property that is not in the store yet
+ * is read from the database once, afterwards also the absence of a value is remembered.
+ */
+public class LatestDevicePropertyValueStore {
+
+  private static final Logger log = LoggerFactory.getLogger(LatestDevicePropertyValueStore.class);
+  private static final LatestValue NO_VALUE = new LatestValue(null, null);
+  private final Map<Key, LatestValue> values = new ConcurrentHashMap<>();
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final JpaLatestDevicePropertyValueRepository latestDevicePropertyValueRepository;
+  private final JpaDevicePropertyLatestValueRepository devicePropertyLatestValueRepository;
+  private final DevicePropertyIdCache devicePropertyIdCache;
+  private final DeviceTypeMapper deviceTypeMapper;
+
+  public LatestDevicePropertyValueStore(JpaLatestDevicePropertyValueRepository latestDevicePropertyValueRepository,
+                                        JpaDevicePropertyLatestValueRepository devicePropertyLatestValueRepository,
+                                        DevicePropertyIdCache devicePropertyIdCache,
+                                        DeviceTypeMapper deviceTypeMapper
+  ) {
+    this.latestDevicePropertyValueRepository = latestDevicePropertyValueRepository;
+    this.devicePropertyLatestValueRepository = devicePropertyLatestValueRepository;
+    this.devicePropertyIdCache = devicePropertyIdCache;
+    this.deviceTypeMapper = deviceTypeMapper;
+  }
+
+  private static LatestValue newer(LatestValue current, LatestValue candidate) {
+    if (current == NO_VALUE) {
+      return candidate;
+    }
+    if (candidate == NO_VALUE) {
+      return current;
+    }
+    return candidate.timestamp().isAfter(current.timestamp()) ? candidate : current;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void load() {
+    int count = 0;
+    for (LatestDevicePropertyValueEntity entity : latestDevicePropertyValueRepository.findAll()) {
+      if (entity.getTimestamp() != null) {
+        io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyId id = entity.getId();
+        DeviceId deviceId = new DeviceId(id.getDeviceId(), deviceTypeMapper.map(id.getDeviceType()));
+        Key key = new Key(new DevicePropertyId(deviceId, id.getDevicePropertyId()), id.getDevicePropertyValueType());
+        values.merge(key, new LatestValue(entity.getValue(), entity.getTimestamp()), LatestDevicePropertyValueStore::newer);
+        count++;
+      }
+    }
+    log.info("loaded {} latest device property values", count);
+  }
+
+  public Optional<LatestValue> find(DevicePropertyId devicePropertyId, String type) {
+    Key key = new Key(devicePropertyId, type);
+    LatestValue value = values.get(key);
+    if (value != null) {
+      hitCount.increment();
+    } else {
+      missCount.increment();
+      LatestValue loaded = devicePropertyIdCache.find(devicePropertyId)
+                                                .flatMap(id -> devicePropertyLatestValueRepository.findById(new DevicePropertyLatestValueId(id, type)))
+                                                .map(entity -> new LatestValue(entity.getValue(), entity.getTimestamp()))
+                                                .orElse(NO_VALUE);
+      value = values.merge(key, loaded, LatestDevicePropertyValueStore::newer);
+    }
+    return value == NO_VALUE ? Optional.empty() : Optional.of(value);
+  }
+
+  public void update(DevicePropertyId devicePropertyId, String type, String value, OffsetDateTime timestamp) {
+    values.merge(new Key(devicePropertyId, type), new LatestValue(value, timestamp), LatestDevicePropertyValueStore::newer);
+  }
+
+  /**
+   * Like {@link #update(DevicePropertyId, String, String, OffsetDateTime)} but drops the value again if the current transaction is rolled back.
+   */
+  public void updateInTransaction(DevicePropertyId devicePropertyId, String type, String value, OffsetDateTime timestamp) {
+    Key key = new Key(devicePropertyId, type);
+    LatestValue latestValue = new LatestValue(value, timestamp);
+    values.merge(key, latestValue, LatestDevicePropertyValueStore::newer);
+    afterRollback(() -> values.remove(key, latestValue));
+  }
+
+  public void invalidate(DevicePropertyId devicePropertyId) {
+    Runnable evict = () -> values.keySet().removeIf(key -> key.devicePropertyId().equals(devicePropertyId));
+    evict.run();
+    // a concurrent lookup can load the old value again before the change is committed
+    afterCompletion(evict);
+  }
+
+  public void invalidate(DeviceId deviceId) {
+    Runnable evict = () -> values.keySet().removeIf(key -> key.devicePropertyId().deviceId().equals(deviceId));
+    evict.run();
+    afterCompletion(evict);
+  }
+
+  public int size() {
+    return values.size();
+  }
+
+  public long getHitCount() {
+    return hitCount.sum();
+  }
+
+  public long getMissCount() {
+    return missCount.sum();
+  }
+
+  public record LatestValue(String value, OffsetDateTime timestamp) {
+  }
+
+  private record Key(DevicePropertyId devicePropertyId, String type) {
+  }
+}
@@ -23,6 +23,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.HashSet;
 import java.util.Objects;
@@ -30,6 +31,7 @@ import java.util.Set;
 import java.util.UUID;
 
 @Entity(name = "device")
+@BatchSize(size = 100)
 public class DeviceEntity {
 
   @Id
@@ -47,12 +49,14 @@ public class DeviceEntity {
       cascade = CascadeType.ALL,
       orphanRemoval = true
   )
+  @BatchSize(size = 100)
   private Set<DeviceParameterEntity> deviceParameters = new HashSet<>();
   @OneToMany(
       mappedBy = "device",
       cascade = CascadeType.ALL,
       orphanRemoval = true
   )
+  @BatchSize(size = 100)
   private Set<CustomIdentifierEntity> customIdentifiers = new HashSet<>();
 
   public DeviceEntity() {
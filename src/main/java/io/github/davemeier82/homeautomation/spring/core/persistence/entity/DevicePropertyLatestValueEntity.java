@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.entity;
+
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+@Entity(name = "device_property_latest_value")
+public class DevicePropertyLatestValueEntity {
+
+  @EmbeddedId
+  private DevicePropertyLatestValueId id;
+  private String value;
+  private OffsetDateTime timestamp;
+
+  public DevicePropertyLatestValueEntity() {
+  }
+
+  public DevicePropertyLatestValueEntity(DevicePropertyLatestValueId id, String value, OffsetDateTime timestamp) {
+    this.id = id;
+    this.value = value;
+    this.timestamp = timestamp;
+  }
+
+  public DevicePropertyLatestValueId getId() {
+    return id;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  public void setValue(String value) {
+    this.value = value;
+  }
+
+  public OffsetDateTime getTimestamp() {
+    return timestamp;
+  }
+
+  public void setTimestamp(OffsetDateTime timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    DevicePropertyLatestValueEntity that = (DevicePropertyLatestValueEntity) o;
+    return Objects.equals(id, that.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(id);
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2021-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+@Embeddable
+public class DevicePropertyLatestValueId implements Serializable {
+
+  @Column(name = "device_property_id")
+  private UUID devicePropertyId;
+  private String type;
+
+  public DevicePropertyLatestValueId() {
+  }
+
+  public DevicePropertyLatestValueId(UUID devicePropertyId, String type) {
+    this.devicePropertyId = devicePropertyId;
+    this.type = type;
+  }
+
+  public UUID getDevicePropertyId() {
+    return devicePropertyId;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    DevicePropertyLatestValueId that = (DevicePropertyLatestValueId) o;
+    return Objects.equals(devicePropertyId, that.devicePropertyId) && Objects.equals(type, that.type);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(devicePropertyId, type);
+  }
+}
@@ -18,33 +18,45 @@ package io.github.davemeier82.homeautomation.spring.core.persistence.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import org.hibernate.annotations.UuidGenerator;
 
 import java.time.OffsetDateTime;
 import java.util.Objects;
 import java.util.UUID;
 
 @Entity(name = "device_property_value")
+@Table(uniqueConstraints = @UniqueConstraint(name = "device_property_value_device_property_id_type_timestamp_uindex", columnNames = {"device_property_id", "type", "timestamp"}))
 public class DevicePropertyValueEntity {
 
   @Id
-  @GeneratedValue(strategy = GenerationType.UUID)
+  @UuidGenerator(style = UuidGenerator.Style.VERSION_7)
   private UUID id;
   @Column(name = "device_property_id")
   private UUID devicePropertyId;
   private String type;
   private String value;
+  @Column(name = "numeric_value")
+  private Double numericValue;
+  @Column(name = "boolean_value")
+  private Boolean booleanValue;
   private OffsetDateTime timestamp;
 
   public DevicePropertyValueEntity() {
   }
 
   public DevicePropertyValueEntity(UUID devicePropertyId, String type, String value, OffsetDateTime timestamp) {
+    this(devicePropertyId, type, value, null, null, timestamp);
+  }
+
+  public DevicePropertyValueEntity(UUID devicePropertyId, String type, String value, Double numericValue, Boolean booleanValue, OffsetDateTime timestamp) {
     this.devicePropertyId = devicePropertyId;
     this.type = type;
     this.value = value;
+    this.numericValue = numericValue;
+    this.booleanValue = booleanValue;
     this.timestamp = timestamp;
   }
 
@@ -68,6 +80,14 @@ public class DevicePropertyValueEntity {
     this.value = value;
   }
 
+  public Double getNumericValue() {
+    return numericValue;
+  }
+
+  public Boolean getBooleanValue() {
+    return booleanValue;
+  }
+
   public OffsetDateTime getTimestamp() {
     return timestamp;
   }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+@Entity(name = "device_property_value_rollup")
+public class DevicePropertyValueRollupEntity {
+
+  @EmbeddedId
+  private DevicePropertyValueRollupId id;
+  @Column(name = "min_value")
+  private double minValue;
+  @Column(name = "max_value")
+  private double maxValue;
+  @Column(name = "sum_value")
+  private double sumValue;
+  @Column(name = "sample_count")
+  private long sampleCount;
+  @Column(name = "last_value")
+  private Double lastValue;
+  @Column(name = "last_timestamp")
+  private OffsetDateTime lastTimestamp;
+
+  public DevicePropertyValueRollupEntity() {
+  }
+
+  public DevicePropertyValueRollupId getId() {
+    return id;
+  }
+
+  public double getMinValue() {
+    return minValue;
+  }
+
+  public double getMaxValue() {
+    return maxValue;
+  }
+
+  public double getSumValue() {
+    return sumValue;
+  }
+
+  public long getSampleCount() {
+    return sampleCount;
+  }
+
+  public Double getLastValue() {
+    return lastValue;
+  }
+
+  public OffsetDateTime getLastTimestamp() {
+    return lastTimestamp;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    DevicePropertyValueRollupEntity that = (DevicePropertyValueRollupEntity) o;
+    return Objects.equals(id, that.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(id);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+@Embeddable
+public class DevicePropertyValueRollupId implements Serializable {
+
+  @Column(name = "device_property_id")
+  private UUID devicePropertyId;
+  private String type;
+  private String resolution;
+  @Column(name = "bucket_start")
+  private OffsetDateTime bucketStart;
+
+  public DevicePropertyValueRollupId() {
+  }
+
+  public DevicePropertyValueRollupId(UUID devicePropertyId, String type, String resolution, OffsetDateTime bucketStart) {
+    this.devicePropertyId = devicePropertyId;
+    this.type = type;
+    this.resolution = resolution;
+    this.bucketStart = bucketStart;
+  }
+
+  public UUID getDevicePropertyId() {
+    return devicePropertyId;
+  }
+
+  public String getType() {
+    return type;
+  }
+
+  public String getResolution() {
+    return resolution;
+  }
+
+  public OffsetDateTime getBucketStart() {
+    return bucketStart;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    DevicePropertyValueRollupId that = (DevicePropertyValueRollupId) o;
+    return Objects.equals(devicePropertyId, that.devicePropertyId) && Objects.equals(type, that.type) && Objects.equals(resolution, that.resolution)
+        && Objects.equals(bucketStart, that.bucketStart);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(devicePropertyId, type, resolution, bucketStart);
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+
+@Entity(name = "device_property_value_rollup_watermark")
+public class DevicePropertyValueRollupWatermarkEntity {
+
+  @Id
+  private String resolution;
+  @Column(name = "rolled_up_until")
+  private OffsetDateTime rolledUpUntil;
+
+  public DevicePropertyValueRollupWatermarkEntity() {
+  }
+
+  public String getResolution() {
+    return resolution;
+  }
+
+  public OffsetDateTime getRolledUpUntil() {
+    return rolledUpUntil;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    DevicePropertyValueRollupWatermarkEntity that = (DevicePropertyValueRollupWatermarkEntity) o;
+    return Objects.equals(resolution, that.resolution);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(resolution);
+  }
+}
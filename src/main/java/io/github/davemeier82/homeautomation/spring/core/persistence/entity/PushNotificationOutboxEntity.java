@@ -0,0 +1,113 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+@Entity(name = "push_notification_outbox")
+public class PushNotificationOutboxEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.UUID)
+  private UUID id;
+  @Column(name = "provider_id")
+  private String providerId;
+  @Column(name = "service_id")
+  private String serviceId;
+  private String title;
+  private String message;
+  private int attempts;
+  @Column(name = "next_attempt_at")
+  private OffsetDateTime nextAttemptAt;
+  @Column(name = "created_at")
+  private OffsetDateTime createdAt;
+  @Column(name = "last_error")
+  private String lastError;
+
+  public PushNotificationOutboxEntity() {
+  }
+
+  public PushNotificationOutboxEntity(String providerId, String serviceId, String title, String message, OffsetDateTime createdAt, OffsetDateTime nextAttemptAt) {
+    this.providerId = providerId;
+    this.serviceId = serviceId;
+    this.title = title;
+    this.message = message;
+    this.createdAt = createdAt;
+    this.nextAttemptAt = nextAttemptAt;
+  }
+
+  public UUID getId() {
+    return id;
+  }
+
+  public String getProviderId() {
+    return providerId;
+  }
+
+  public String getServiceId() {
+    return serviceId;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public OffsetDateTime getNextAttemptAt() {
+    return nextAttemptAt;
+  }
+
+  public OffsetDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public String getLastError() {
+    return lastError;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    PushNotificationOutboxEntity that = (PushNotificationOutboxEntity) o;
+    return Objects.equals(id, that.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(id);
+  }
+}
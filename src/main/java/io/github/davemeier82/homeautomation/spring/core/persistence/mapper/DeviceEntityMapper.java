@@ -28,6 +28,7 @@ import io.github.davemeier82.homeautomation.spring.core.persistence.entity.Devic
 import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceParameterId;
 import org.springframework.data.util.Pair;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -63,7 +64,14 @@ public class DeviceEntityMapper {
     DeviceType deviceType = deviceTypeMapper.map(entity.getDeviceType());
     Map<String, String> deviceParameters = entity.getDeviceParameters().stream().collect(toMap(p -> p.getId().getName(), DeviceParameterEntity::getValue));
     Map<String, String> customIdentifier = entity.getCustomIdentifiers().stream().collect(toMap(p -> p.getId().getName(), CustomIdentifierEntity::getValue));
-    return deviceTypeToFactory.get(deviceType).createDevice(deviceType, entity.getDeviceId(), entity.getDisplayName(), deviceParameters, customIdentifier).orElseThrow();
+    return createDevice(deviceType, entity.getDeviceId(), entity.getDisplayName(), deviceParameters, customIdentifier);
+  }
+
+  /**
+   * Creates a new device instance with its {@code DeviceFactory}. The device gets its own copies of the parameters and custom identifiers.
+   */
+  public Device createDevice(DeviceType deviceType, String deviceId, String displayName, Map<String, String> parameters, Map<String, String> customIdentifiers) {
+    return deviceTypeToFactory.get(deviceType).createDevice(deviceType, deviceId, displayName, new HashMap<>(parameters), new HashMap<>(customIdentifiers)).orElseThrow();
   }
 
   public DeviceEntity map(Device device) {
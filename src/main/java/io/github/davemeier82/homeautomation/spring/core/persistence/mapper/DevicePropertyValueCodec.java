@@ -0,0 +1,154 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.mapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Converts the text of a stored device property value to its value class and to the typed columns. There is one codec per value class,
+ * it is created on first use and holds everything that does not depend on the value, e.g. the constants of an enum by name.
+ *
+ * @param <T> the value class
+ */
+public final class DevicePropertyValueCodec<T> {
+
+  private static final Logger log = LoggerFactory.getLogger(DevicePropertyValueCodec.class);
+  private static final ClassValue<DevicePropertyValueCodec<?>> CODECS = new ClassValue<>() {
+    @Override
+    protected DevicePropertyValueCodec<?> computeValue(Class<?> type) {
+      return create(type);
+    }
+  };
+  private final Class<T> valueClass;
+  private final Function<String, T> decoder;
+  private final boolean numeric;
+
+  private DevicePropertyValueCodec(Class<T> valueClass, Function<String, T> decoder) {
+    this.valueClass = valueClass;
+    this.decoder = decoder;
+    this.numeric = Number.class.isAssignableFrom(valueClass);
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> DevicePropertyValueCodec<T> of(Class<T> valueClass) {
+    return (DevicePropertyValueCodec<T>) CODECS.get(valueClass);
+  }
+
+  private static <T> DevicePropertyValueCodec<T> create(Class<T> clazz) {
+    return new DevicePropertyValueCodec<>(clazz, decoder(clazz));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static <T> Function<String, T> decoder(Class<T> clazz) {
+    if (clazz.equals(String.class)) {
+      return value -> (T) value;
+    } else if (clazz.equals(Long.class)) {
+      return value -> (T) Long.valueOf(value);
+    } else if (clazz.equals(Integer.class)) {
+      return value -> (T) Integer.valueOf(value);
+    } else if (clazz.equals(Float.class)) {
+      return value -> (T) Float.valueOf(value);
+    } else if (clazz.equals(Double.class)) {
+      return value -> (T) Double.valueOf(value);
+    } else if (clazz.equals(Short.class)) {
+      return value -> (T) Short.valueOf(value);
+    } else if (clazz.equals(Byte.class)) {
+      return value -> (T) Byte.valueOf(value);
+    } else if (clazz.equals(Boolean.class)) {
+      return value -> (T) Boolean.valueOf(value);
+    } else if (clazz.isEnum()) {
+      Map<String, T> constants = new HashMap<>();
+      for (Enum constant : ((Class<? extends Enum>) clazz).getEnumConstants()) {
+        constants.put(constant.name(), (T) constant);
+      }
+      return value -> {
+        T constant = constants.get(value);
+        if (constant == null) {
+          log.error("{} is not a constant of {}", value, clazz);
+        }
+        return constant;
+      };
+    }
+    Method valueOf = valueOf(clazz);
+    if (valueOf != null) {
+      return value -> {
+        try {
+          return (T) valueOf.invoke(null, value);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+          log.error("failed to convert {} to {}", value, clazz, e);
+          return null;
+        }
+      };
+    }
+    return value -> {
+      log.error("cast from {} to {} is not supported", value.getClass(), clazz);
+      return null;
+    };
+  }
+
+  // other value classes are read with their static valueOf(String) like before the codecs existed
+  private static Method valueOf(Class<?> clazz) {
+    try {
+      Method method = clazz.getMethod("valueOf", String.class);
+      return Modifier.isStatic(method.getModifiers()) && clazz.isAssignableFrom(method.getReturnType()) ? method : null;
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  public Class<T> getValueClass() {
+    return valueClass;
+  }
+
+  public T decode(String value) {
+    return value == null ? null : decoder.apply(value);
+  }
+
+  /**
+   * The value for the {@code numeric_value} column, {@code null} if the value class is not a number.
+   */
+  public Double numericValue(String value) {
+    if (value == null || !numeric) {
+      return null;
+    }
+    try {
+      return Double.valueOf(value);
+    } catch (NumberFormatException e) {
+      log.debug("{} is not a number", value);
+      return null;
+    }
+  }
+
+  /**
+   * The value for the {@code boolean_value} column, {@code null} if the value class is not {@link Boolean}.
+   */
+  public Boolean booleanValue(String value) {
+    if (value == null || valueClass != Boolean.class) {
+      return null;
+    }
+    return Boolean.valueOf(value);
+  }
+}
@@ -16,70 +16,77 @@
 
 package io.github.davemeier82.homeautomation.spring.core.persistence.mapper;
 
+import io.github.davemeier82.homeautomation.core.device.property.DefaultDevicePropertyValueTypeFactory;
 import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyValueType;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyValueTypeFactory;
 import io.github.davemeier82.homeautomation.core.event.DataWithTimestamp;
 import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyValueEntity;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.time.OffsetDateTime;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Objects.requireNonNull;
 
 public class DevicePropertyValueEntityMapper {
-  private static final Logger log = LoggerFactory.getLogger(DevicePropertyValueEntityMapper.class);
+  private final DevicePropertyValueTypeFactory devicePropertyValueTypeFactory;
+  private final Map<String, Optional<DevicePropertyValueCodec<?>>> codecs = new ConcurrentHashMap<>();
 
-  static <T> T cast(String value, Class<T> clazz) {
+  public DevicePropertyValueEntityMapper() {
+    this(new DefaultDevicePropertyValueTypeFactory());
+  }
 
-    if (value == null) {
-      return null;
-    }
-
-    if (value.getClass().equals(clazz)) {
-      return (T) value;
-    } else if (clazz.equals(Long.class)) {
-      return (T) Long.valueOf(value);
-    } else if (clazz.equals(Integer.class)) {
-      return (T) Integer.valueOf(value);
-    } else if (clazz.equals(Float.class)) {
-      return (T) Float.valueOf(value);
-    } else if (clazz.equals(Double.class)) {
-      return (T) Double.valueOf(value);
-    } else if (clazz.equals(Short.class)) {
-      return (T) Short.valueOf(value);
-    } else if (clazz.equals(Byte.class)) {
-      return (T) Byte.valueOf(value);
-    } else if (clazz.equals(Boolean.class)) {
-      return (T) Boolean.valueOf(value);
-    } else if (clazz.isEnum()) {
-      try {
-        Method valueOf = clazz.getMethod("valueOf", String.class);
-        Object e = valueOf.invoke(null, value);
-        return (T) e;
-      } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-        log.error("cast from {} to {} is not supported", value.getClass(), clazz);
-      }
-    }
-
-    log.error("cast from {} to {} is not supported", value.getClass(), clazz);
-    return null;
+  public DevicePropertyValueEntityMapper(DevicePropertyValueTypeFactory devicePropertyValueTypeFactory) {
+    this.devicePropertyValueTypeFactory = devicePropertyValueTypeFactory;
+  }
+
+  static <T> T cast(String value, Class<T> clazz) {
+    return DevicePropertyValueCodec.of(clazz).decode(value);
   }
 
   public static String valueToString(Object value) {
     return value == null ? null : value.toString();
   }
 
+  public static Double numericValue(Class<?> clazz, String value) {
+    return DevicePropertyValueCodec.of(clazz).numericValue(value);
+  }
+
+  public static Boolean booleanValue(Class<?> clazz, String value) {
+    return DevicePropertyValueCodec.of(clazz).booleanValue(value);
+  }
+
+  public Optional<Class<?>> valueClass(String devicePropertyValueType) {
+    return codec(devicePropertyValueType).<Class<?>>map(DevicePropertyValueCodec::getValueClass);
+  }
+
+  public Optional<DevicePropertyValueCodec<?>> codec(String devicePropertyValueType) {
+    return codecs.computeIfAbsent(devicePropertyValueType,
+        type -> devicePropertyValueTypeFactory.createDevicePropertyValueType(type).<DevicePropertyValueCodec<?>>map(valueType -> DevicePropertyValueCodec.of(valueType.getClazz())));
+  }
+
+  public Double numericValueOfType(String devicePropertyValueType, String value) {
+    return codec(devicePropertyValueType).map(codec -> codec.numericValue(value)).orElse(null);
+  }
+
+  public Boolean booleanValueOfType(String devicePropertyValueType, String value) {
+    return codec(devicePropertyValueType).map(codec -> codec.booleanValue(value)).orElse(null);
+  }
+
   public DevicePropertyValueEntity map(UUID devicePropertyId, DevicePropertyValueType devicePropertyValueType, Object value, OffsetDateTime time) {
-    return new DevicePropertyValueEntity(devicePropertyId, devicePropertyValueType.getTypeName(), valueToString(value),
-        time);
+    String valueAsString = valueToString(value);
+    return new DevicePropertyValueEntity(devicePropertyId, devicePropertyValueType.getTypeName(), valueAsString,
+        numericValue(devicePropertyValueType.getClazz(), valueAsString), booleanValue(devicePropertyValueType.getClazz(), valueAsString), time);
   }
 
   public <T> Optional<DataWithTimestamp<T>> map(DevicePropertyValueEntity entity, Class<T> clazz) {
-    T mapped = cast(entity.getValue(), clazz);
-    return Optional.of(new DataWithTimestamp<>(requireNonNull(entity.getTimestamp()), mapped));
+    return map(entity.getValue(), entity.getTimestamp(), clazz);
+  }
+
+  public <T> Optional<DataWithTimestamp<T>> map(String value, OffsetDateTime timestamp, Class<T> clazz) {
+    T mapped = cast(value, clazz);
+    return Optional.of(new DataWithTimestamp<>(requireNonNull(timestamp), mapped));
   }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.partitioning;
+
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Creates the upcoming partitions of the range partitioned device_property_value table (PostgreSQL only)
+ * and drops the partitions that only contain values older than the retention duration.
+ * Values in the default partition for which no partition was ever created are deleted once they are older than the retention duration.
+ * The table is converted by the migration in {@code classpath:db/partitioning/postgresql}.
+ * The timestamps are stored as local date-times of the JVM time zone, the partition bounds are calculated in the same zone.
+ */
+public class DevicePropertyValuePartitionManager {
+
+  private static final Logger log = LoggerFactory.getLogger(DevicePropertyValuePartitionManager.class);
+  private static final String TABLE_NAME = "device_property_value";
+  private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+  private static final String DEFAULT_BOUND = "DEFAULT";
+  private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  private final JdbcTemplate jdbcTemplate;
+  private final PartitionInterval interval;
+  private final int precreate;
+  private final Duration retention;
+  private final Clock clock;
+
+  public DevicePropertyValuePartitionManager(JdbcTemplate jdbcTemplate, PartitioningConfiguration configuration, Duration retention) {
+    this(jdbcTemplate, configuration, retention, Clock.systemUTC());
+  }
+
+  public DevicePropertyValuePartitionManager(JdbcTemplate jdbcTemplate, PartitioningConfiguration configuration, Duration retention, Clock clock) {
+    this.jdbcTemplate = jdbcTemplate;
+    interval = configuration.interval();
+    precreate = configuration.precreate();
+    this.retention = retention;
+    this.clock = clock;
+  }
+
+  private static String quote(String identifier) {
+    return '"' + identifier.replace("\"", "\"\"") + '"';
+  }
+
+  private static LocalDateTime parseUpperBound(String bound) {
+    if (bound == null) {
+      return null;
+    }
+    Matcher matcher = UPPER_BOUND.matcher(bound);
+    return matcher.find() ? LocalDateTime.parse(matcher.group(1).replace(' ', 'T')) : null;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "0 0 2 * * ?")
+  @SchedulerLock(name = "DevicePropertyValuePartitionManager", lockAtMostFor = "PT10M")
+  public void maintainPartitions() {
+    if (!isPartitioned()) {
+      log.warn("{} is not partitioned, add classpath:db/partitioning/postgresql to spring.flyway.locations", TABLE_NAME);
+      return;
+    }
+    List<Partition> partitions = findPartitions();
+    createPartitions(partitions);
+    dropExpiredPartitions(partitions);
+    deleteExpiredDefaultValues(partitions);
+  }
+
+  private void createPartitions(List<Partition> partitions) {
+    LocalDateTime now = now();
+    LocalDateTime until = interval.start(now);
+    for (int i = 0; i <= precreate; i++) {
+      until = interval.next(until);
+    }
+    LocalDateTime from = partitions.stream()
+                                   .map(Partition::upperBound)
+                                   .filter(Objects::nonNull)
+                                   .max(LocalDateTime::compareTo)
+                                   .filter(upperBound -> upperBound.isAfter(interval.start(now)))
+                                   .orElse(interval.start(now));
+    Set<String> existing = partitions.stream().map(Partition::name).collect(toSet());
+    String defaultPartition = partitions.stream().filter(Partition::isDefault).map(Partition::name).findFirst().orElse(null);
+    while (from.isBefore(until)) {
+      LocalDateTime to = interval.next(interval.start(from));
+      String partitionName = TABLE_NAME + "_p" + interval.suffix(from);
+      if (!existing.contains(partitionName)) {
+        createPartition(partitionName, from, to, defaultPartition);
+      }
+      from = to;
+    }
+  }
+
+  // values of the range that were written to the default partition are moved in the same statement, attaching the partition would fail otherwise
+  private void createPartition(String partitionName, LocalDateTime from, LocalDateTime to, String defaultPartition) {
+    String lowerBound = BOUND_FORMAT.format(from);
+    String upperBound = BOUND_FORMAT.format(to);
+    String moveDefaultValues = defaultPartition == null ? "" : """
+        with moved as (delete from %s where timestamp >= '%s' and timestamp < '%s' returning *)
+        insert into %s select * from moved;
+        """.formatted(quote(defaultPartition), lowerBound, upperBound, quote(partitionName));
+    try {
+      jdbcTemplate.execute("""
+          do
+          $$
+              begin
+                  create table %s (like %s including defaults);
+                  %s
+                  alter table %s attach partition %s for values from ('%s') to ('%s');
+              end
+          $$
+          """.formatted(quote(partitionName), TABLE_NAME, moveDefaultValues, TABLE_NAME, quote(partitionName), lowerBound, upperBound));
+      log.debug("partition {} is ready", partitionName);
+    } catch (DataAccessException e) {
+      throw new IllegalStateException("failed to create partition " + partitionName + " of " + TABLE_NAME, e);
+    }
+  }
+
+  // a partition can only be detached concurrently if the table has no default partition
+  private void dropExpiredPartitions(List<Partition> partitions) {
+    LocalDateTime cutoff = now().minus(retention);
+    String detach = partitions.stream().anyMatch(Partition::isDefault) ? "" : " concurrently";
+    for (Partition partition : partitions) {
+      if (partition.upperBound() != null && !partition.upperBound().isAfter(cutoff)) {
+        try {
+          jdbcTemplate.execute("alter table " + TABLE_NAME + " detach partition " + quote(partition.name()) + detach);
+          jdbcTemplate.execute("drop table " + quote(partition.name()));
+          log.info("dropped partition {} with values before {}", partition.name(), partition.upperBound());
+        } catch (DataAccessException e) {
+          log.warn("failed to drop partition {}", partition.name(), e);
+        }
+      }
+    }
+  }
+
+  // values of past ranges stay in the default partition, a partition is only created for the current and upcoming ranges
+  private void deleteExpiredDefaultValues(List<Partition> partitions) {
+    String defaultPartition = partitions.stream().filter(Partition::isDefault).map(Partition::name).findFirst().orElse(null);
+    if (defaultPartition == null) {
+      return;
+    }
+    String cutoff = BOUND_FORMAT.format(now().minus(retention));
+    try {
+      int deleted = jdbcTemplate.update("delete from %s where timestamp < '%s'".formatted(quote(defaultPartition), cutoff));
+      if (deleted > 0) {
+        log.info("deleted {} values before {} from the default partition {}", deleted, cutoff, defaultPartition);
+      }
+    } catch (DataAccessException e) {
+      log.warn("failed to delete expired values from the default partition {}", defaultPartition, e);
+    }
+  }
+
+  private LocalDateTime now() {
+    return LocalDateTime.ofInstant(clock.instant(), ZoneId.systemDefault());
+  }
+
+  private boolean isPartitioned() {
+    return Boolean.TRUE.equals(jdbcTemplate.queryForObject("""
+        select exists(select 1
+                      from pg_partitioned_table pt
+                               join pg_class c on c.oid = pt.partrelid
+                      where c.relname = ?
+                        and pg_table_is_visible(c.oid))
+        """, Boolean.class, TABLE_NAME));
+  }
+
+  private List<Partition> findPartitions() {
+    return jdbcTemplate.query("""
+        select c.relname, pg_get_expr(c.relpartbound, c.oid)
+        from pg_inherits i
+                 join pg_class c on c.oid = i.inhrelid
+                 join pg_class p on p.oid = i.inhparent
+        where p.relname = ?
+          and pg_table_is_visible(p.oid)
+        """, (rs, rowNum) -> new Partition(rs.getString(1), parseUpperBound(rs.getString(2)), DEFAULT_BOUND.equals(rs.getString(2))), TABLE_NAME);
+  }
+
+  private record Partition(String name, LocalDateTime upperBound, boolean isDefault) {
+  }
+}
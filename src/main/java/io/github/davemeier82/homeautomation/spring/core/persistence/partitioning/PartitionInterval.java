@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.partitioning;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Range covered by one partition of the device_property_value table.
+ */
+public enum PartitionInterval {
+  DAY("yyyyMMdd") {
+    @Override
+    public LocalDateTime start(LocalDateTime timestamp) {
+      return timestamp.truncatedTo(ChronoUnit.DAYS);
+    }
+
+    @Override
+    public LocalDateTime next(LocalDateTime start) {
+      return start.plusDays(1);
+    }
+  },
+  MONTH("yyyyMM") {
+    @Override
+    public LocalDateTime start(LocalDateTime timestamp) {
+      return timestamp.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+    }
+
+    @Override
+    public LocalDateTime next(LocalDateTime start) {
+      return start.plusMonths(1);
+    }
+  };
+
+  private final DateTimeFormatter suffixFormat;
+
+  PartitionInterval(String suffixPattern) {
+    suffixFormat = DateTimeFormatter.ofPattern(suffixPattern);
+  }
+
+  public abstract LocalDateTime start(LocalDateTime timestamp);
+
+  public abstract LocalDateTime next(LocalDateTime start);
+
+  public String suffix(LocalDateTime timestamp) {
+    return suffixFormat.format(timestamp);
+  }
+}
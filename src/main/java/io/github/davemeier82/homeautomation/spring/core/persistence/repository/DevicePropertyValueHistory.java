@@ -0,0 +1,40 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyValueType;
+import io.github.davemeier82.homeautomation.core.event.DataWithTimestamp;
+
+import java.time.OffsetDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Reads the stored history of the device property values.
+ */
+public interface DevicePropertyValueHistory {
+
+  /**
+   * Streams the values of the time range ordered by timestamp, {@code from} is included and {@code to} is excluded. The values are loaded page by page
+   * while the stream is consumed.
+   */
+  <T> Stream<DataWithTimestamp<T>> findValues(DevicePropertyId devicePropertyId,
+                                              DevicePropertyValueType devicePropertyValueType,
+                                              OffsetDateTime from,
+                                              OffsetDateTime to,
+                                              Class<T> clazz);
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * How the primary keys of new {@code device_property_value} rows are generated.
+ */
+public enum DevicePropertyValueIdStrategy {
+
+  /**
+   * Random (version 4) UUIDs, every insert lands on a random page of the primary key index.
+   */
+  RANDOM,
+  /**
+   * Time-ordered (version 7) UUIDs, inserts are appended at the end of the primary key index.
+   */
+  TIME_ORDERED;
+
+  public Supplier<UUID> generator() {
+    return switch (this) {
+      case RANDOM -> UUID::randomUUID;
+      case TIME_ORDERED -> new TimeOrderedUuidGenerator();
+    };
+  }
+}
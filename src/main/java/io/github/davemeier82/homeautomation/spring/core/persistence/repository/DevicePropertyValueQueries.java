@@ -0,0 +1,50 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * The queries of the {@link SpringDataDevicePropertyValueRepository} on the {@code device_property_value} table. They are run with Spring Data JPA
+ * or with plain JDBC, selected with {@code homeautomation.spring-core.device-property-value-repository.implementation}.
+ */
+public interface DevicePropertyValueQueries {
+
+  Optional<OffsetDateTime> findLastTimestampByValue(UUID devicePropertyId, String type, String value);
+
+  Optional<OffsetDateTime> findLastTimestampByNumericValue(UUID devicePropertyId, String type, double numericValue);
+
+  Optional<OffsetDateTime> findLastTimestampByBooleanValue(UUID devicePropertyId, String type, boolean booleanValue);
+
+  /**
+   * Returns at most {@code limit} values with a timestamp from {@code from} (included) to {@code to} (excluded) ordered by timestamp.
+   */
+  List<TimestampedValueRow> findFirstPage(UUID devicePropertyId, String type, OffsetDateTime from, OffsetDateTime to, int limit);
+
+  /**
+   * Returns at most {@code limit} values with a timestamp after {@code after} and before {@code to} ordered by timestamp.
+   */
+  List<TimestampedValueRow> findNextPage(UUID devicePropertyId, String type, OffsetDateTime after, OffsetDateTime to, int limit);
+
+  /**
+   * Deletes at most {@code limit} values with a timestamp before the given one and returns the number of deleted values.
+   */
+  int deleteChunkBefore(OffsetDateTime timestamp, int limit);
+}
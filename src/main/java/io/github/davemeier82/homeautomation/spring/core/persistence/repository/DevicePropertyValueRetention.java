@@ -0,0 +1,31 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Deletes old device property values for the housekeeping.
+ */
+public interface DevicePropertyValueRetention {
+
+  /**
+   * Deletes at most {@code limit} values with a timestamp before the given one and returns the number of deleted values.
+   */
+  int deleteBefore(OffsetDateTime timestamp, int limit);
+}
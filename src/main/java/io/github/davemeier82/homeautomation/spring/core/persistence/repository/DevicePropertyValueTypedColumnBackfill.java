@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DevicePropertyValueEntityMapper;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fills the numeric_value and boolean_value columns of device property values that were written before these columns existed.
+ * The rows of each value type are walked in id order, so every run makes progress even if some values can not be converted.
+ * The completion is only kept in memory, the job is meant to be enabled once after an upgrade because every run scans the whole table.
+ */
+public class DevicePropertyValueTypedColumnBackfill {
+
+  private static final Logger log = LoggerFactory.getLogger(DevicePropertyValueTypedColumnBackfill.class);
+  private final JdbcTemplate jdbcTemplate;
+  private final DevicePropertyValueEntityMapper devicePropertyValueEntityMapper;
+  private final int chunkSize;
+  private volatile boolean completed;
+
+  public DevicePropertyValueTypedColumnBackfill(JdbcTemplate jdbcTemplate, DevicePropertyValueEntityMapper devicePropertyValueEntityMapper, int chunkSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.devicePropertyValueEntityMapper = devicePropertyValueEntityMapper;
+    this.chunkSize = chunkSize;
+  }
+
+  @Scheduled(initialDelayString = "PT1M", fixedDelayString = "PT6H")
+  @SchedulerLock(name = "DevicePropertyValueTypedColumnBackfill", lockAtMostFor = "PT60M")
+  public void backfill() {
+    if (completed) {
+      return;
+    }
+    long updated = 0;
+    for (String type : jdbcTemplate.queryForList("select distinct type from device_property_latest_value", String.class)) {
+      Class<?> clazz = devicePropertyValueEntityMapper.valueClass(type).orElse(Object.class);
+      if (Number.class.isAssignableFrom(clazz) || Boolean.class.equals(clazz)) {
+        updated += backfill(type, clazz);
+      }
+    }
+    completed = true;
+    log.info("backfilled typed columns of {} device property values", updated);
+  }
+
+  public boolean isCompleted() {
+    return completed;
+  }
+
+  private long backfill(String type, Class<?> clazz) {
+    long updated = 0;
+    UUID lastId = new UUID(0, 0);
+    List<Row> rows;
+    do {
+      rows = jdbcTemplate.query("""
+              select id, "value"
+              from device_property_value
+              where type = ?
+                and "value" is not null
+                and numeric_value is null
+                and boolean_value is null
+                and id > ?
+              order by id
+              limit ?
+              """,
+          (rs, rowNum) -> new Row(rs.getObject(1, UUID.class), rs.getString(2)), type, lastId, chunkSize);
+      List<Object[]> updates = new ArrayList<>(rows.size());
+      for (Row row : rows) {
+        Double numericValue = DevicePropertyValueEntityMapper.numericValue(clazz, row.value());
+        Boolean booleanValue = DevicePropertyValueEntityMapper.booleanValue(clazz, row.value());
+        if (numericValue != null || booleanValue != null) {
+          updates.add(new Object[]{numericValue, booleanValue, row.id()});
+        }
+        lastId = row.id();
+      }
+      if (!updates.isEmpty()) {
+        jdbcTemplate.batchUpdate("update device_property_value set numeric_value = ?, boolean_value = ? where id = ?", updates);
+        updated += updates.size();
+      }
+    } while (rows.size() >= chunkSize);
+    return updated;
+  }
+
+  private record Row(UUID id, String value) {
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@link DevicePropertyValueQueries} with plain JDBC, no entity is created and nothing is kept in a persistence context. Every query runs in the
+ * transaction of the caller or on its own if there is none.
+ */
+public class JdbcDevicePropertyValueQueries implements DevicePropertyValueQueries {
+
+  private static final String FIND_LAST_TIMESTAMP_BY_BOOLEAN_VALUE = """
+      select timestamp from device_property_value where device_property_id = :devicePropertyId and type = :type and boolean_value = :booleanValue
+      order by timestamp desc limit 1
+      """;
+  private static final String FIND_LAST_TIMESTAMP_BY_NUMERIC_VALUE = """
+      select timestamp from device_property_value where device_property_id = :devicePropertyId and type = :type and numeric_value = :numericValue
+      order by timestamp desc limit 1
+      """;
+  private static final String FIND_LAST_TIMESTAMP_BY_VALUE = """
+      select timestamp from device_property_value where device_property_id = :devicePropertyId and type = :type and "value" = :value
+      order by timestamp desc limit 1
+      """;
+  private static final String FIND_FIRST_PAGE = """
+      select "value", timestamp from device_property_value
+      where device_property_id = :devicePropertyId and type = :type and timestamp >= :from and timestamp < :to
+      order by timestamp limit :limit
+      """;
+  private static final String FIND_NEXT_PAGE = """
+      select "value", timestamp from device_property_value
+      where device_property_id = :devicePropertyId and type = :type and timestamp > :from and timestamp < :to
+      order by timestamp limit :limit
+      """;
+  private static final String DELETE_CHUNK = """
+      delete from device_property_value where id in (select id from device_property_value where timestamp < :timestamp limit :limit)
+      """;
+  private static final RowMapper<OffsetDateTime> TIMESTAMP = (rs, rowNum) -> toOffsetDateTime(rs.getTimestamp("timestamp"));
+  private static final RowMapper<TimestampedValueRow> ROW = (rs, rowNum) -> new TimestampedValueRow(rs.getString("value"), toOffsetDateTime(rs.getTimestamp("timestamp")));
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+
+  public JdbcDevicePropertyValueQueries(NamedParameterJdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  // the timestamp column has no time zone, it is read in the zone of the JVM like Hibernate does
+  private static OffsetDateTime toOffsetDateTime(Timestamp timestamp) {
+    return OffsetDateTime.ofInstant(timestamp.toInstant(), ZoneId.systemDefault());
+  }
+
+  private static MapSqlParameterSource parameters(UUID devicePropertyId, String type) {
+    return new MapSqlParameterSource().addValue("devicePropertyId", devicePropertyId).addValue("type", type);
+  }
+
+  @Override
+  public Optional<OffsetDateTime> findLastTimestampByValue(UUID devicePropertyId, String type, String value) {
+    return queryForTimestamp(FIND_LAST_TIMESTAMP_BY_VALUE, parameters(devicePropertyId, type).addValue("value", value));
+  }
+
+  @Override
+  public Optional<OffsetDateTime> findLastTimestampByNumericValue(UUID devicePropertyId, String type, double numericValue) {
+    return queryForTimestamp(FIND_LAST_TIMESTAMP_BY_NUMERIC_VALUE, parameters(devicePropertyId, type).addValue("numericValue", numericValue));
+  }
+
+  @Override
+  public Optional<OffsetDateTime> findLastTimestampByBooleanValue(UUID devicePropertyId, String type, boolean booleanValue) {
+    return queryForTimestamp(FIND_LAST_TIMESTAMP_BY_BOOLEAN_VALUE, parameters(devicePropertyId, type).addValue("booleanValue", booleanValue));
+  }
+
+  @Override
+  public List<TimestampedValueRow> findFirstPage(UUID devicePropertyId, String type, OffsetDateTime from, OffsetDateTime to, int limit) {
+    return findPage(FIND_FIRST_PAGE, devicePropertyId, type, from, to, limit);
+  }
+
+  @Override
+  public List<TimestampedValueRow> findNextPage(UUID devicePropertyId, String type, OffsetDateTime after, OffsetDateTime to, int limit) {
+    return findPage(FIND_NEXT_PAGE, devicePropertyId, type, after, to, limit);
+  }
+
+  @Override
+  public int deleteChunkBefore(OffsetDateTime timestamp, int limit) {
+    return jdbcTemplate.update(DELETE_CHUNK, new MapSqlParameterSource().addValue("timestamp", Timestamp.from(timestamp.toInstant())).addValue("limit", limit));
+  }
+
+  private List<TimestampedValueRow> findPage(String sql, UUID devicePropertyId, String type, OffsetDateTime from, OffsetDateTime to, int limit) {
+    return jdbcTemplate.query(sql, parameters(devicePropertyId, type).addValue("from", Timestamp.from(from.toInstant()))
+                                                                     .addValue("to", Timestamp.from(to.toInstant()))
+                                                                     .addValue("limit", limit), ROW);
+  }
+
+  private Optional<OffsetDateTime> queryForTimestamp(String sql, MapSqlParameterSource parameters) {
+    return jdbcTemplate.query(sql, parameters, TIMESTAMP).stream().findFirst();
+  }
+}
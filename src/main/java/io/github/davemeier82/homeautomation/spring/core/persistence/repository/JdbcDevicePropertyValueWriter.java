@@ -0,0 +1,168 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.event.EventPipelineObserver;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DevicePropertyValueEntityMapper;
+import io.github.davemeier82.homeautomation.spring.core.persistence.writebehind.PendingDevicePropertyValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static io.github.davemeier82.homeautomation.spring.core.persistence.TransactionCallbacks.afterCommit;
+
+@Transactional
+public class JdbcDevicePropertyValueWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(JdbcDevicePropertyValueWriter.class);
+  private static final String FIND_EXISTING_IDS = "select id from device_property_value where id in (:ids)";
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final SqlDialect sqlDialect;
+  private final DevicePropertyIdCache devicePropertyIdCache;
+  private final DevicePropertyValueEntityMapper devicePropertyValueEntityMapper;
+  private final EventPipelineObserver eventPipelineObserver;
+  private final Supplier<UUID> idGenerator;
+
+  public JdbcDevicePropertyValueWriter(NamedParameterJdbcTemplate jdbcTemplate,
+                                       SqlDialect sqlDialect,
+                                       DevicePropertyIdCache devicePropertyIdCache,
+                                       DevicePropertyValueEntityMapper devicePropertyValueEntityMapper
+  ) {
+    this(jdbcTemplate, sqlDialect, devicePropertyIdCache, devicePropertyValueEntityMapper, EventPipelineObserver.NOOP);
+  }
+
+  public JdbcDevicePropertyValueWriter(NamedParameterJdbcTemplate jdbcTemplate,
+                                       SqlDialect sqlDialect,
+                                       DevicePropertyIdCache devicePropertyIdCache,
+                                       DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                       EventPipelineObserver eventPipelineObserver
+  ) {
+    this(jdbcTemplate, sqlDialect, devicePropertyIdCache, devicePropertyValueEntityMapper, eventPipelineObserver, UUID::randomUUID);
+  }
+
+  public JdbcDevicePropertyValueWriter(NamedParameterJdbcTemplate jdbcTemplate,
+                                       SqlDialect sqlDialect,
+                                       DevicePropertyIdCache devicePropertyIdCache,
+                                       DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                       EventPipelineObserver eventPipelineObserver,
+                                       Supplier<UUID> idGenerator
+  ) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.sqlDialect = sqlDialect;
+    this.devicePropertyIdCache = devicePropertyIdCache;
+    this.devicePropertyValueEntityMapper = devicePropertyValueEntityMapper;
+    this.eventPipelineObserver = eventPipelineObserver;
+    this.idGenerator = idGenerator;
+  }
+
+  public boolean insert(PendingDevicePropertyValue value) {
+    return insertAll(List.of(value)) > 0;
+  }
+
+  public int insertAll(List<PendingDevicePropertyValue> values) {
+    Map<DevicePropertyId, Optional<UUID>> resolvedIds = new HashMap<>();
+    List<PendingRow> pendingRows = new ArrayList<>(values.size());
+    List<UUID> ids = new ArrayList<>(values.size());
+    List<SqlParameterSource> rows = new ArrayList<>(values.size());
+    for (PendingDevicePropertyValue value : values) {
+      Optional<UUID> id = resolvedIds.computeIfAbsent(value.devicePropertyId(), devicePropertyIdCache::find);
+      if (id.isPresent()) {
+        PendingRow row = new PendingRow(id.get(), value);
+        UUID rowId = idGenerator.get();
+        pendingRows.add(row);
+        ids.add(rowId);
+        rows.add(row.parameters()
+                    .addValue("id", rowId)
+                    .addValue("numericValue", devicePropertyValueEntityMapper.numericValueOfType(value.type(), value.value()), Types.DOUBLE)
+                    .addValue("booleanValue", devicePropertyValueEntityMapper.booleanValueOfType(value.type(), value.value()), Types.BOOLEAN));
+      } else {
+        log.warn("device property {} does not exist, dropping value {} at {}", value.devicePropertyId(), value.value(), value.timestamp());
+      }
+    }
+    if (rows.isEmpty()) {
+      return 0;
+    }
+    int[] counts = jdbcTemplate.batchUpdate(sqlDialect.insertDevicePropertyValueIfAbsent(), rows.toArray(SqlParameterSource[]::new));
+    Set<UUID> insertedWithoutCount = findInsertedWithoutCount(counts, ids);
+    List<OffsetDateTime> insertedTimestamps = new ArrayList<>(counts.length);
+    Map<LatestKey, PendingRow> latestRows = new HashMap<>();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] > 0 || (counts[i] == Statement.SUCCESS_NO_INFO && insertedWithoutCount.contains(ids.get(i)))) {
+        PendingRow row = pendingRows.get(i);
+        insertedTimestamps.add(row.value().timestamp());
+        latestRows.merge(new LatestKey(row.devicePropertyId(), row.value().type()), row,
+            (current, candidate) -> candidate.value().timestamp().isAfter(current.value().timestamp()) ? candidate : current);
+      }
+    }
+    afterCommit(() -> insertedTimestamps.forEach(eventPipelineObserver::valuePersisted));
+    if (!latestRows.isEmpty()) {
+      SqlParameterSource[] latest = latestRows.values().stream().map(PendingRow::parameters).toArray(SqlParameterSource[]::new);
+      for (String statement : sqlDialect.upsertLatestDevicePropertyValue()) {
+        jdbcTemplate.batchUpdate(statement, latest);
+      }
+    }
+    log.debug("inserted {} of {} device property values", insertedTimestamps.size(), values.size());
+    return insertedTimestamps.size();
+  }
+
+  // drivers that rewrite batches (e.g. pgjdbc with reWriteBatchedInserts) report SUCCESS_NO_INFO instead of the row count,
+  // every row has a new id, so a row that was skipped as a duplicate is not found by its id
+  private Set<UUID> findInsertedWithoutCount(int[] counts, List<UUID> ids) {
+    List<UUID> unknown = new ArrayList<>();
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == Statement.SUCCESS_NO_INFO) {
+        unknown.add(ids.get(i));
+      }
+    }
+    if (unknown.isEmpty()) {
+      return Set.of();
+    }
+    return new HashSet<>(jdbcTemplate.queryForList(FIND_EXISTING_IDS, new MapSqlParameterSource("ids", unknown), UUID.class));
+  }
+
+  private record LatestKey(UUID devicePropertyId, String type) {
+  }
+
+  private record PendingRow(UUID devicePropertyId, PendingDevicePropertyValue value) {
+
+    MapSqlParameterSource parameters() {
+      return new MapSqlParameterSource().addValue("devicePropertyId", devicePropertyId)
+                                        .addValue("type", value.type())
+                                        .addValue("value", value.value())
+                                        .addValue("timestamp", Timestamp.from(value.timestamp().toInstant()));
+    }
+  }
+}
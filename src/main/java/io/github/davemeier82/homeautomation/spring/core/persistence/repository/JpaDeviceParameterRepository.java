@@ -18,11 +18,20 @@ package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
 
 import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceParameterEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface JpaDeviceParameterRepository extends JpaRepository<DeviceParameterEntity, UUID> {
 
+  // ordered by device, so consecutive rows of the same device can share its key
+  @Query("""
+      select new io.github.davemeier82.homeautomation.spring.core.persistence.repository.DeviceAttributeRow(d.deviceId, d.deviceType, a.id.name, a.value)
+      from device_parameter a join a.device d
+      order by d.deviceType, d.deviceId
+      """)
+  List<DeviceAttributeRow> findAllRows();
 }
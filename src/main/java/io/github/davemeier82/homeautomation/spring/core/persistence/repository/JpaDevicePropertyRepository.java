@@ -19,6 +19,7 @@ package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
 import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceEntity;
 import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -39,4 +40,10 @@ public interface JpaDevicePropertyRepository extends JpaRepository<DevicePropert
 
   void deleteByDevicePropertyIdAndDevice(String devicePropertyId, DeviceEntity deviceEntity);
 
+  @Query("""
+      select new io.github.davemeier82.homeautomation.spring.core.persistence.repository.DevicePropertyIdRow(p.id, p.devicePropertyId, d.deviceId, d.deviceType)
+      from device_property p join p.device d
+      """)
+  List<DevicePropertyIdRow> findAllIdRows();
+
 }
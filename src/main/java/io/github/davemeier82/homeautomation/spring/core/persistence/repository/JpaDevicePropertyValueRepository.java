@@ -17,10 +17,17 @@
 package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
 
 import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyValueEntity;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -29,10 +36,30 @@ public interface JpaDevicePropertyValueRepository extends JpaRepository<DevicePr
 
   Optional<DevicePropertyValueEntity> findTopByDevicePropertyIdAndTypeOrderByTimestampDesc(UUID devicePropertyId, String type);
 
-  void deleteAllByTimestampBefore(OffsetDateTime timestamp);
+  @Modifying
+  @Query(value = "delete from device_property_value where id in (select id from device_property_value where timestamp < :timestamp limit :limit)", nativeQuery = true)
+  int deleteChunkByTimestampBefore(@Param("timestamp") OffsetDateTime timestamp, @Param("limit") int limit);
 
   Optional<DevicePropertyValueEntity> findTopByDevicePropertyIdAndTypeAndValueOrderByTimestampDesc(UUID devicePropertyId, String type, String value);
 
+  Optional<DevicePropertyValueEntity> findTopByDevicePropertyIdAndTypeAndNumericValueOrderByTimestampDesc(UUID devicePropertyId, String type, Double numericValue);
+
+  Optional<DevicePropertyValueEntity> findTopByDevicePropertyIdAndTypeAndBooleanValueOrderByTimestampDesc(UUID devicePropertyId, String type, Boolean booleanValue);
+
+  @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+  List<TimestampedValueRow> findByDevicePropertyIdAndTypeAndTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(UUID devicePropertyId,
+                                                                                                                             String type,
+                                                                                                                             OffsetDateTime from,
+                                                                                                                             OffsetDateTime to,
+                                                                                                                             Limit limit);
+
+  @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+  List<TimestampedValueRow> findByDevicePropertyIdAndTypeAndTimestampGreaterThanAndTimestampLessThanOrderByTimestampAsc(UUID devicePropertyId,
+                                                                                                                        String type,
+                                                                                                                        OffsetDateTime after,
+                                                                                                                        OffsetDateTime to,
+                                                                                                                        Limit limit);
+
   Optional<DevicePropertyValueEntity> findByDevicePropertyIdAndTypeAndTimestamp(UUID devicePropertyId, String type, OffsetDateTime timestamp);
 
 }
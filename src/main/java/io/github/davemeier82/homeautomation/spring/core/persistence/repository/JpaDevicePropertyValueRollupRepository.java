@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyValueRollupEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyValueRollupId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface JpaDevicePropertyValueRollupRepository extends JpaRepository<DevicePropertyValueRollupEntity, DevicePropertyValueRollupId> {
+
+  @Query("""
+      select r from device_property_value_rollup r
+      where r.id.devicePropertyId = :devicePropertyId
+        and r.id.type = :type
+        and r.id.resolution = :resolution
+        and r.id.bucketStart >= :from
+        and r.id.bucketStart < :to
+      order by r.id.bucketStart
+      """)
+  List<DevicePropertyValueRollupEntity> findBuckets(@Param("devicePropertyId") UUID devicePropertyId,
+                                                    @Param("type") String type,
+                                                    @Param("resolution") String resolution,
+                                                    @Param("from") OffsetDateTime from,
+                                                    @Param("to") OffsetDateTime to
+  );
+
+  @Query("select w.rolledUpUntil from device_property_value_rollup_watermark w where w.resolution = :resolution")
+  Optional<OffsetDateTime> findWatermark(@Param("resolution") String resolution);
+
+  @Query("""
+      select new io.github.davemeier82.homeautomation.spring.core.persistence.repository.NumericValueRow(v.numericValue, v.timestamp)
+      from device_property_value v
+      where v.devicePropertyId = :devicePropertyId
+        and v.type = :type
+        and v.numericValue is not null
+        and v.timestamp >= :from
+        and v.timestamp < :to
+      order by v.timestamp
+      """)
+  List<NumericValueRow> findNumericValues(@Param("devicePropertyId") UUID devicePropertyId,
+                                          @Param("type") String type,
+                                          @Param("from") OffsetDateTime from,
+                                          @Param("to") OffsetDateTime to
+  );
+}
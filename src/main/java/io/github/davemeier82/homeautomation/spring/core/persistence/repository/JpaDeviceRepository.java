@@ -17,9 +17,13 @@
 package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
 
 import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceEntity;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -27,9 +31,46 @@ import java.util.UUID;
 @Repository
 public interface JpaDeviceRepository extends JpaRepository<DeviceEntity, UUID> {
 
+  // also used by save and delete, so the collections are left lazy: a single device loads each of them with one query when it is mapped
   Optional<DeviceEntity> findByDeviceIdAndDeviceType(String deviceId, String deviceType);
 
   Set<DeviceEntity> findAllByDeviceType(String deviceType);
 
   void deleteByDeviceIdAndDeviceType(String deviceId, String deviceType);
+
+  /**
+   * All devices with their parameters and custom identifiers, loaded with two queries instead of two per device.
+   * Must be called in a transaction, the second query initializes the custom identifiers of the devices returned by the first one.
+   */
+  default List<DeviceEntity> findAllWithParametersAndCustomIdentifiers() {
+    List<DeviceEntity> devices = findAllFetchingParameters();
+    findAllFetchingCustomIdentifiers();
+    return devices;
+  }
+
+  /**
+   * Like {@link #findAllWithParametersAndCustomIdentifiers()} for the devices of a type.
+   */
+  default List<DeviceEntity> findAllWithParametersAndCustomIdentifiersByDeviceType(String deviceType) {
+    List<DeviceEntity> devices = findAllFetchingParametersByDeviceType(deviceType);
+    findAllFetchingCustomIdentifiersByDeviceType(deviceType);
+    return devices;
+  }
+
+  // the collections are fetched by separate queries, one join over both would return parameters x identifiers rows per device
+  @EntityGraph(attributePaths = "deviceParameters")
+  @Query("select d from device d")
+  List<DeviceEntity> findAllFetchingParameters();
+
+  @EntityGraph(attributePaths = "customIdentifiers")
+  @Query("select d from device d")
+  List<DeviceEntity> findAllFetchingCustomIdentifiers();
+
+  @EntityGraph(attributePaths = "deviceParameters")
+  @Query("select d from device d where d.deviceType = :deviceType")
+  List<DeviceEntity> findAllFetchingParametersByDeviceType(@Param("deviceType") String deviceType);
+
+  @EntityGraph(attributePaths = "customIdentifiers")
+  @Query("select d from device d where d.deviceType = :deviceType")
+  List<DeviceEntity> findAllFetchingCustomIdentifiersByDeviceType(@Param("deviceType") String deviceType);
 }
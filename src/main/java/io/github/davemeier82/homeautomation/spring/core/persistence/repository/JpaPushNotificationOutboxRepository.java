@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.PushNotificationOutboxEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface JpaPushNotificationOutboxRepository extends JpaRepository<PushNotificationOutboxEntity, UUID> {
+
+  List<PushNotificationOutboxEntity> findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(OffsetDateTime now, Limit limit);
+
+  /**
+   * Moves the next attempt of a due entry to {@code leaseUntil}. Only one of several instances polling the outbox gets a result of 1 for the same entry.
+   */
+  @Transactional
+  @Modifying
+  @Query("update push_notification_outbox e set e.nextAttemptAt = :leaseUntil where e.id = :id and e.nextAttemptAt <= :now")
+  int claim(@Param("id") UUID id, @Param("now") OffsetDateTime now, @Param("leaseUntil") OffsetDateTime leaseUntil);
+
+  /**
+   * Moves the next attempt of a claimed entry to {@code leaseUntil}, so it is not claimed again while its delivery is still pending.
+   */
+  @Transactional
+  @Modifying
+  @Query("update push_notification_outbox e set e.nextAttemptAt = :leaseUntil where e.id = :id")
+  int renewLease(@Param("id") UUID id, @Param("leaseUntil") OffsetDateTime leaseUntil);
+
+  @Transactional
+  @Modifying
+  @Query("update push_notification_outbox e set e.attempts = :attempts, e.nextAttemptAt = :nextAttemptAt, e.lastError = :lastError where e.id = :id")
+  int reschedule(@Param("id") UUID id, @Param("attempts") int attempts, @Param("nextAttemptAt") OffsetDateTime nextAttemptAt, @Param("lastError") String lastError);
+}
@@ -22,6 +22,8 @@ import io.github.davemeier82.homeautomation.core.device.property.DeviceProperty;
 import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
 import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyType;
 import io.github.davemeier82.homeautomation.core.repositories.DevicePropertyRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.LatestDevicePropertyValueStore;
 import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceEntity;
 import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyEntity;
 import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DevicePropertyEntityMapper;
@@ -40,16 +42,22 @@ public class SpringDataDevicePropertyRepository implements DevicePropertyReposit
   private final JpaDeviceRepository jpaDeviceRepository;
   private final DevicePropertyEntityMapper devicePropertyEntityMapper;
   private final DeviceTypeMapper deviceTypeMapper;
+  private final DevicePropertyIdCache devicePropertyIdCache;
+  private final LatestDevicePropertyValueStore latestValueStore;
 
   public SpringDataDevicePropertyRepository(JpaDevicePropertyRepository jpaDevicePropertyRepository,
                                             JpaDeviceRepository jpaDeviceRepository,
                                             DevicePropertyEntityMapper devicePropertyEntityMapper,
-                                            DeviceTypeMapper deviceTypeMapper
+                                            DeviceTypeMapper deviceTypeMapper,
+                                            DevicePropertyIdCache devicePropertyIdCache,
+                                            LatestDevicePropertyValueStore latestValueStore
   ) {
     this.jpaDevicePropertyRepository = jpaDevicePropertyRepository;
     this.jpaDeviceRepository = jpaDeviceRepository;
     this.devicePropertyEntityMapper = devicePropertyEntityMapper;
     this.deviceTypeMapper = deviceTypeMapper;
+    this.devicePropertyIdCache = devicePropertyIdCache;
+    this.latestValueStore = latestValueStore;
   }
 
   @Override
@@ -88,6 +96,7 @@ public class SpringDataDevicePropertyRepository implements DevicePropertyReposit
     } else {
       jpaDevicePropertyRepository.save(devicePropertyEntityMapper.map(deviceProperty, deviceEntity));
     }
+    devicePropertyIdCache.invalidate(deviceProperty.getId());
   }
 
   @Override
@@ -96,6 +105,8 @@ public class SpringDataDevicePropertyRepository implements DevicePropertyReposit
     String deviceType = deviceTypeMapper.map(deviceId.type());
     DeviceEntity deviceEntity = jpaDeviceRepository.findByDeviceIdAndDeviceType(deviceId.id(), deviceType).orElseThrow();
     jpaDevicePropertyRepository.deleteByDevicePropertyIdAndDevice(devicePropertyId.id(), deviceEntity);
+    devicePropertyIdCache.invalidate(devicePropertyId);
+    latestValueStore.invalidate(devicePropertyId);
   }
 
 }
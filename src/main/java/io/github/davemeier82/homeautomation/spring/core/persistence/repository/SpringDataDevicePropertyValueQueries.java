@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyValueEntity;
+import org.springframework.data.domain.Limit;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@link DevicePropertyValueQueries} with Spring Data JPA, the history is read as projection and no entity is kept in the persistence context of the caller.
+ */
+public class SpringDataDevicePropertyValueQueries implements DevicePropertyValueQueries {
+
+  private final JpaDevicePropertyValueRepository devicePropertyValueRepository;
+
+  public SpringDataDevicePropertyValueQueries(JpaDevicePropertyValueRepository devicePropertyValueRepository) {
+    this.devicePropertyValueRepository = devicePropertyValueRepository;
+  }
+
+  @Override
+  public Optional<OffsetDateTime> findLastTimestampByValue(UUID devicePropertyId, String type, String value) {
+    return devicePropertyValueRepository.findTopByDevicePropertyIdAndTypeAndValueOrderByTimestampDesc(devicePropertyId, type, value)
+                                        .map(DevicePropertyValueEntity::getTimestamp);
+  }
+
+  @Override
+  public Optional<OffsetDateTime> findLastTimestampByNumericValue(UUID devicePropertyId, String type, double numericValue) {
+    return devicePropertyValueRepository.findTopByDevicePropertyIdAndTypeAndNumericValueOrderByTimestampDesc(devicePropertyId, type, numericValue)
+                                        .map(DevicePropertyValueEntity::getTimestamp);
+  }
+
+  @Override
+  public Optional<OffsetDateTime> findLastTimestampByBooleanValue(UUID devicePropertyId, String type, boolean booleanValue) {
+    return devicePropertyValueRepository.findTopByDevicePropertyIdAndTypeAndBooleanValueOrderByTimestampDesc(devicePropertyId, type, booleanValue)
+                                        .map(DevicePropertyValueEntity::getTimestamp);
+  }
+
+  @Override
+  public List<TimestampedValueRow> findFirstPage(UUID devicePropertyId, String type, OffsetDateTime from, OffsetDateTime to, int limit) {
+    return devicePropertyValueRepository.findByDevicePropertyIdAndTypeAndTimestampGreaterThanEqualAndTimestampLessThanOrderByTimestampAsc(devicePropertyId, type, from,
+        to, Limit.of(limit));
+  }
+
+  @Override
+  public List<TimestampedValueRow> findNextPage(UUID devicePropertyId, String type, OffsetDateTime after, OffsetDateTime to, int limit) {
+    return devicePropertyValueRepository.findByDevicePropertyIdAndTypeAndTimestampGreaterThanAndTimestampLessThanOrderByTimestampAsc(devicePropertyId, type, after, to,
+        Limit.of(limit));
+  }
+
+  @Override
+  public int deleteChunkBefore(OffsetDateTime timestamp, int limit) {
+    return devicePropertyValueRepository.deleteChunkByTimestampBefore(timestamp, limit);
+  }
+}
@@ -16,76 +16,197 @@
 
 package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
 
-import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
 import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
 import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyValueType;
 import io.github.davemeier82.homeautomation.core.event.DataWithTimestamp;
 import io.github.davemeier82.homeautomation.core.repositories.DevicePropertyValueRepository;
-import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyValueEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.LatestDevicePropertyValueStore;
 import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DevicePropertyValueEntityMapper;
+import io.github.davemeier82.homeautomation.spring.core.persistence.routing.ReadReplicaScope;
+import io.github.davemeier82.homeautomation.spring.core.persistence.writebehind.DevicePropertyValueWriteBehindBuffer;
+import io.github.davemeier82.homeautomation.spring.core.persistence.writebehind.PendingDevicePropertyValue;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
-@Transactional
-public class SpringDataDevicePropertyValueRepository implements DevicePropertyValueRepository {
+/**
+ * Reads the latest values from the {@link LatestDevicePropertyValueStore}, only a cache miss queries the database. The values are saved with the
+ * {@link SpringDataDevicePropertyValueWriter} if there is one, otherwise they are inserted with the {@link JdbcDevicePropertyValueWriter}.
+ * The write-behind buffer always uses the {@link JdbcDevicePropertyValueWriter}. The other queries are run by the {@link DevicePropertyValueQueries}
+ * with Spring Data JPA or plain JDBC.
+ */
+public class SpringDataDevicePropertyValueRepository implements DevicePropertyValueRepository, DevicePropertyValueHistory, DevicePropertyValueRetention {
 
   private static final Logger log = LoggerFactory.getLogger(SpringDataDevicePropertyValueRepository.class);
-  private final JpaDevicePropertyValueRepository devicePropertyValueRepository;
-  private final JpaDevicePropertyRepository devicePropertyRepository;
-  private final DeviceTypeMapper deviceTypeMapper;
+  private static final int HISTORY_PAGE_SIZE = 500;
+  private final DevicePropertyValueQueries queries;
+  private final DevicePropertyIdCache devicePropertyIdCache;
+  private final LatestDevicePropertyValueStore latestValueStore;
   private final DevicePropertyValueEntityMapper devicePropertyValueEntityMapper;
+  private final SpringDataDevicePropertyValueWriter springDataDevicePropertyValueWriter;
+  private final JdbcDevicePropertyValueWriter jdbcDevicePropertyValueWriter;
+  private final DevicePropertyValueWriteBehindBuffer writeBehindBuffer;
+
+  public SpringDataDevicePropertyValueRepository(JpaDevicePropertyValueRepository devicePropertyValueRepository,
+                                                 DevicePropertyIdCache devicePropertyIdCache,
+                                                 LatestDevicePropertyValueStore latestValueStore,
+                                                 DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                                 JdbcDevicePropertyValueWriter jdbcDevicePropertyValueWriter
+  ) {
+    this(devicePropertyValueRepository, devicePropertyIdCache, latestValueStore, devicePropertyValueEntityMapper, jdbcDevicePropertyValueWriter, null);
+  }
 
   public SpringDataDevicePropertyValueRepository(JpaDevicePropertyValueRepository devicePropertyValueRepository,
-                                                 JpaDevicePropertyRepository devicePropertyRepository,
-                                                 DeviceTypeMapper deviceTypeMapper,
-                                                 DevicePropertyValueEntityMapper devicePropertyValueEntityMapper
+                                                 DevicePropertyIdCache devicePropertyIdCache,
+                                                 LatestDevicePropertyValueStore latestValueStore,
+                                                 DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                                 JdbcDevicePropertyValueWriter jdbcDevicePropertyValueWriter,
+                                                 DevicePropertyValueWriteBehindBuffer writeBehindBuffer
+  ) {
+    this(new SpringDataDevicePropertyValueQueries(devicePropertyValueRepository), devicePropertyIdCache, latestValueStore, devicePropertyValueEntityMapper,
+        jdbcDevicePropertyValueWriter, writeBehindBuffer);
+  }
+
+  public SpringDataDevicePropertyValueRepository(DevicePropertyValueQueries queries,
+                                                 DevicePropertyIdCache devicePropertyIdCache,
+                                                 LatestDevicePropertyValueStore latestValueStore,
+                                                 DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                                 JdbcDevicePropertyValueWriter jdbcDevicePropertyValueWriter,
+                                                 DevicePropertyValueWriteBehindBuffer writeBehindBuffer
+  ) {
+    this(queries, devicePropertyIdCache, latestValueStore, devicePropertyValueEntityMapper, null, jdbcDevicePropertyValueWriter, writeBehindBuffer);
+  }
+
+  public SpringDataDevicePropertyValueRepository(DevicePropertyValueQueries queries,
+                                                 DevicePropertyIdCache devicePropertyIdCache,
+                                                 LatestDevicePropertyValueStore latestValueStore,
+                                                 DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                                 SpringDataDevicePropertyValueWriter springDataDevicePropertyValueWriter,
+                                                 JdbcDevicePropertyValueWriter jdbcDevicePropertyValueWriter,
+                                                 DevicePropertyValueWriteBehindBuffer writeBehindBuffer
   ) {
-    this.devicePropertyValueRepository = devicePropertyValueRepository;
-    this.devicePropertyRepository = devicePropertyRepository;
-    this.deviceTypeMapper = deviceTypeMapper;
+    this.queries = queries;
+    this.devicePropertyIdCache = devicePropertyIdCache;
+    this.latestValueStore = latestValueStore;
     this.devicePropertyValueEntityMapper = devicePropertyValueEntityMapper;
+    this.springDataDevicePropertyValueWriter = springDataDevicePropertyValueWriter;
+    this.jdbcDevicePropertyValueWriter = jdbcDevicePropertyValueWriter;
+    this.writeBehindBuffer = writeBehindBuffer;
   }
 
   @Override
+  @Transactional
   public void insert(DevicePropertyId devicePropertyId, DevicePropertyValueType devicePropertyValueType, String displayName, Object value, OffsetDateTime time) {
-    String deviceType = deviceTypeMapper.map(devicePropertyId.deviceId().type());
-    devicePropertyRepository.findByDevicePropertyIdAndDevice_DeviceIdAndDevice_DeviceType(devicePropertyId.id(), devicePropertyId.deviceId().id(),
-                                                                   deviceType)
-                            .map(e -> {
-                              DevicePropertyValueEntity dpve = devicePropertyValueEntityMapper.map(e.getId(), devicePropertyValueType, value, time);
-                              if (devicePropertyValueRepository.findByDevicePropertyIdAndTypeAndTimestamp(e.getId(), dpve.getType(), time).isEmpty()) {
-                                return dpve;
-                              }
-                              log.info("value {} for {} at {} already saved", value, devicePropertyId, time);
-                              return null;
-                            }).ifPresentOrElse(devicePropertyValueRepository::save, () -> log.info("value {} for {} at {}  saved", value, devicePropertyId, time));
+    PendingDevicePropertyValue pendingValue = new PendingDevicePropertyValue(devicePropertyId, devicePropertyValueType.getTypeName(), DevicePropertyValueEntityMapper.valueToString(value), time);
+    if (writeBehindBuffer != null) {
+      writeBehindBuffer.enqueue(pendingValue);
+      latestValueStore.update(devicePropertyId, pendingValue.type(), pendingValue.value(), time);
+      return;
+    }
+    boolean inserted = springDataDevicePropertyValueWriter != null
+        ? springDataDevicePropertyValueWriter.insert(devicePropertyId, devicePropertyValueType, value, time)
+        : jdbcDevicePropertyValueWriter.insert(pendingValue);
+    if (inserted) {
+      latestValueStore.updateInTransaction(devicePropertyId, pendingValue.type(), pendingValue.value(), time);
+    } else {
+      log.debug("value {} for {} at {} not saved", value, devicePropertyId, time);
+    }
   }
 
   @Override
-  @org.springframework.transaction.annotation.Transactional(readOnly = true)
   public <T> Optional<DataWithTimestamp<T>> findLatestValue(DevicePropertyId devicePropertyId, DevicePropertyValueType devicePropertyValueType, Class<T> clazz) {
-    String deviceType = deviceTypeMapper.map(devicePropertyId.deviceId().type());
-    return devicePropertyRepository.findByDevicePropertyIdAndDevice_DeviceIdAndDevice_DeviceType(devicePropertyId.id(), devicePropertyId.deviceId().id(), deviceType)
-                                   .flatMap(entity -> devicePropertyValueRepository.findTopByDevicePropertyIdAndTypeOrderByTimestampDesc(entity.getId(), devicePropertyValueType.getTypeName()))
-                                   .flatMap(dp -> devicePropertyValueEntityMapper.map(dp, clazz));
+    Optional<PendingDevicePropertyValue> pending = findPending(devicePropertyId, devicePropertyValueType);
+    if (pending.isPresent()) {
+      return devicePropertyValueEntityMapper.map(pending.get().value(), pending.get().timestamp(), clazz);
+    }
+    return latestValueStore.find(devicePropertyId, devicePropertyValueType.getTypeName())
+                           .flatMap(latest -> devicePropertyValueEntityMapper.map(latest.value(), latest.timestamp(), clazz));
   }
 
   @Override
-  @org.springframework.transaction.annotation.Transactional(readOnly = true)
   public Optional<OffsetDateTime> lastTimeValueMatched(DevicePropertyId devicePropertyId, DevicePropertyValueType devicePropertyValueType, Object value) {
-    String deviceType = deviceTypeMapper.map(devicePropertyId.deviceId().type());
-    return devicePropertyRepository.findByDevicePropertyIdAndDevice_DeviceIdAndDevice_DeviceType(devicePropertyId.id(), devicePropertyId.deviceId().id(), deviceType)
-                                   .flatMap(entity -> devicePropertyValueRepository.findTopByDevicePropertyIdAndTypeAndValueOrderByTimestampDesc(entity.getId(), devicePropertyValueType.getTypeName(),
-                                       DevicePropertyValueEntityMapper.valueToString(value)))
-                                   .map(DevicePropertyValueEntity::getTimestamp);
+    String valueAsString = DevicePropertyValueEntityMapper.valueToString(value);
+    Optional<OffsetDateTime> pendingMatch = findPendingMatch(devicePropertyId, devicePropertyValueType, valueAsString).map(PendingDevicePropertyValue::timestamp);
+    if (pendingMatch.isPresent()) {
+      return pendingMatch;
+    }
+    Optional<OffsetDateTime> latestMatch = latestValueStore.find(devicePropertyId, devicePropertyValueType.getTypeName())
+                                                           .filter(latest -> Objects.equals(latest.value(), valueAsString))
+                                                           .map(LatestDevicePropertyValueStore.LatestValue::timestamp);
+    if (latestMatch.isPresent()) {
+      return latestMatch;
+    }
+    return devicePropertyIdCache.find(devicePropertyId).flatMap(id -> findLastMatch(id, devicePropertyValueType.getTypeName(), value, valueAsString));
+  }
+
+  /**
+   * Streams the values of the time range ordered by timestamp. The values are loaded page by page while the stream is consumed,
+   * values that are still in the write-behind queue are not included. Every page is read as projection in its own query, so no entities are
+   * kept in the persistence context of the caller and the stream does not depend on a surrounding transaction. The pages may be read from the read replica.
+   */
+  @Override
+  public <T> Stream<DataWithTimestamp<T>> findValues(DevicePropertyId devicePropertyId,
+                                                     DevicePropertyValueType devicePropertyValueType,
+                                                     OffsetDateTime from,
+                                                     OffsetDateTime to,
+                                                     Class<T> clazz
+  ) {
+    Optional<UUID> id = devicePropertyIdCache.find(devicePropertyId);
+    if (id.isEmpty()) {
+      return Stream.empty();
+    }
+    UUID uuid = id.get();
+    String type = devicePropertyValueType.getTypeName();
+    // the timestamp is unique per device property and type, so the last timestamp of a page is the key of the next one
+    return Stream.iterate(ReadReplicaScope.onReplica(() -> queries.findFirstPage(uuid, type, from, to, HISTORY_PAGE_SIZE)),
+                     page -> !page.isEmpty(),
+                     page -> page.size() < HISTORY_PAGE_SIZE
+                         ? List.of()
+                         : ReadReplicaScope.onReplica(() -> queries.findNextPage(uuid, type, page.getLast().timestamp(), to, HISTORY_PAGE_SIZE)))
+                 .flatMap(List::stream)
+                 .flatMap(row -> devicePropertyValueEntityMapper.map(row.value(), row.timestamp(), clazz).stream());
+  }
+
+  @Override
+  @Transactional
+  public int deleteBefore(OffsetDateTime timestamp, int limit) {
+    return queries.deleteChunkBefore(timestamp, limit);
+  }
+
+  // values that were written before the typed columns existed are only found by their text until they are backfilled
+  private Optional<OffsetDateTime> findLastMatch(UUID devicePropertyId, String type, Object value, String valueAsString) {
+    Optional<OffsetDateTime> match = Optional.empty();
+    if (value instanceof Boolean booleanValue) {
+      match = queries.findLastTimestampByBooleanValue(devicePropertyId, type, booleanValue);
+    } else if (value instanceof Number number) {
+      match = queries.findLastTimestampByNumericValue(devicePropertyId, type, number.doubleValue());
+    }
+    if (match.isPresent()) {
+      return match;
+    }
+    return queries.findLastTimestampByValue(devicePropertyId, type, valueAsString);
+  }
+
+  private Optional<PendingDevicePropertyValue> findPending(DevicePropertyId devicePropertyId, DevicePropertyValueType devicePropertyValueType) {
+    if (writeBehindBuffer == null) {
+      return Optional.empty();
+    }
+    return writeBehindBuffer.findLatest(devicePropertyId, devicePropertyValueType.getTypeName());
   }
 
-  public void deleteAllBefore(OffsetDateTime timestamp) {
-    devicePropertyValueRepository.deleteAllByTimestampBefore(timestamp);
+  private Optional<PendingDevicePropertyValue> findPendingMatch(DevicePropertyId devicePropertyId, DevicePropertyValueType devicePropertyValueType, String value) {
+    if (writeBehindBuffer == null) {
+      return Optional.empty();
+    }
+    return writeBehindBuffer.findLastMatching(devicePropertyId, devicePropertyValueType.getTypeName(), value);
   }
 
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyValueType;
+import io.github.davemeier82.homeautomation.spring.core.event.EventPipelineObserver;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyLatestValueEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyLatestValueId;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyValueEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DevicePropertyValueEntityMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static io.github.davemeier82.homeautomation.spring.core.persistence.TransactionCallbacks.afterCommit;
+
+/**
+ * Saves single device property values with Spring Data JPA. A value is only saved if the device property has no value of the type at its timestamp,
+ * a concurrent duplicate is rejected by the unique index. The latest value of the device property is updated in the same transaction.
+ */
+@Transactional
+public class SpringDataDevicePropertyValueWriter {
+
+  private static final Logger log = LoggerFactory.getLogger(SpringDataDevicePropertyValueWriter.class);
+  private final JpaDevicePropertyValueRepository devicePropertyValueRepository;
+  private final JpaDevicePropertyLatestValueRepository devicePropertyLatestValueRepository;
+  private final DevicePropertyIdCache devicePropertyIdCache;
+  private final DevicePropertyValueEntityMapper devicePropertyValueEntityMapper;
+  private final EventPipelineObserver eventPipelineObserver;
+
+  public SpringDataDevicePropertyValueWriter(JpaDevicePropertyValueRepository devicePropertyValueRepository,
+                                             JpaDevicePropertyLatestValueRepository devicePropertyLatestValueRepository,
+                                             DevicePropertyIdCache devicePropertyIdCache,
+                                             DevicePropertyValueEntityMapper devicePropertyValueEntityMapper,
+                                             EventPipelineObserver eventPipelineObserver
+  ) {
+    this.devicePropertyValueRepository = devicePropertyValueRepository;
+    this.devicePropertyLatestValueRepository = devicePropertyLatestValueRepository;
+    this.devicePropertyIdCache = devicePropertyIdCache;
+    this.devicePropertyValueEntityMapper = devicePropertyValueEntityMapper;
+    this.eventPipelineObserver = eventPipelineObserver;
+  }
+
+  public boolean insert(DevicePropertyId devicePropertyId, DevicePropertyValueType devicePropertyValueType, Object value, OffsetDateTime time) {
+    Optional<UUID> id = devicePropertyIdCache.find(devicePropertyId);
+    if (id.isEmpty()) {
+      log.warn("device property {} does not exist, dropping value {} at {}", devicePropertyId, value, time);
+      return false;
+    }
+    DevicePropertyValueEntity entity = devicePropertyValueEntityMapper.map(id.get(), devicePropertyValueType, value, time);
+    if (devicePropertyValueRepository.findByDevicePropertyIdAndTypeAndTimestamp(id.get(), entity.getType(), time).isPresent()) {
+      log.debug("value {} for {} at {} already saved", value, devicePropertyId, time);
+      return false;
+    }
+    devicePropertyValueRepository.save(entity);
+    updateLatestValue(entity);
+    afterCommit(() -> eventPipelineObserver.valuePersisted(time));
+    return true;
+  }
+
+  private void updateLatestValue(DevicePropertyValueEntity entity) {
+    DevicePropertyLatestValueId id = new DevicePropertyLatestValueId(entity.getDevicePropertyId(), entity.getType());
+    Optional<DevicePropertyLatestValueEntity> latest = devicePropertyLatestValueRepository.findById(id);
+    if (latest.isEmpty()) {
+      devicePropertyLatestValueRepository.save(new DevicePropertyLatestValueEntity(id, entity.getValue(), entity.getTimestamp()));
+    } else if (latest.get().getTimestamp().isBefore(entity.getTimestamp())) {
+      latest.get().setValue(entity.getValue());
+      latest.get().setTimestamp(entity.getTimestamp());
+    }
+  }
+}
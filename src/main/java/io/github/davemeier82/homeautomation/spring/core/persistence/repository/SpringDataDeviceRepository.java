@@ -21,20 +21,25 @@ import io.github.davemeier82.homeautomation.core.device.DeviceId;
 import io.github.davemeier82.homeautomation.core.device.DeviceType;
 import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
 import io.github.davemeier82.homeautomation.core.repositories.DeviceRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DeviceRegistry;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.LatestDevicePropertyValueStore;
 import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceEntity;
 import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DeviceEntityMapper;
-import org.springframework.data.util.Pair;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toSet;
 
-@Transactional
+/**
+ * Reads the devices from the {@link DeviceRegistry} once it is loaded. Only reads that go to the database open a read-only transaction.
+ */
 public class SpringDataDeviceRepository implements DeviceRepository {
 
   private final JpaDeviceRepository jpaDeviceRepository;
@@ -42,80 +47,130 @@ public class SpringDataDeviceRepository implements DeviceRepository {
   private final JpaDeviceParameterRepository jpaDeviceParameterRepository;
   private final DeviceEntityMapper deviceEntityMapper;
   private final DeviceTypeMapper deviceTypeMapper;
+  private final DevicePropertyIdCache devicePropertyIdCache;
+  private final LatestDevicePropertyValueStore latestValueStore;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+  private final DeviceRegistry deviceRegistry;
 
   public SpringDataDeviceRepository(JpaDeviceRepository jpaDeviceRepository,
                                     JpaCustomIdentifierRepository jpaCustomIdentifierRepository, JpaDeviceParameterRepository jpaDeviceParameterRepository,
                                     DeviceEntityMapper deviceEntityMapper,
-                                    DeviceTypeMapper deviceTypeMapper
+                                    DeviceTypeMapper deviceTypeMapper,
+                                    DevicePropertyIdCache devicePropertyIdCache,
+                                    LatestDevicePropertyValueStore latestValueStore,
+                                    TransactionTemplate readOnlyTransactionTemplate
+  ) {
+    this(jpaDeviceRepository, jpaCustomIdentifierRepository, jpaDeviceParameterRepository, deviceEntityMapper, deviceTypeMapper, devicePropertyIdCache, latestValueStore,
+        readOnlyTransactionTemplate, null);
+  }
+
+  public SpringDataDeviceRepository(JpaDeviceRepository jpaDeviceRepository,
+                                    JpaCustomIdentifierRepository jpaCustomIdentifierRepository, JpaDeviceParameterRepository jpaDeviceParameterRepository,
+                                    DeviceEntityMapper deviceEntityMapper,
+                                    DeviceTypeMapper deviceTypeMapper,
+                                    DevicePropertyIdCache devicePropertyIdCache,
+                                    LatestDevicePropertyValueStore latestValueStore,
+                                    TransactionTemplate readOnlyTransactionTemplate,
+                                    DeviceRegistry deviceRegistry
   ) {
     this.jpaDeviceRepository = jpaDeviceRepository;
     this.jpaCustomIdentifierRepository = jpaCustomIdentifierRepository;
     this.jpaDeviceParameterRepository = jpaDeviceParameterRepository;
     this.deviceEntityMapper = deviceEntityMapper;
     this.deviceTypeMapper = deviceTypeMapper;
+    this.devicePropertyIdCache = devicePropertyIdCache;
+    this.latestValueStore = latestValueStore;
+    this.readOnlyTransactionTemplate = readOnlyTransactionTemplate;
+    this.deviceRegistry = deviceRegistry;
   }
 
   @Override
-  @Transactional(readOnly = true)
   public Optional<Device> getByDeviceId(DeviceId deviceId) {
+    if (deviceRegistry != null) {
+      return deviceRegistry.find(deviceId);
+    }
     String deviceType = deviceTypeMapper.map(deviceId.type());
-    return jpaDeviceRepository.findByDeviceIdAndDeviceType(deviceId.id(), deviceType).map(deviceEntityMapper::map);
+    return readOnlyTransactionTemplate.execute(status -> jpaDeviceRepository.findByDeviceIdAndDeviceType(deviceId.id(), deviceType).map(deviceEntityMapper::map));
   }
 
   @Override
-  @Transactional(readOnly = true)
   public Set<Device> getDevices() {
-    return jpaDeviceRepository.findAll().stream().map(deviceEntityMapper::map).collect(toSet());
+    if (isRegistryLoaded()) {
+      return deviceRegistry.getDevices();
+    }
+    return readOnlyTransactionTemplate.execute(status -> jpaDeviceRepository.findAllWithParametersAndCustomIdentifiers().stream()
+                                                                            .map(deviceEntityMapper::map)
+                                                                            .collect(toSet()));
   }
 
   @Override
+  @Transactional
   public void save(Device device) {
     String deviceType = deviceTypeMapper.map(device.getType());
     DeviceEntity entity = jpaDeviceRepository.findByDeviceIdAndDeviceType(device.getId(), deviceType)
                                              .map(e -> deviceEntityMapper.update(e, device))
                                              .orElseGet(() -> deviceEntityMapper.map(device));
-    jpaDeviceRepository.save(entity);
+    DeviceEntity saved = jpaDeviceRepository.save(entity);
+    if (deviceRegistry != null) {
+      deviceRegistry.put(saved);
+    }
   }
 
   @Override
+  @Transactional
   public void delete(DeviceId deviceId) {
     jpaDeviceRepository.deleteByDeviceIdAndDeviceType(deviceId.id(), deviceId.type().getTypeName());
+    devicePropertyIdCache.invalidate(deviceId);
+    latestValueStore.invalidate(deviceId);
+    if (deviceRegistry != null) {
+      deviceRegistry.remove(deviceId);
+    }
   }
 
   @Override
-  @Transactional(readOnly = true)
   public <T> Set<? extends T> getDeviceByType(DeviceType deviceType, Class<T> clazz) {
-    return jpaDeviceRepository.findAllByDeviceType(deviceType.getTypeName()).stream()
-                              .map(deviceEntityMapper::map)
-                              .map(clazz::cast)
-                              .collect(toSet());
+    if (isRegistryLoaded()) {
+      return deviceRegistry.getDevicesByType(deviceTypeMapper.map(deviceType)).stream().map(clazz::cast).collect(toSet());
+    }
+    return readOnlyTransactionTemplate.execute(status -> jpaDeviceRepository.findAllWithParametersAndCustomIdentifiersByDeviceType(deviceType.getTypeName()).stream()
+                                                                            .map(deviceEntityMapper::map)
+                                                                            .map(clazz::cast)
+                                                                            .collect(toSet()));
   }
 
   @Override
-  @Transactional(readOnly = true)
   public Map<DeviceId, Map<String, String>> getAllCustomIdentifiers() {
-    return toMapByDevice(jpaCustomIdentifierRepository.findAll().stream().map(deviceEntityMapper::map));
+    if (isRegistryLoaded()) {
+      return deviceRegistry.getAllCustomIdentifiers();
+    }
+    return toMapByDevice(jpaCustomIdentifierRepository.findAllRows());
   }
 
   @Override
-  @Transactional(readOnly = true)
   public Map<DeviceId, Map<String, String>> getAllParameters() {
-    return toMapByDevice(jpaDeviceParameterRepository.findAll().stream().map(deviceEntityMapper::map));
+    if (isRegistryLoaded()) {
+      return deviceRegistry.getAllParameters();
+    }
+    return toMapByDevice(jpaDeviceParameterRepository.findAllRows());
+  }
+
+  // until the registry is loaded at startup the devices are read from the database
+  private boolean isRegistryLoaded() {
+    return deviceRegistry != null && deviceRegistry.isLoaded();
   }
 
-  private HashMap<DeviceId, Map<String, String>> toMapByDevice(Stream<Map.Entry<DeviceId, Pair<String, String>>> entryStream) {
-    return entryStream.reduce(new HashMap<>(), (map, e) -> {
-          HashMap<String, String> newMap = new HashMap<>();
-          newMap.put(e.getValue().getFirst(), e.getValue().getSecond());
-          map.merge(e.getKey(), newMap, (m1, m2) -> {
-            m1.putAll(m2);
-            return m1;
-          });
-          return map;
-        },
-        (m, m2) -> {
-          m.putAll(m2);
-          return m;
-        });
+  private Map<DeviceId, Map<String, String>> toMapByDevice(List<DeviceAttributeRow> rows) {
+    Map<DeviceId, Map<String, String>> map = HashMap.newHashMap(rows.size());
+    DeviceAttributeRow previous = null;
+    Map<String, String> attributes = null;
+    for (DeviceAttributeRow row : rows) {
+      if (previous == null || !previous.deviceId().equals(row.deviceId()) || !previous.deviceType().equals(row.deviceType())) {
+        attributes = new HashMap<>();
+        map.put(new DeviceId(row.deviceId(), deviceTypeMapper.map(row.deviceType())), attributes);
+      }
+      attributes.put(row.name(), row.value());
+      previous = row;
+    }
+    return map;
   }
 }
@@ -22,6 +22,7 @@ import io.github.davemeier82.homeautomation.core.event.DevicePropertyEvent;
 import io.github.davemeier82.homeautomation.core.event.DevicePropertyUpdatedEvent;
 import io.github.davemeier82.homeautomation.core.notification.EventPushNotificationConfig;
 import io.github.davemeier82.homeautomation.core.notification.EventPushNotificationConfigRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.EventPushNotificationConfigIndex;
 import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.EventPushNotificationConfigEntityMapper;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -37,20 +38,33 @@ public class SpringDataEventPushNotificationConfigRepository implements EventPus
   private final JpaDevicePropertyRepository jpaDevicePropertyRepository;
   private final EventPushNotificationConfigEntityMapper mapper;
   private final DeviceTypeMapper deviceTypeMapper;
+  private final EventPushNotificationConfigIndex index;
 
   public SpringDataEventPushNotificationConfigRepository(JpaEventPushNotificationConfigRepository eventPushNotificationConfigRepository,
                                                          JpaDevicePropertyRepository jpaDevicePropertyRepository, EventPushNotificationConfigEntityMapper mapper,
                                                          DeviceTypeMapper deviceTypeMapper
+  ) {
+    this(eventPushNotificationConfigRepository, jpaDevicePropertyRepository, mapper, deviceTypeMapper, null);
+  }
+
+  public SpringDataEventPushNotificationConfigRepository(JpaEventPushNotificationConfigRepository eventPushNotificationConfigRepository,
+                                                         JpaDevicePropertyRepository jpaDevicePropertyRepository, EventPushNotificationConfigEntityMapper mapper,
+                                                         DeviceTypeMapper deviceTypeMapper,
+                                                         EventPushNotificationConfigIndex index
   ) {
     repository = eventPushNotificationConfigRepository;
     this.jpaDevicePropertyRepository = jpaDevicePropertyRepository;
     this.mapper = mapper;
     this.deviceTypeMapper = deviceTypeMapper;
+    this.index = index;
   }
 
 
   @Override
   public Set<EventPushNotificationConfig> findAllByEvent(DevicePropertyEvent<?> event) {
+    if (index != null) {
+      return index.findAllByEvent(event);
+    }
 
     DeviceId deviceId = event.getDevicePropertyId().deviceId();
     String deviceType = deviceTypeMapper.map(deviceId.type());
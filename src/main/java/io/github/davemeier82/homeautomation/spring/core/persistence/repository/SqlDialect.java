@@ -0,0 +1,107 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+
+public enum SqlDialect {
+
+  POSTGRESQL("""
+      insert into device_property_value (id, device_property_id, type, "value", numeric_value, boolean_value, timestamp)
+      values (:id, :devicePropertyId, :type, :value, :numericValue, :booleanValue, :timestamp)
+      on conflict (device_property_id, type, timestamp) do nothing
+      """, List.of("""
+      insert into device_property_latest_value (device_property_id, type, "value", timestamp)
+      values (:devicePropertyId, :type, :value, :timestamp)
+      on conflict (device_property_id, type) do update set "value" = excluded."value", timestamp = excluded.timestamp
+      where excluded.timestamp > device_property_latest_value.timestamp
+      """)),
+  H2("""
+      merge into device_property_value t
+      using (values (cast(:id as uuid), cast(:devicePropertyId as uuid), cast(:type as varchar), cast(:value as varchar), cast(:numericValue as double precision),
+                     cast(:booleanValue as boolean), cast(:timestamp as timestamp))) s (id, device_property_id, type, "value", numeric_value, boolean_value, timestamp)
+      on t.device_property_id = s.device_property_id and t.type = s.type and t.timestamp = s.timestamp
+      when not matched then insert (id, device_property_id, type, "value", numeric_value, boolean_value, timestamp)
+      values (s.id, s.device_property_id, s.type, s."value", s.numeric_value, s.boolean_value, s.timestamp)
+      """, List.of("""
+      merge into device_property_latest_value t
+      using (values (cast(:devicePropertyId as uuid), cast(:type as varchar), cast(:value as varchar), cast(:timestamp as timestamp))) s (device_property_id, type, "value", timestamp)
+      on t.device_property_id = s.device_property_id and t.type = s.type
+      when matched and s.timestamp > t.timestamp then update set "value" = s."value", timestamp = s.timestamp
+      when not matched then insert (device_property_id, type, "value", timestamp) values (s.device_property_id, s.type, s."value", s.timestamp)
+      """)),
+  GENERIC("""
+      insert into device_property_value (id, device_property_id, type, "value", numeric_value, boolean_value, timestamp)
+      select :id, :devicePropertyId, :type, :value, :numericValue, :booleanValue, :timestamp
+      where not exists (select 1 from device_property_value where device_property_id = :devicePropertyId and type = :type and timestamp = :timestamp)
+      """, List.of("""
+      update device_property_latest_value set "value" = :value, timestamp = :timestamp
+      where device_property_id = :devicePropertyId and type = :type and timestamp < :timestamp
+      """, """
+      insert into device_property_latest_value (device_property_id, type, "value", timestamp)
+      select :devicePropertyId, :type, :value, :timestamp
+      where not exists (select 1 from device_property_latest_value where device_property_id = :devicePropertyId and type = :type)
+      """));
+
+  private static final Logger log = LoggerFactory.getLogger(SqlDialect.class);
+  private final String insertDevicePropertyValueIfAbsent;
+  private final List<String> upsertLatestDevicePropertyValue;
+
+  SqlDialect(String insertDevicePropertyValueIfAbsent, List<String> upsertLatestDevicePropertyValue) {
+    this.insertDevicePropertyValueIfAbsent = insertDevicePropertyValueIfAbsent;
+    this.upsertLatestDevicePropertyValue = upsertLatestDevicePropertyValue;
+  }
+
+  public static SqlDialect of(DataSource dataSource) {
+    try {
+      String databaseName = JdbcUtils.commonDatabaseName(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+      if ("PostgreSQL".equals(databaseName)) {
+        return POSTGRESQL;
+      }
+      if ("H2".equals(databaseName)) {
+        return H2;
+      }
+      log.info("no specific SQL dialect for {}, using generic statements", databaseName);
+    } catch (MetaDataAccessException e) {
+      log.warn("failed to detect the database, using generic statements", e);
+    }
+    return GENERIC;
+  }
+
+  /**
+   * Insert statement that skips the row when a value with the same device property, type and timestamp exists.
+   * The named parameters are id, devicePropertyId, type, value, numericValue, booleanValue and timestamp.
+   */
+  public String insertDevicePropertyValueIfAbsent() {
+    return insertDevicePropertyValueIfAbsent;
+  }
+
+  /**
+   * Statements, executed in order, that store a value in device_property_latest_value unless a newer one is already there.
+   * The named parameters are devicePropertyId, type, value and timestamp.
+   */
+  public List<String> upsertLatestDevicePropertyValue() {
+    return upsertLatestDevicePropertyValue;
+  }
+}
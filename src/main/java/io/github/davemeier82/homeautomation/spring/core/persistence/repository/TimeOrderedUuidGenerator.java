@@ -0,0 +1,53 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Generates version 7 UUIDs: 48 bits of Unix epoch milliseconds, a 12 bit counter and 62 random bits. The ids of a generator are strictly increasing,
+ * also when more than 4096 ids are generated in one millisecond (the counter carries into the timestamp) or the clock goes backwards,
+ * so rows keyed by them are appended at the end of the primary key index instead of being spread over random pages.
+ */
+public class TimeOrderedUuidGenerator implements Supplier<UUID> {
+
+  private static final int COUNTER_BITS = 12;
+  private final AtomicLong lastTimestampAndCounter = new AtomicLong();
+  private final Clock clock;
+
+  public TimeOrderedUuidGenerator() {
+    this(Clock.systemUTC());
+  }
+
+  public TimeOrderedUuidGenerator(Clock clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public UUID get() {
+    long now = clock.millis() << COUNTER_BITS;
+    long timestampAndCounter = lastTimestampAndCounter.updateAndGet(last -> Math.max(now, last + 1));
+    long mostSigBits = (timestampAndCounter >>> COUNTER_BITS) << 16 | 0x7000L | (timestampAndCounter & 0xFFFL);
+    long leastSigBits = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+    return new UUID(mostSigBits, leastSigBits);
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.rollup;
+
+import java.time.Instant;
+
+class Aggregate {
+
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+  private double sum;
+  private long count;
+  private Double last;
+  private Instant lastTimestamp;
+
+  void add(double value, Instant timestamp) {
+    add(value, value, value, 1, value, timestamp);
+  }
+
+  void add(double min, double max, double sum, long count, Double last, Instant lastTimestamp) {
+    this.min = Math.min(this.min, min);
+    this.max = Math.max(this.max, max);
+    this.sum += sum;
+    this.count += count;
+    if (this.lastTimestamp == null || lastTimestamp.isAfter(this.lastTimestamp)) {
+      this.last = last;
+      this.lastTimestamp = lastTimestamp;
+    }
+  }
+
+  double min() {
+    return min;
+  }
+
+  double max() {
+    return max;
+  }
+
+  double sum() {
+    return sum;
+  }
+
+  long count() {
+    return count;
+  }
+
+  Double last() {
+    return last;
+  }
+
+  Instant lastTimestamp() {
+    return lastTimestamp;
+  }
+}
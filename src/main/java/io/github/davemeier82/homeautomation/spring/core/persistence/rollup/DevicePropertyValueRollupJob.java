@@ -0,0 +1,193 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.rollup;
+
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Aggregates the numeric device property values into minute buckets and these into hour and day buckets.
+ * Each resolution keeps a watermark up to which its buckets are complete, so every run only aggregates the new range.
+ * Values that arrive later than {@link RollupConfiguration#lateArrival()} after their bucket ended are not part of the rollup.
+ */
+public class DevicePropertyValueRollupJob {
+
+  private static final Logger log = LoggerFactory.getLogger(DevicePropertyValueRollupJob.class);
+  private static final Duration MAX_RUN_DURATION = Duration.ofMinutes(10);
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final RollupConfiguration configuration;
+  private final Clock clock;
+
+  public DevicePropertyValueRollupJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, RollupConfiguration configuration) {
+    this(jdbcTemplate, transactionTemplate, configuration, Clock.systemUTC());
+  }
+
+  public DevicePropertyValueRollupJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, RollupConfiguration configuration, Clock clock) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.configuration = configuration;
+    this.clock = clock;
+  }
+
+  private static Instant min(Instant a, Instant b) {
+    return a.isBefore(b) ? a : b;
+  }
+
+  private static Timestamp timestamp(Instant instant) {
+    return Timestamp.from(instant);
+  }
+
+  @Scheduled(initialDelayString = "PT1M", fixedDelayString = "PT1M")
+  @SchedulerLock(name = "DevicePropertyValueRollupJob", lockAtMostFor = "PT30M")
+  public void rollUp() {
+    Instant start = clock.instant();
+    for (RollupResolution resolution : RollupResolution.values()) {
+      rollUp(resolution, start);
+      deleteExpiredBuckets(resolution, start);
+    }
+  }
+
+  private void rollUp(RollupResolution resolution, Instant start) {
+    ZoneId zone = configuration.zoneOrDefault();
+    RollupResolution source = resolution.source();
+    Instant until = resolution.truncate(start.minus(configuration.lateArrival()), zone);
+    if (source != null) {
+      Optional<Instant> sourceWatermark = findWatermark(source);
+      if (sourceWatermark.isEmpty()) {
+        return;
+      }
+      until = min(until, resolution.truncate(sourceWatermark.get(), zone));
+    }
+    Optional<Instant> watermark = findWatermark(resolution).or(() -> findFirstSourceTimestamp(source).map(t -> resolution.truncate(t, zone)));
+    if (watermark.isEmpty()) {
+      return;
+    }
+    Instant from = watermark.get();
+    while (from.isBefore(until)) {
+      if (Duration.between(start, clock.instant()).compareTo(MAX_RUN_DURATION) > 0) {
+        log.info("{} rollup is behind, continuing on the next run at {}", resolution, from);
+        return;
+      }
+      Instant stepFrom = from;
+      Instant stepTo = min(until, resolution.truncate(from.plus(resolution.step()), zone));
+      if (!stepTo.isAfter(stepFrom)) {
+        stepTo = until;
+      }
+      Instant to = stepTo;
+      Integer buckets = transactionTemplate.execute(status -> rollUp(resolution, source, zone, stepFrom, to));
+      log.debug("aggregated {} {} buckets from {} to {}", buckets, resolution, stepFrom, to);
+      from = to;
+    }
+  }
+
+  private int rollUp(RollupResolution resolution, RollupResolution source, ZoneId zone, Instant from, Instant to) {
+    Map<BucketKey, Aggregate> buckets = new HashMap<>();
+    if (source == null) {
+      jdbcTemplate.query("""
+          select device_property_id, type, numeric_value, timestamp
+          from device_property_value
+          where numeric_value is not null
+            and timestamp >= ?
+            and timestamp < ?
+          """, (RowCallbackHandler) rs -> {
+        Instant timestamp = rs.getTimestamp(4).toInstant();
+        BucketKey key = new BucketKey(rs.getObject(1, UUID.class), rs.getString(2), resolution.truncate(timestamp, zone));
+        buckets.computeIfAbsent(key, k -> new Aggregate()).add(rs.getDouble(3), timestamp);
+      }, timestamp(from), timestamp(to));
+    } else {
+      jdbcTemplate.query("""
+          select device_property_id, type, bucket_start, min_value, max_value, sum_value, sample_count, last_value, last_timestamp
+          from device_property_value_rollup
+          where resolution = ?
+            and bucket_start >= ?
+            and bucket_start < ?
+          """, (RowCallbackHandler) rs -> {
+        BucketKey key = new BucketKey(rs.getObject(1, UUID.class), rs.getString(2), resolution.truncate(rs.getTimestamp(3).toInstant(), zone));
+        Double last = rs.getObject(8) == null ? null : rs.getDouble(8);
+        buckets.computeIfAbsent(key, k -> new Aggregate())
+               .add(rs.getDouble(4), rs.getDouble(5), rs.getDouble(6), rs.getLong(7), last, rs.getTimestamp(9).toInstant());
+      }, source.name(), timestamp(from), timestamp(to));
+    }
+    List<Object[]> rows = new ArrayList<>(buckets.size());
+    buckets.forEach((key, aggregate) -> rows.add(new Object[]{key.devicePropertyId(), key.type(), resolution.name(), timestamp(key.bucketStart()), aggregate.min(),
+        aggregate.max(), aggregate.sum(), aggregate.count(), aggregate.last(), timestamp(aggregate.lastTimestamp())}));
+    // buckets of an interrupted run are replaced
+    jdbcTemplate.update("delete from device_property_value_rollup where resolution = ? and bucket_start >= ? and bucket_start < ?", resolution.name(), timestamp(from),
+        timestamp(to));
+    if (!rows.isEmpty()) {
+      jdbcTemplate.batchUpdate("""
+          insert into device_property_value_rollup (device_property_id, type, resolution, bucket_start, min_value, max_value, sum_value, sample_count, last_value,
+                                                    last_timestamp)
+          values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+          """, rows);
+    }
+    saveWatermark(resolution, to);
+    return rows.size();
+  }
+
+  private void deleteExpiredBuckets(RollupResolution resolution, Instant now) {
+    Duration retention = configuration.retention(resolution);
+    if (retention != null) {
+      int deleted = jdbcTemplate.update("delete from device_property_value_rollup where resolution = ? and bucket_start < ?", resolution.name(),
+          timestamp(now.minus(retention)));
+      if (deleted > 0) {
+        log.debug("deleted {} expired {} buckets", deleted, resolution);
+      }
+    }
+  }
+
+  private Optional<Instant> findWatermark(RollupResolution resolution) {
+    return jdbcTemplate.query("select rolled_up_until from device_property_value_rollup_watermark where resolution = ?",
+                           (rs, rowNum) -> rs.getTimestamp(1).toInstant(), resolution.name())
+                       .stream()
+                       .findFirst();
+  }
+
+  private Optional<Instant> findFirstSourceTimestamp(RollupResolution source) {
+    Timestamp first = source == null
+        ? jdbcTemplate.queryForObject("select min(timestamp) from device_property_value where numeric_value is not null", Timestamp.class)
+        : jdbcTemplate.queryForObject("select min(bucket_start) from device_property_value_rollup where resolution = ?", Timestamp.class, source.name());
+    return Optional.ofNullable(first).map(Timestamp::toInstant);
+  }
+
+  private void saveWatermark(RollupResolution resolution, Instant rolledUpUntil) {
+    if (jdbcTemplate.update("update device_property_value_rollup_watermark set rolled_up_until = ? where resolution = ?", timestamp(rolledUpUntil), resolution.name()) == 0) {
+      jdbcTemplate.update("insert into device_property_value_rollup_watermark (resolution, rolled_up_until) values (?, ?)", resolution.name(), timestamp(rolledUpUntil));
+    }
+  }
+
+  private record BucketKey(UUID devicePropertyId, String type, Instant bucketStart) {
+  }
+}
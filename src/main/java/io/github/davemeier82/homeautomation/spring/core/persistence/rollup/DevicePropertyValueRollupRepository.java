@@ -0,0 +1,132 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.rollup;
+
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyValueType;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DevicePropertyValueRollupEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDevicePropertyValueRollupRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.NumericValueRow;
+import io.github.davemeier82.homeautomation.spring.core.persistence.routing.ReadReplicaScope;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+@Transactional(readOnly = true)
+public class DevicePropertyValueRollupRepository {
+
+  private final JpaDevicePropertyValueRollupRepository rollupRepository;
+  private final DevicePropertyIdCache devicePropertyIdCache;
+  private final RollupConfiguration configuration;
+  private final Clock clock;
+
+  public DevicePropertyValueRollupRepository(JpaDevicePropertyValueRollupRepository rollupRepository,
+                                             DevicePropertyIdCache devicePropertyIdCache,
+                                             RollupConfiguration configuration
+  ) {
+    this.rollupRepository = rollupRepository;
+    this.devicePropertyIdCache = devicePropertyIdCache;
+    this.configuration = configuration;
+    clock = Clock.systemUTC();
+  }
+
+  private static DevicePropertyValueAggregate map(DevicePropertyValueRollupEntity entity, RollupResolution resolution) {
+    return new DevicePropertyValueAggregate(entity.getId().getBucketStart(), resolution, entity.getMinValue(), entity.getMaxValue(),
+        entity.getSumValue() / entity.getSampleCount(), entity.getLastValue(), entity.getSampleCount());
+  }
+
+  /**
+   * Returns the aggregates of the time range in the finest resolution that is still retained for the start of the range
+   * and has at most {@code maxPoints} buckets in the range. The range after the watermark of that resolution is filled with finer buckets.
+   */
+  public List<DevicePropertyValueAggregate> findAggregates(DevicePropertyId devicePropertyId,
+                                                           DevicePropertyValueType devicePropertyValueType,
+                                                           OffsetDateTime from,
+                                                           OffsetDateTime to,
+                                                           int maxPoints
+  ) {
+    return findAggregates(devicePropertyId, devicePropertyValueType, bestResolution(from, to, maxPoints), from, to);
+  }
+
+  /**
+   * Returns the aggregates of the time range in the given resolution. The buckets of a resolution are only complete up to its watermark,
+   * the range after it is filled with the buckets of the finer resolutions and at last with minute buckets aggregated from the values.
+   * The aggregates may be read from the read replica.
+   */
+  public List<DevicePropertyValueAggregate> findAggregates(DevicePropertyId devicePropertyId,
+                                                           DevicePropertyValueType devicePropertyValueType,
+                                                           RollupResolution resolution,
+                                                           OffsetDateTime from,
+                                                           OffsetDateTime to
+  ) {
+    return ReadReplicaScope.onReplica(() -> devicePropertyIdCache.find(devicePropertyId)
+                                                                 .map(id -> findAggregates(id, devicePropertyValueType.getTypeName(), resolution, from, to))
+                                                                 .orElse(List.of()));
+  }
+
+  public RollupResolution bestResolution(OffsetDateTime from, OffsetDateTime to, int maxPoints) {
+    Duration range = Duration.between(from, to);
+    Instant now = clock.instant();
+    for (RollupResolution resolution : RollupResolution.values()) {
+      Duration retention = configuration.retention(resolution);
+      boolean retained = retention == null || !from.toInstant().isBefore(now.minus(retention));
+      if (retained && range.dividedBy(resolution.bucketDuration()) <= maxPoints) {
+        return resolution;
+      }
+    }
+    return RollupResolution.DAY;
+  }
+
+  private List<DevicePropertyValueAggregate> findAggregates(UUID devicePropertyId, String type, RollupResolution resolution, OffsetDateTime from, OffsetDateTime to) {
+    OffsetDateTime complete = rollupRepository.findWatermark(resolution.name())
+                                              .map(watermark -> watermark.isBefore(to) ? watermark : to)
+                                              .filter(watermark -> watermark.isAfter(from))
+                                              .orElse(from);
+    List<DevicePropertyValueAggregate> aggregates = new ArrayList<>();
+    if (complete.isAfter(from)) {
+      rollupRepository.findBuckets(devicePropertyId, type, resolution.name(), from, complete).forEach(entity -> aggregates.add(map(entity, resolution)));
+    }
+    if (complete.isBefore(to)) {
+      RollupResolution finer = resolution.source();
+      aggregates.addAll(finer == null ? aggregateValues(devicePropertyId, type, complete, to) : findAggregates(devicePropertyId, type, finer, complete, to));
+    }
+    return aggregates;
+  }
+
+  private List<DevicePropertyValueAggregate> aggregateValues(UUID devicePropertyId, String type, OffsetDateTime from, OffsetDateTime to) {
+    ZoneId zone = configuration.zoneOrDefault();
+    Map<Instant, Aggregate> buckets = new TreeMap<>();
+    for (NumericValueRow row : rollupRepository.findNumericValues(devicePropertyId, type, from, to)) {
+      Instant timestamp = row.timestamp().toInstant();
+      buckets.computeIfAbsent(RollupResolution.MINUTE.truncate(timestamp, zone), bucketStart -> new Aggregate()).add(row.numericValue(), timestamp);
+    }
+    List<DevicePropertyValueAggregate> aggregates = new ArrayList<>(buckets.size());
+    buckets.forEach((bucketStart, aggregate) -> aggregates.add(new DevicePropertyValueAggregate(OffsetDateTime.ofInstant(bucketStart, from.getOffset()),
+        RollupResolution.MINUTE, aggregate.min(), aggregate.max(), aggregate.sum() / aggregate.count(), aggregate.last(), aggregate.count())));
+    return aggregates;
+  }
+}
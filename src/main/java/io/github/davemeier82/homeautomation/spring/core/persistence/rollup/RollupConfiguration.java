@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.rollup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+@ConfigurationProperties(prefix = "homeautomation.spring-core.device-property-value-repository.rollup")
+public record RollupConfiguration(boolean enabled,
+                                  @DefaultValue("PT5M") Duration lateArrival,
+                                  @DefaultValue("P90D") Duration minuteRetention,
+                                  @DefaultValue("P730D") Duration hourRetention,
+                                  Duration dayRetention,
+                                  ZoneId zone
+) {
+
+  public ZoneId zoneOrDefault() {
+    return zone == null ? ZoneId.systemDefault() : zone;
+  }
+
+  /**
+   * @return how long the buckets of a resolution are kept, {@code null} if they are never deleted
+   */
+  public Duration retention(RollupResolution resolution) {
+    return switch (resolution) {
+      case MINUTE -> minuteRetention;
+      case HOUR -> hourRetention;
+      case DAY -> dayRetention;
+    };
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.rollup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupResolution {
+  MINUTE(ChronoUnit.MINUTES, Duration.ofHours(1)),
+  HOUR(ChronoUnit.HOURS, Duration.ofDays(1)),
+  DAY(ChronoUnit.DAYS, Duration.ofDays(30));
+
+  private final ChronoUnit unit;
+  private final Duration step;
+
+  RollupResolution(ChronoUnit unit, Duration step) {
+    this.unit = unit;
+    this.step = step;
+  }
+
+  public Duration bucketDuration() {
+    return unit.getDuration();
+  }
+
+  /**
+   * Resolution the buckets are aggregated from, {@code null} for the raw values.
+   */
+  public RollupResolution source() {
+    return this == MINUTE ? null : values()[ordinal() - 1];
+  }
+
+  public Instant truncate(Instant timestamp, ZoneId zone) {
+    return ZonedDateTime.ofInstant(timestamp, zone).truncatedTo(unit).toInstant();
+  }
+
+  // maximum range aggregated in one transaction
+  Duration step() {
+    return step;
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.routing;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SqlDialect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Replica of the database that serves the reads in a {@link ReadReplicaScope}. The replication lag is checked periodically, while the replica lags more
+ * than the max lag or cannot be reached the reads are sent to the primary, unless the fallback is disabled.
+ */
+public class ReadReplica implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(ReadReplica.class);
+  // a standby that replayed everything it received is up to date even if the last replayed transaction is old
+  private static final String POSTGRESQL_LAG_SECONDS = """
+      select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0
+                  else extract(epoch from now() - pg_last_xact_replay_timestamp()) end
+      """;
+  private static final int VALID_TIMEOUT_SECONDS = 5;
+  private final DataSource dataSource;
+  private final JdbcTemplate jdbcTemplate;
+  private final Duration maxLag;
+  private final boolean fallbackToPrimary;
+  private final LongAdder replicaConnectionCount = new LongAdder();
+  private final LongAdder primaryConnectionCount = new LongAdder();
+  private SqlDialect sqlDialect;
+  private boolean checked;
+  private volatile Duration lag;
+  private volatile boolean available;
+
+  public ReadReplica(DataSource dataSource, Duration maxLag, boolean fallbackToPrimary) {
+    this.dataSource = dataSource;
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    this.maxLag = maxLag;
+    this.fallbackToPrimary = fallbackToPrimary;
+  }
+
+  @Scheduled(fixedDelayString = "${homeautomation.spring-core.read-replica.lag-check-interval:PT2S}")
+  public void checkLag() {
+    // changes are logged, the first check always logs the state of the replica
+    boolean wasAvailable = available;
+    boolean firstCheck = !checked;
+    checked = true;
+    try {
+      lag = measureLag();
+      available = lag.compareTo(maxLag) <= 0;
+      if (!available && (wasAvailable || firstCheck)) {
+        log.warn("read replica lags {} behind, max lag is {}", lag, maxLag);
+      } else if (available && (!wasAvailable || firstCheck)) {
+        log.info("read replica is available, lag is {}", lag);
+      }
+    } catch (DataAccessException e) {
+      lag = null;
+      available = false;
+      if (wasAvailable || firstCheck) {
+        log.warn("read replica is not reachable", e);
+      }
+    }
+  }
+
+  /**
+   * Returns true if a read in a {@link ReadReplicaScope} should be sent to the replica.
+   */
+  public boolean useForReadOnly() {
+    if (available || !fallbackToPrimary) {
+      replicaConnectionCount.increment();
+      return true;
+    }
+    primaryConnectionCount.increment();
+    return false;
+  }
+
+  public DataSource getDataSource() {
+    return dataSource;
+  }
+
+  public boolean isAvailable() {
+    return available;
+  }
+
+  /**
+   * Returns the lag of the last check or null if the replica could not be reached.
+   */
+  public Duration getLag() {
+    return lag;
+  }
+
+  public double getLagSeconds() {
+    Duration current = lag;
+    return current == null ? Double.NaN : current.toMillis() / 1000.0;
+  }
+
+  public long getReplicaConnectionCount() {
+    return replicaConnectionCount.sum();
+  }
+
+  public long getPrimaryConnectionCount() {
+    return primaryConnectionCount.sum();
+  }
+
+  @Override
+  public void close() throws Exception {
+    if (dataSource instanceof AutoCloseable closeable) {
+      closeable.close();
+    }
+  }
+
+  private Duration measureLag() {
+    if (sqlDialect == null) {
+      sqlDialect = SqlDialect.of(dataSource);
+    }
+    if (sqlDialect == SqlDialect.POSTGRESQL) {
+      // null if the database is not a standby
+      Double seconds = jdbcTemplate.queryForObject(POSTGRESQL_LAG_SECONDS, Double.class);
+      return seconds == null ? Duration.ZERO : Duration.ofMillis(Math.round(seconds * 1000));
+    }
+    // the lag of other databases is not known, the replica is used as long as it is reachable
+    Boolean valid = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> connection.isValid(VALID_TIMEOUT_SECONDS));
+    if (!Boolean.TRUE.equals(valid)) {
+      throw new ReadReplicaUnavailableException("connection to the read replica is not valid");
+    }
+    return Duration.ZERO;
+  }
+
+  private static class ReadReplicaUnavailableException extends DataAccessException {
+
+    ReadReplicaUnavailableException(String message) {
+      super(message);
+    }
+  }
+}
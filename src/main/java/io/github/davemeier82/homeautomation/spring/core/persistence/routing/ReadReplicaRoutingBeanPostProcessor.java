@@ -0,0 +1,44 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.routing;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the {@code dataSource} bean in a {@link ReadReplicaRoutingDataSource}, so the auto-configured primary keeps its pool and settings.
+ */
+public class ReadReplicaRoutingBeanPostProcessor implements BeanPostProcessor {
+
+  public static final String DATA_SOURCE_BEAN_NAME = "dataSource";
+  private final ObjectProvider<ReadReplica> readReplica;
+
+  public ReadReplicaRoutingBeanPostProcessor(ObjectProvider<ReadReplica> readReplica) {
+    this.readReplica = readReplica;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof DataSource dataSource && DATA_SOURCE_BEAN_NAME.equals(beanName)) {
+      return ReadReplicaRoutingDataSource.wrap(dataSource, readReplica.getObject());
+    }
+    return bean;
+  }
+}
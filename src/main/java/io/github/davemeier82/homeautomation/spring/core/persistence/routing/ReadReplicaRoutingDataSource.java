@@ -0,0 +1,66 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.routing;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends the connections of the reads in a {@link ReadReplicaScope} to the {@link ReadReplica} and all others to the primary. A read-write transaction
+ * stays on the primary also in the scope.
+ */
+public class ReadReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+  private final ReadReplica readReplica;
+
+  public ReadReplicaRoutingDataSource(DataSource primary, ReadReplica readReplica) {
+    this.readReplica = readReplica;
+    setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, readReplica.getDataSource()));
+    setDefaultTargetDataSource(primary);
+    afterPropertiesSet();
+  }
+
+  /**
+   * Routes the primary through a {@link ReadReplicaRoutingDataSource}. The transaction managers fetch the connection before the transaction is marked as
+   * read-only, the returned proxy defers fetching it to the first statement.
+   */
+  public static DataSource wrap(DataSource primary, ReadReplica readReplica) {
+    return new LazyConnectionDataSourceProxy(new ReadReplicaRoutingDataSource(primary, readReplica));
+  }
+
+  private static boolean isReadOnly() {
+    return !TransactionSynchronizationManager.isActualTransactionActive() || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    if (ReadReplicaScope.isActive() && isReadOnly() && readReplica.useForReadOnly()) {
+      return Target.REPLICA;
+    }
+    return Target.PRIMARY;
+  }
+
+  private enum Target {
+    PRIMARY,
+    REPLICA
+  }
+}
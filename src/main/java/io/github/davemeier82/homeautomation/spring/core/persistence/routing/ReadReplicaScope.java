@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks the reads that may be served by the {@link ReadReplica}, e.g. the value history of a dashboard. Only the read-only transactions and the
+ * statements outside of a transaction that run in {@link #onReplica(Supplier)} are routed to the replica. All other reads, like the lookups of the
+ * event ingestion, stay on the primary and see the writes that are not replicated yet. Without a read replica the scope has no effect.
+ */
+public final class ReadReplicaScope {
+
+  private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+  private ReadReplicaScope() {
+  }
+
+  public static <T> T onReplica(Supplier<T> reads) {
+    if (isActive()) {
+      return reads.get();
+    }
+    ACTIVE.set(Boolean.TRUE);
+    try {
+      return reads.get();
+    } finally {
+      ACTIVE.remove();
+    }
+  }
+
+  public static boolean isActive() {
+    return Boolean.TRUE.equals(ACTIVE.get());
+  }
+}
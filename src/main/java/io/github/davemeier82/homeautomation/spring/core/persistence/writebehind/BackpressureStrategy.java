@@ -0,0 +1,35 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.writebehind;
+
+/**
+ * Defines what happens when a value is enqueued while the write-behind queue is full.
+ */
+public enum BackpressureStrategy {
+  /**
+   * The publishing thread waits until the flusher made room in the queue.
+   */
+  BLOCK,
+  /**
+   * The oldest queued value is discarded to make room for the new one.
+   */
+  DROP_OLDEST,
+  /**
+   * The value is appended to a spill file on disk and written once the queue drained.
+   */
+  SPILL
+}
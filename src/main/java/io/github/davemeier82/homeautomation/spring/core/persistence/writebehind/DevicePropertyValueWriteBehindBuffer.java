@@ -0,0 +1,364 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.writebehind;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JdbcDevicePropertyValueWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Collects device property values in a bounded queue and writes them in JDBC batches
+ * as soon as either the batch size or the flush interval is reached.
+ * Values that are enqueued before the buffer is started, after it is stopped or while the flusher is not alive are written directly.
+ * A batch that cannot be written is retried with an increasing backoff while the buffer is running, the queue fills up in the meantime
+ * and the configured backpressure applies. Without a running buffer a batch is tried a few more times before its values are lost.
+ */
+public class DevicePropertyValueWriteBehindBuffer implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(DevicePropertyValueWriteBehindBuffer.class);
+  private static final long STOP_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long MIN_RETRY_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long MAX_RETRY_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+  private static final int FINAL_ATTEMPTS = 3;
+  private final JdbcDevicePropertyValueWriter writer;
+  private final BackpressureStrategy backpressure;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final BlockingQueue<PendingDevicePropertyValue> queue;
+  // the lists are replaced on every change, so they can be read without a lock
+  private final Map<PendingKey, List<PendingDevicePropertyValue>> pending = new ConcurrentHashMap<>();
+  private final SpillFile spillFile;
+  private final AtomicLong writtenCount = new AtomicLong();
+  private final AtomicLong droppedCount = new AtomicLong();
+  private final AtomicLong spilledCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+  // enqueue holds the read lock while it adds to the queue, stop takes the write lock, so no value is queued after the final flush
+  private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+  private volatile boolean running;
+  private volatile Thread flusher;
+
+  public DevicePropertyValueWriteBehindBuffer(JdbcDevicePropertyValueWriter writer, DeviceTypeMapper deviceTypeMapper, WriteBehindConfiguration configuration) {
+    this.writer = writer;
+    backpressure = configuration.backpressure();
+    batchSize = configuration.batchSize();
+    flushIntervalNanos = configuration.flushInterval().toNanos();
+    queue = new ArrayBlockingQueue<>(configuration.capacity());
+    if (backpressure == BackpressureStrategy.SPILL) {
+      Path spillDirectory = configuration.spillDirectory() == null ? Path.of(System.getProperty("java.io.tmpdir"), "homeautomation-write-behind") : configuration.spillDirectory();
+      spillFile = new SpillFile(spillDirectory, deviceTypeMapper);
+    } else {
+      spillFile = null;
+    }
+  }
+
+  public void enqueue(PendingDevicePropertyValue value) {
+    stateLock.readLock().lock();
+    try {
+      if (running && isFlusherAlive()) {
+        enqueueWhileRunning(value);
+        return;
+      }
+    } finally {
+      stateLock.readLock().unlock();
+    }
+    writeDirectly(value);
+  }
+
+  private void enqueueWhileRunning(PendingDevicePropertyValue value) {
+    pending.compute(new PendingKey(value.devicePropertyId(), value.type()), (key, values) -> {
+      List<PendingDevicePropertyValue> changed = values == null ? new ArrayList<>(1) : new ArrayList<>(values);
+      changed.add(value);
+      return List.copyOf(changed);
+    });
+    switch (backpressure) {
+      case BLOCK -> {
+        try {
+          // the flusher is checked while waiting, a dead flusher would never make room
+          while (!queue.offer(value, flushIntervalNanos, NANOSECONDS)) {
+            if (!isFlusherAlive()) {
+              writeDirectly(value);
+              return;
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          log.warn("interrupted while waiting for queue capacity, writing value {} for {} at {} directly", value.value(), value.devicePropertyId(), value.timestamp());
+          writeDirectly(value);
+        }
+      }
+      case DROP_OLDEST -> {
+        while (!queue.offer(value)) {
+          PendingDevicePropertyValue dropped = queue.poll();
+          if (dropped != null) {
+            forget(dropped);
+            droppedCount.incrementAndGet();
+            log.debug("queue is full, dropping value {} for {} at {}", dropped.value(), dropped.devicePropertyId(), dropped.timestamp());
+          }
+        }
+      }
+      case SPILL -> {
+        if (!queue.offer(value)) {
+          spill(List.of(value));
+        }
+      }
+    }
+  }
+
+  public Optional<PendingDevicePropertyValue> findLatest(DevicePropertyId devicePropertyId, String type) {
+    return findPending(devicePropertyId, type).stream().max(Comparator.comparing(PendingDevicePropertyValue::timestamp));
+  }
+
+  /**
+   * Returns the newest of the pending values of the device property and type that has the given value.
+   */
+  public Optional<PendingDevicePropertyValue> findLastMatching(DevicePropertyId devicePropertyId, String type, String value) {
+    return findPending(devicePropertyId, type).stream()
+                                              .filter(p -> Objects.equals(p.value(), value))
+                                              .max(Comparator.comparing(PendingDevicePropertyValue::timestamp));
+  }
+
+  public void flush() {
+    List<PendingDevicePropertyValue> batch = new ArrayList<>(batchSize);
+    while (queue.drainTo(batch, batchSize) > 0) {
+      write(batch);
+      batch.clear();
+    }
+    replaySpillFile();
+  }
+
+  public int getQueueSize() {
+    return queue.size();
+  }
+
+  public long getWrittenCount() {
+    return writtenCount.get();
+  }
+
+  public long getDroppedCount() {
+    return droppedCount.get();
+  }
+
+  public long getSpilledCount() {
+    return spilledCount.get();
+  }
+
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  @Override
+  public void start() {
+    stateLock.writeLock().lock();
+    try {
+      if (running) {
+        return;
+      }
+      running = true;
+      flusher = Thread.ofPlatform().name("device-property-value-write-behind").daemon().start(this::flushContinuously);
+    } finally {
+      stateLock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void stop() {
+    stateLock.writeLock().lock();
+    try {
+      running = false;
+    } finally {
+      stateLock.writeLock().unlock();
+    }
+    Thread stoppedFlusher = flusher;
+    if (stoppedFlusher != null) {
+      try {
+        stoppedFlusher.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    flush();
+    log.info("write-behind buffer stopped after writing {} values ({} dropped, {} spilled, {} failed)", writtenCount.get(), droppedCount.get(), spilledCount.get(),
+        failedCount.get());
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void flushContinuously() {
+    List<PendingDevicePropertyValue> batch = new ArrayList<>(batchSize);
+    long nextReplay = System.nanoTime() + flushIntervalNanos;
+    while (running) {
+      try {
+        PendingDevicePropertyValue first = poll(flushIntervalNanos);
+        if (first == null) {
+          if (System.nanoTime() - nextReplay >= 0) {
+            replaySpillFile();
+            nextReplay = System.nanoTime() + flushIntervalNanos;
+          }
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < batchSize && running) {
+          queue.drainTo(batch, batchSize - batch.size());
+          long remaining = deadline - System.nanoTime();
+          if (batch.size() >= batchSize || remaining <= 0) {
+            break;
+          }
+          PendingDevicePropertyValue next = poll(remaining);
+          if (next != null) {
+            batch.add(next);
+          }
+        }
+      } catch (InterruptedException e) {
+        // new values are written directly from now on, the queued ones on stop
+        Thread.currentThread().interrupt();
+        log.warn("write-behind flusher got interrupted");
+        return;
+      } finally {
+        if (!batch.isEmpty()) {
+          write(batch);
+          batch.clear();
+        }
+      }
+    }
+  }
+
+  // waits at most STOP_CHECK_NANOS, so a stop does not wait for a long flush interval
+  private PendingDevicePropertyValue poll(long timeoutNanos) throws InterruptedException {
+    return queue.poll(Math.min(timeoutNanos, STOP_CHECK_NANOS), NANOSECONDS);
+  }
+
+  private boolean isFlusherAlive() {
+    Thread current = flusher;
+    return current != null && current.isAlive();
+  }
+
+  // the caller gets the exception, like without write-behind
+  private void writeDirectly(PendingDevicePropertyValue value) {
+    try {
+      writer.insertAll(List.of(value));
+      writtenCount.incrementAndGet();
+    } finally {
+      forget(value);
+    }
+  }
+
+  // retries as long as the buffer is running, the flusher takes no new values meanwhile
+  private void write(List<PendingDevicePropertyValue> batch) {
+    long backoffNanos = MIN_RETRY_BACKOFF_NANOS;
+    int finalAttempts = 0;
+    while (true) {
+      try {
+        writer.insertAll(batch);
+        writtenCount.addAndGet(batch.size());
+        batch.forEach(this::forget);
+        return;
+      } catch (RuntimeException e) {
+        if (spillFile != null) {
+          log.error("failed to write {} device property values, spilling them to disk", batch.size(), e);
+          spill(batch);
+          return;
+        }
+        boolean retrying = running && !Thread.currentThread().isInterrupted();
+        if (!retrying && ++finalAttempts >= FINAL_ATTEMPTS) {
+          log.error("failed to write {} device property values after {} attempts, they are lost", batch.size(), finalAttempts, e);
+          failedCount.addAndGet(batch.size());
+          batch.forEach(this::forget);
+          return;
+        }
+        long waitNanos = retrying ? backoffNanos : MIN_RETRY_BACKOFF_NANOS;
+        log.warn("failed to write {} device property values, retrying in {} ms", batch.size(), NANOSECONDS.toMillis(waitNanos), e);
+        backOff(waitNanos, retrying);
+        backoffNanos = Math.min(backoffNanos * 2, MAX_RETRY_BACKOFF_NANOS);
+      }
+    }
+  }
+
+  // a stop ends the backoff of a retrying flusher, so it does not wait for the database while the buffer is stopped
+  private void backOff(long nanos, boolean whileRunning) {
+    long deadline = System.nanoTime() + nanos;
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0 && (!whileRunning || running)) {
+      try {
+        NANOSECONDS.sleep(Math.min(remaining, STOP_CHECK_NANOS));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  private void spill(List<PendingDevicePropertyValue> values) {
+    try {
+      spillFile.append(values);
+      spilledCount.addAndGet(values.size());
+    } catch (RuntimeException e) {
+      log.error("failed to spill {} device property values, they are lost", values.size(), e);
+      failedCount.addAndGet(values.size());
+      values.forEach(this::forget);
+    }
+  }
+
+  private void replaySpillFile() {
+    if (spillFile == null || spillFile.isEmpty()) {
+      return;
+    }
+    try {
+      spillFile.replay(batchSize, this::write);
+    } catch (RuntimeException e) {
+      log.error("failed to replay spilled device property values", e);
+    }
+  }
+
+  private List<PendingDevicePropertyValue> findPending(DevicePropertyId devicePropertyId, String type) {
+    return pending.getOrDefault(new PendingKey(devicePropertyId, type), List.of());
+  }
+
+  private void forget(PendingDevicePropertyValue value) {
+    pending.computeIfPresent(new PendingKey(value.devicePropertyId(), value.type()), (key, values) -> {
+      List<PendingDevicePropertyValue> changed = new ArrayList<>(values);
+      changed.remove(value);
+      return changed.isEmpty() ? null : List.copyOf(changed);
+    });
+  }
+
+  private record PendingKey(DevicePropertyId devicePropertyId, String type) {
+  }
+}
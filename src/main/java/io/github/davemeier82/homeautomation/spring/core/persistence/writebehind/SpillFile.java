@@ -0,0 +1,142 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.writebehind;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+class SpillFile {
+
+  private final Path file;
+  private final Path replayFile;
+  private final DeviceTypeMapper deviceTypeMapper;
+  private final ReentrantLock lock = new ReentrantLock();
+
+  SpillFile(Path directory, DeviceTypeMapper deviceTypeMapper) {
+    file = directory.resolve("device-property-values.spill");
+    replayFile = directory.resolve("device-property-values.spill.replay");
+    this.deviceTypeMapper = deviceTypeMapper;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to create spill directory " + directory, e);
+    }
+  }
+
+  void append(Collection<PendingDevicePropertyValue> values) {
+    lock.lock();
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, CREATE, APPEND)))) {
+      for (PendingDevicePropertyValue value : values) {
+        write(out, value);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to spill device property values to " + file, e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  boolean isEmpty() {
+    return Files.notExists(file) && Files.notExists(replayFile);
+  }
+
+  /**
+   * Hands the spilled values in chunks to the consumer and deletes them afterward.
+   * Values spilled while the replay is running end up in a new file and are picked up by the next replay.
+   */
+  void replay(int chunkSize, Consumer<List<PendingDevicePropertyValue>> consumer) {
+    try {
+      if (Files.notExists(replayFile)) {
+        lock.lock();
+        try {
+          if (Files.notExists(file)) {
+            return;
+          }
+          Files.move(file, replayFile, ATOMIC_MOVE);
+        } finally {
+          lock.unlock();
+        }
+      }
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(replayFile)))) {
+        List<PendingDevicePropertyValue> chunk = new ArrayList<>(chunkSize);
+        PendingDevicePropertyValue value;
+        while ((value = read(in)) != null) {
+          chunk.add(value);
+          if (chunk.size() >= chunkSize) {
+            consumer.accept(chunk);
+            chunk = new ArrayList<>(chunkSize);
+          }
+        }
+        if (!chunk.isEmpty()) {
+          consumer.accept(chunk);
+        }
+      }
+      Files.delete(replayFile);
+    } catch (IOException e) {
+      throw new UncheckedIOException("failed to replay spilled device property values from " + replayFile, e);
+    }
+  }
+
+  private void write(DataOutputStream out, PendingDevicePropertyValue value) throws IOException {
+    DeviceId deviceId = value.devicePropertyId().deviceId();
+    out.writeUTF(deviceId.id());
+    out.writeUTF(deviceTypeMapper.map(deviceId.type()));
+    out.writeUTF(value.devicePropertyId().id());
+    out.writeUTF(value.type());
+    out.writeBoolean(value.value() != null);
+    if (value.value() != null) {
+      out.writeUTF(value.value());
+    }
+    out.writeUTF(value.timestamp().toString());
+  }
+
+  private PendingDevicePropertyValue read(DataInputStream in) throws IOException {
+    String deviceId;
+    try {
+      deviceId = in.readUTF();
+    } catch (EOFException e) {
+      return null;
+    }
+    String deviceType = in.readUTF();
+    String devicePropertyId = in.readUTF();
+    String type = in.readUTF();
+    String value = in.readBoolean() ? in.readUTF() : null;
+    OffsetDateTime timestamp = OffsetDateTime.parse(in.readUTF());
+    return new PendingDevicePropertyValue(new DevicePropertyId(new DeviceId(deviceId, deviceTypeMapper.map(deviceType)), devicePropertyId), type, value, timestamp);
+  }
+}
@@ -18,22 +18,34 @@ package io.github.davemeier82.homeautomation.spring.core.pushnotification;
 
 import io.github.davemeier82.homeautomation.core.event.DevicePropertyEvent;
 import io.github.davemeier82.homeautomation.core.notification.EventPushNotificationSender;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.coalescing.PushNotificationCoalescer;
 import org.springframework.context.event.EventListener;
 
 
 public class SpringEventPushNotificationSenderAdapter {
 
   private final EventPushNotificationSender eventPushNotificationSender;
+  private final PushNotificationCoalescer pushNotificationCoalescer;
 
   public SpringEventPushNotificationSenderAdapter(EventPushNotificationSender eventPushNotificationSender) {
+    this(eventPushNotificationSender, null);
+  }
+
+  public SpringEventPushNotificationSenderAdapter(EventPushNotificationSender eventPushNotificationSender, PushNotificationCoalescer pushNotificationCoalescer) {
     this.eventPushNotificationSender = eventPushNotificationSender;
+    this.pushNotificationCoalescer = pushNotificationCoalescer;
   }
 
 
   @EventListener
   public void handleEvent(DevicePropertyEvent<?> event) {
-    if (event.hasPreviousValue()) {
+    if (!event.hasPreviousValue()) {
+      return;
+    }
+    if (pushNotificationCoalescer == null) {
       eventPushNotificationSender.sendNotifications(event);
+    } else {
+      pushNotificationCoalescer.sendFor(event.getDevicePropertyId(), () -> eventPushNotificationSender.sendNotifications(event));
     }
   }
 
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.pushnotification.coalescing;
+
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.notification.PushNotificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Merges push notifications of the same device property that are sent to the same service within a sliding window. The device property is the one
+ * passed to {@link #sendFor(DevicePropertyId, Runnable)}; notifications sent outside of it are merged by their title instead. The first notification is sent immediately and opens the window, further notifications are collected and sent as one digest when the window ends.
+ * The window is extended as long as notifications keep arriving. A notification that repeats the most recent message of the window is dropped, a message
+ * that returns after another one is kept, so the digest ends with the current state.
+ */
+public class PushNotificationCoalescer implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(PushNotificationCoalescer.class);
+  private final long windowNanos;
+  private final int maxDigestLines;
+  private final Map<WindowKey, Window> windows = new ConcurrentHashMap<>();
+  private final ThreadLocal<DevicePropertyId> currentDevicePropertyId = new ThreadLocal<>();
+  private final AtomicLong sentCount = new AtomicLong();
+  private final AtomicLong suppressedCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+  private final AtomicLong digestCount = new AtomicLong();
+  private volatile boolean running;
+  private ScheduledExecutorService scheduler;
+
+  public PushNotificationCoalescer(PushNotificationCoalescingConfiguration configuration) {
+    windowNanos = configuration.window().toNanos();
+    maxDigestLines = Math.max(1, configuration.maxDigestLines());
+  }
+
+  public PushNotificationService wrap(PushNotificationService delegate) {
+    return new CoalescingPushNotificationService(delegate);
+  }
+
+  /**
+   * Runs {@code send} on the calling thread and merges the notifications it sends by the given device property.
+   */
+  public void sendFor(DevicePropertyId devicePropertyId, Runnable send) {
+    DevicePropertyId previous = currentDevicePropertyId.get();
+    currentDevicePropertyId.set(devicePropertyId);
+    try {
+      send.run();
+    } finally {
+      if (previous == null) {
+        currentDevicePropertyId.remove();
+      } else {
+        currentDevicePropertyId.set(previous);
+      }
+    }
+  }
+
+  public long getSentCount() {
+    return sentCount.get();
+  }
+
+  public long getSuppressedCount() {
+    return suppressedCount.get();
+  }
+
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  public long getDigestCount() {
+    return digestCount.get();
+  }
+
+  public int getOpenWindowCount() {
+    return windows.size();
+  }
+
+  @Override
+  public void start() {
+    scheduler = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform().name("push-notification-coalescer").daemon().factory());
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    scheduler.shutdownNow();
+    // nothing collected must get lost, so the open windows are closed right away
+    windows.keySet().forEach(this::close);
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void send(WindowKey key, String title, String message) {
+    if (!running) {
+      key.delegate().sendTextMessageToServiceWithId(key.serviceId(), title, message);
+      return;
+    }
+    boolean[] open = new boolean[1];
+    windows.compute(key, (k, window) -> {
+      if (window == null) {
+        open[0] = true;
+        scheduler.schedule(() -> close(k), windowNanos, NANOSECONDS);
+        return new Window(title, message);
+      }
+      String mostRecent = window.pending.isEmpty() ? window.lastMessage : window.pending.getLast();
+      if (Objects.equals(message, mostRecent)) {
+        suppressedCount.incrementAndGet();
+      } else {
+        window.pending.add(message);
+        window.title = title;
+        coalescedCount.incrementAndGet();
+      }
+      return window;
+    });
+    if (open[0]) {
+      sentCount.incrementAndGet();
+      key.delegate().sendTextMessageToServiceWithId(key.serviceId(), title, message);
+    }
+  }
+
+  private void close(WindowKey key) {
+    List<String> digest = new ArrayList<>();
+    String[] title = new String[1];
+    windows.computeIfPresent(key, (k, window) -> {
+      if (window.pending.isEmpty()) {
+        return null;
+      }
+      digest.addAll(window.pending);
+      title[0] = window.title;
+      window.pending.clear();
+      window.lastMessage = digest.get(digest.size() - 1);
+      if (running) {
+        scheduler.schedule(() -> close(k), windowNanos, NANOSECONDS);
+        return window;
+      }
+      return null;
+    });
+    if (!digest.isEmpty()) {
+      sentCount.incrementAndGet();
+      digestCount.incrementAndGet();
+      try {
+        key.delegate().sendTextMessageToServiceWithId(key.serviceId(), title[0], digestMessage(digest));
+      } catch (RuntimeException e) {
+        log.error("failed to send digest of {} push notifications to {}", digest.size(), key.serviceId(), e);
+      }
+    }
+  }
+
+  private String digestMessage(List<String> messages) {
+    if (messages.size() == 1) {
+      return messages.get(0);
+    }
+    List<String> lines = new ArrayList<>(messages.subList(Math.max(0, messages.size() - maxDigestLines), messages.size()));
+    if (messages.size() > maxDigestLines) {
+      lines.add(0, "(+" + (messages.size() - maxDigestLines) + ")");
+    }
+    return String.join("\n", lines);
+  }
+
+  /**
+   * Either the device property or, for notifications that are not sent for a device property, the title identifies the window.
+   */
+  private record WindowKey(PushNotificationService delegate, String serviceId, DevicePropertyId devicePropertyId, String title) {
+  }
+
+  private static class Window {
+    private final List<String> pending = new ArrayList<>();
+    private String title;
+    private String lastMessage;
+
+    private Window(String title, String lastMessage) {
+      this.title = title;
+      this.lastMessage = lastMessage;
+    }
+  }
+
+  private class CoalescingPushNotificationService implements PushNotificationService {
+
+    private final PushNotificationService delegate;
+
+    private CoalescingPushNotificationService(PushNotificationService delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Set<String> getServiceIds() {
+      return delegate.getServiceIds();
+    }
+
+    @Override
+    public void sendTextMessageToAllServices(String title, String message) {
+      delegate.getServiceIds().forEach(serviceId -> sendTextMessageToServiceWithId(serviceId, title, message));
+    }
+
+    @Override
+    public void sendTextMessageToServiceWithId(String serviceId, String title, String message) {
+      DevicePropertyId devicePropertyId = currentDevicePropertyId.get();
+      WindowKey key = devicePropertyId == null ? new WindowKey(delegate, serviceId, null, title) : new WindowKey(delegate, serviceId, devicePropertyId, null);
+      send(key, title, message);
+    }
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "homeautomation.spring-core.notification.push.delivery")
+public record PushNotificationDeliveryConfiguration(boolean enabled,
+                                                    @DefaultValue("4") int workers,
+                                                    @DefaultValue("5") int maxAttempts,
+                                                    @DefaultValue("PT5S") Duration initialBackoff,
+                                                    @DefaultValue("PT10M") Duration maxBackoff,
+                                                    @DefaultValue("PT5M") Duration lease,
+                                                    Map<String, RateLimitConfiguration> rateLimit
+) {
+
+  private static final Map<String, RateLimitConfiguration> DEFAULT_RATE_LIMITS = Map.of(
+      "pushover", new RateLimitConfiguration(2, 10),
+      "pushbullet", new RateLimitConfiguration(1, 5)
+  );
+
+  public RateLimitConfiguration rateLimitOf(String providerId) {
+    if (rateLimit != null && rateLimit.containsKey(providerId)) {
+      return rateLimit.get(providerId);
+    }
+    return DEFAULT_RATE_LIMITS.getOrDefault(providerId, new RateLimitConfiguration(1, 5));
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.PushNotificationOutboxEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaPushNotificationOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toMap;
+
+/**
+ * Delivers push notifications on a bounded pool of worker threads instead of the thread that published the event.
+ * Every notification is written to the {@code push_notification_outbox} table first and removed once it was delivered, so notifications that are
+ * still pending at shutdown are sent after the restart. Each provider is limited by its own token bucket and failed deliveries are retried
+ * with an exponential backoff. The lease of an entry is renewed before its delivery waits for the rate limit, so the entry is not claimed again
+ * while it is waiting. Errors of the outbox table are kept apart from errors of the transport: a delivered notification whose entry cannot be
+ * removed is not sent again, its removal is retried instead.
+ */
+public class PushNotificationDispatcher implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(PushNotificationDispatcher.class);
+  private static final int POLL_BATCH_SIZE = 100;
+  private final JpaPushNotificationOutboxRepository outboxRepository;
+  private final TransactionTemplate requiresNewTransactionTemplate;
+  private final ObjectProvider<PushNotificationTransport> transportProvider;
+  private final PushNotificationDeliveryConfiguration configuration;
+  private final Map<String, TokenBucket> rateLimiters = new ConcurrentHashMap<>();
+  private final AtomicLong deliveredCount = new AtomicLong();
+  private final AtomicLong retriedCount = new AtomicLong();
+  private final AtomicLong failedCount = new AtomicLong();
+  private volatile Map<String, PushNotificationTransport> transports;
+  private volatile boolean running;
+  private ScheduledThreadPoolExecutor executor;
+
+  public PushNotificationDispatcher(JpaPushNotificationOutboxRepository outboxRepository,
+                                    TransactionTemplate requiresNewTransactionTemplate,
+                                    ObjectProvider<PushNotificationTransport> transportProvider,
+                                    PushNotificationDeliveryConfiguration configuration
+  ) {
+    this.outboxRepository = outboxRepository;
+    this.requiresNewTransactionTemplate = requiresNewTransactionTemplate;
+    this.transportProvider = transportProvider;
+    this.configuration = configuration;
+  }
+
+  private static boolean isRetryable(RuntimeException e) {
+    if (e instanceof RestClientResponseException responseException) {
+      int status = responseException.getStatusCode().value();
+      return status == 429 || status >= 500;
+    }
+    return !(e instanceof IllegalArgumentException);
+  }
+
+  private static Duration retryAfter(RuntimeException e) {
+    if (e instanceof RestClientResponseException responseException && responseException.getResponseHeaders() != null) {
+      String retryAfter = responseException.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+      if (retryAfter != null && retryAfter.chars().allMatch(Character::isDigit)) {
+        return Duration.ofSeconds(Long.parseLong(retryAfter));
+      }
+    }
+    return Duration.ZERO;
+  }
+
+  /**
+   * Stores the notification in the outbox, in its own transaction, and schedules its delivery.
+   */
+  public void submit(String providerId, String serviceId, String title, String message) {
+    OffsetDateTime now = OffsetDateTime.now();
+    PushNotificationOutboxEntity entity = requiresNewTransactionTemplate.execute(status -> outboxRepository.save(
+        new PushNotificationOutboxEntity(providerId, serviceId, title, message, now, now.plus(configuration.lease()))));
+    if (running) {
+      Delivery delivery = new Delivery(entity.getId(), providerId, serviceId, title, message, 0);
+      executor.execute(() -> attempt(delivery));
+    }
+  }
+
+  /**
+   * Schedules the outbox entries that are due, i.e. retries and entries whose delivery was interrupted by a shutdown or crash.
+   */
+  @Scheduled(fixedDelayString = "${homeautomation.spring-core.notification.push.delivery.poll-interval:PT10S}")
+  public void resubmitDue() {
+    if (!running) {
+      return;
+    }
+    OffsetDateTime now = OffsetDateTime.now();
+    for (PushNotificationOutboxEntity entity : outboxRepository.findByNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(now, Limit.of(POLL_BATCH_SIZE))) {
+      if (outboxRepository.claim(entity.getId(), now, now.plus(configuration.lease())) == 1) {
+        Delivery delivery = new Delivery(entity.getId(), entity.getProviderId(), entity.getServiceId(), entity.getTitle(), entity.getMessage(), entity.getAttempts());
+        executor.execute(() -> attempt(delivery));
+      }
+    }
+  }
+
+  public int getQueueSize() {
+    return executor == null ? 0 : executor.getQueue().size();
+  }
+
+  public long getDeliveredCount() {
+    return deliveredCount.get();
+  }
+
+  public long getRetriedCount() {
+    return retriedCount.get();
+  }
+
+  public long getFailedCount() {
+    return failedCount.get();
+  }
+
+  @Override
+  public void start() {
+    executor = new ScheduledThreadPoolExecutor(configuration.workers(), Thread.ofPlatform().name("push-notification-delivery-", 0).daemon().factory());
+    executor.setRemoveOnCancelPolicy(true);
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void attempt(Delivery delivery) {
+    if (!running) {
+      // stays in the outbox and is resubmitted once the lease expired
+      return;
+    }
+    PushNotificationTransport transport = transports().get(delivery.providerId());
+    if (transport == null) {
+      log.error("no push notification transport for provider {}, dropping notification {}", delivery.providerId(), delivery.id());
+      failedCount.incrementAndGet();
+      remove(delivery, 0);
+      return;
+    }
+    long waitNanos = rateLimiters.computeIfAbsent(delivery.providerId(), id -> new TokenBucket(configuration.rateLimitOf(id))).reserve();
+    if (waitNanos > 0) {
+      renewLease(delivery, Duration.ofNanos(waitNanos));
+      executor.schedule(() -> deliver(delivery, transport), waitNanos, NANOSECONDS);
+    } else {
+      deliver(delivery, transport);
+    }
+  }
+
+  private void deliver(Delivery delivery, PushNotificationTransport transport) {
+    if (!running) {
+      return;
+    }
+    try {
+      transport.deliver(delivery.serviceId(), delivery.title(), delivery.message());
+    } catch (RuntimeException e) {
+      int attempts = delivery.attempts() + 1;
+      if (attempts >= configuration.maxAttempts() || !isRetryable(e)) {
+        log.error("failed to deliver push notification {} to {} of {} after {} attempts", delivery.id(), delivery.serviceId(), delivery.providerId(), attempts, e);
+        failedCount.incrementAndGet();
+        remove(delivery, 0);
+      } else {
+        Duration backoff = backoff(attempts, e);
+        log.warn("failed to deliver push notification {} to {} of {}, retrying in {}: {}", delivery.id(), delivery.serviceId(), delivery.providerId(), backoff, e.getMessage());
+        retriedCount.incrementAndGet();
+        try {
+          outboxRepository.reschedule(delivery.id(), attempts, OffsetDateTime.now().plus(backoff), e.getMessage());
+        } catch (RuntimeException rescheduleException) {
+          // the entry keeps its lease and is resubmitted once the lease expired
+          log.error("failed to reschedule push notification {}", delivery.id(), rescheduleException);
+        }
+      }
+      return;
+    }
+    deliveredCount.incrementAndGet();
+    remove(delivery, 0);
+  }
+
+  private void remove(Delivery delivery, int failedRemovals) {
+    try {
+      outboxRepository.deleteById(delivery.id());
+    } catch (RuntimeException e) {
+      if (!running || failedRemovals + 1 >= configuration.maxAttempts()) {
+        log.error("failed to remove push notification {} from the outbox, it is sent again once its lease expired", delivery.id(), e);
+        return;
+      }
+      Duration backoff = backoff(failedRemovals + 1, e);
+      log.warn("failed to remove push notification {} from the outbox, retrying in {}: {}", delivery.id(), backoff, e.getMessage());
+      executor.schedule(() -> remove(delivery, failedRemovals + 1), backoff.toNanos(), NANOSECONDS);
+    }
+  }
+
+  private void renewLease(Delivery delivery, Duration wait) {
+    try {
+      outboxRepository.renewLease(delivery.id(), OffsetDateTime.now().plus(wait).plus(configuration.lease()));
+    } catch (RuntimeException e) {
+      log.warn("failed to renew the lease of push notification {}: {}", delivery.id(), e.getMessage());
+    }
+  }
+
+  private Duration backoff(int attempts, RuntimeException e) {
+    Duration backoff = configuration.initialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+    if (backoff.compareTo(configuration.maxBackoff()) > 0) {
+      backoff = configuration.maxBackoff();
+    }
+    Duration retryAfter = retryAfter(e);
+    return retryAfter.compareTo(backoff) > 0 ? retryAfter : backoff;
+  }
+
+  private Map<String, PushNotificationTransport> transports() {
+    Map<String, PushNotificationTransport> current = transports;
+    if (current == null) {
+      current = transportProvider.orderedStream().collect(toMap(PushNotificationTransport::getProviderId, Function.identity()));
+      transports = current;
+    }
+    return current;
+  }
+
+  private record Delivery(UUID id, String providerId, String serviceId, String title, String message, int attempts) {
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery;
+
+import java.util.function.LongSupplier;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Rate limits the deliveries of one provider. A caller always gets a token, but a token that is not yet available is reserved and the caller has to
+ * wait until its reservation is due. Reservations are handed out in the order of the calls, so waiting deliveries cannot be overtaken by later ones.
+ */
+class TokenBucket {
+
+  private final double permitsPerNano;
+  private final double capacity;
+  private final LongSupplier nanoTime;
+  private double tokens;
+  private long lastRefill;
+
+  TokenBucket(RateLimitConfiguration configuration) {
+    this(configuration, System::nanoTime);
+  }
+
+  TokenBucket(RateLimitConfiguration configuration, LongSupplier nanoTime) {
+    permitsPerNano = configuration.permitsPerSecond() / SECONDS.toNanos(1);
+    capacity = Math.max(1, configuration.burst());
+    this.nanoTime = nanoTime;
+    tokens = capacity;
+    lastRefill = nanoTime.getAsLong();
+  }
+
+  /**
+   * Takes the next token, reserving it if none is available.
+   *
+   * @return 0 if a token was available, otherwise the nanoseconds until the reserved token is due
+   */
+  synchronized long reserve() {
+    long now = nanoTime.getAsLong();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+    lastRefill = now;
+    tokens -= 1;
+    if (tokens >= 0) {
+      return 0;
+    }
+    return Math.max(1, (long) Math.ceil(-tokens / permitsPerNano));
+  }
+}
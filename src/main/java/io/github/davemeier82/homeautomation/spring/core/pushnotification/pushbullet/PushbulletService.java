@@ -17,6 +17,8 @@
 package io.github.davemeier82.homeautomation.spring.core.pushnotification.pushbullet;
 
 import io.github.davemeier82.homeautomation.core.notification.PushNotificationService;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery.PushNotificationDispatcher;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery.PushNotificationTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.client.RestClient;
@@ -28,18 +30,30 @@ import static java.util.stream.Collectors.toMap;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 
-public class PushbulletService implements PushNotificationService {
+public class PushbulletService implements PushNotificationService, PushNotificationTransport {
 
+  public static final String PROVIDER_ID = "pushbullet";
   private static final Logger log = LoggerFactory.getLogger(PushbulletService.class);
   private static final String PUSHBULLET_URI = "https://api.pushbullet.com/v2/pushes";
   private final RestClient restClient;
   private final Map<String, String> serviceIdToToken;
+  private final PushNotificationDispatcher dispatcher;
 
   public PushbulletService(RestClient restClient, PushbulletConfiguration configuration) {
+    this(restClient, configuration, null);
+  }
+
+  public PushbulletService(RestClient restClient, PushbulletConfiguration configuration, PushNotificationDispatcher dispatcher) {
     this.restClient = restClient;
+    this.dispatcher = dispatcher;
     serviceIdToToken = configuration.credentials().stream().collect(toMap(PushbulletCredential::id, PushbulletCredential::token));
   }
 
+  @Override
+  public String getProviderId() {
+    return PROVIDER_ID;
+  }
+
   @Override
   public Set<String> getServiceIds() {
     return serviceIdToToken.keySet();
@@ -47,15 +61,24 @@ public class PushbulletService implements PushNotificationService {
 
   @Override
   public void sendTextMessageToAllServices(String title, String message) {
-    serviceIdToToken.values().forEach(token -> sendTextMessage(token, title, message));
+    serviceIdToToken.keySet().forEach(serviceId -> sendTextMessageToServiceWithId(serviceId, title, message));
   }
 
   @Override
   public void sendTextMessageToServiceWithId(String serviceId, String title, String message) {
-    sendTextMessage(serviceIdToToken.get(serviceId), title, message);
+    if (dispatcher != null) {
+      dispatcher.submit(PROVIDER_ID, serviceId, title, message);
+    } else {
+      deliver(serviceId, title, message);
+    }
   }
 
-  private void sendTextMessage(String token, String title, String message) {
+  @Override
+  public void deliver(String serviceId, String title, String message) {
+    String token = serviceIdToToken.get(serviceId);
+    if (token == null) {
+      throw new IllegalArgumentException("unknown pushbullet service id " + serviceId);
+    }
     String body = restClient.post()
                             .uri(PUSHBULLET_URI)
                             .header("Access-Token", token)
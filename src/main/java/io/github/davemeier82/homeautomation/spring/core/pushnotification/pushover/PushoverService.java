@@ -17,6 +17,8 @@
 package io.github.davemeier82.homeautomation.spring.core.pushnotification.pushover;
 
 import io.github.davemeier82.homeautomation.core.notification.PushNotificationService;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery.PushNotificationDispatcher;
+import io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery.PushNotificationTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.client.RestClient;
@@ -29,18 +31,30 @@ import java.util.function.Function;
 
 import static java.util.stream.Collectors.toMap;
 
-public class PushoverService implements PushNotificationService {
+public class PushoverService implements PushNotificationService, PushNotificationTransport {
+  public static final String PROVIDER_ID = "pushover";
   private static final Logger log = LoggerFactory.getLogger(PushoverService.class);
   private static final URI PUSHOVER_URI = URI.create("https://api.pushover.net/1/messages.json");
   private final RestClient restClient;
   private final Map<String, PushoverCredential> idToProperties;
+  private final PushNotificationDispatcher dispatcher;
 
 
   public PushoverService(RestClient restClient, PushoverConfiguration configuration) {
+    this(restClient, configuration, null);
+  }
+
+  public PushoverService(RestClient restClient, PushoverConfiguration configuration, PushNotificationDispatcher dispatcher) {
     this.restClient = restClient;
+    this.dispatcher = dispatcher;
     idToProperties = configuration.credentials().stream().collect(toMap(PushoverCredential::id, Function.identity()));
   }
 
+  @Override
+  public String getProviderId() {
+    return PROVIDER_ID;
+  }
+
   @Override
   public Set<String> getServiceIds() {
     return idToProperties.keySet();
@@ -48,17 +62,24 @@ public class PushoverService implements PushNotificationService {
 
   @Override
   public void sendTextMessageToAllServices(String title, String message) {
-    idToProperties.values().forEach(p -> sendTextMessage(p, title, message));
+    idToProperties.keySet().forEach(serviceId -> sendTextMessageToServiceWithId(serviceId, title, message));
   }
 
   @Override
   public void sendTextMessageToServiceWithId(String serviceId, String title, String message) {
-    sendTextMessage(idToProperties.get(serviceId), title, message);
-
-
+    if (dispatcher != null) {
+      dispatcher.submit(PROVIDER_ID, serviceId, title, message);
+    } else {
+      deliver(serviceId, title, message);
+    }
   }
 
-  private void sendTextMessage(PushoverCredential credential, String title, String message) {
+  @Override
+  public void deliver(String serviceId, String title, String message) {
+    PushoverCredential credential = idToProperties.get(serviceId);
+    if (credential == null) {
+      throw new IllegalArgumentException("unknown pushover service id " + serviceId);
+    }
     URI uri = UriComponentsBuilder.newInstance().uri(PUSHOVER_URI)
                                   .queryParam("token", credential.token())
                                   .queryParam("user", credential.user())
@@ -0,0 +1,13 @@
+delete
+from device_property_value d
+where exists (select 1
+              from device_property_value o
+              where o.device_property_id = d.device_property_id
+                and o.type = d.type
+                and o.timestamp = d.timestamp
+                and o.id < d.id);
+
+create unique index device_property_value_device_property_id_type_timestamp_uindex
+    on device_property_value (device_property_id, type, timestamp);
+
+drop index if exists device_property_value_device_property_id_type_index;
@@ -0,0 +1,32 @@
+create table if not exists device_property_latest_value
+(
+    device_property_id uuid      not null
+        constraint device_property_latest_value_device_property_id_fk references device_property on delete cascade,
+    type               varchar   not null,
+    "value"            text,
+    timestamp          timestamp not null,
+    constraint device_property_latest_value_pk primary key (device_property_id, type)
+);
+
+insert into device_property_latest_value (device_property_id, type, "value", timestamp)
+select distinct on (device_property_id, type) device_property_id, type, "value", timestamp
+from device_property_value
+order by device_property_id, type, timestamp desc, id;
+
+drop view if exists latest_device_property_value;
+create view latest_device_property_value
+            (device_id, device_type, device_display_name, device_property_id, device_property_type,
+             device_property_display_name, "value", device_property_value_type, timestamp)
+as
+SELECT d.device_id,
+       d.device_type,
+       d.display_name                                AS device_display_name,
+       COALESCE(dp.device_property_id, 'null')       AS device_property_id,
+       dp.type                                       AS device_property_type,
+       dp.display_name                               AS device_property_display_name,
+       dplv."value"                                  AS "value",
+       COALESCE(dplv.type, 'null')                   AS device_property_value_type,
+       dplv.timestamp                                AS timestamp
+FROM device_property_latest_value dplv
+         RIGHT JOIN device_property dp ON dp.id = dplv.device_property_id
+         RIGHT JOIN device d ON dp.device_id = d.id;
@@ -0,0 +1,5 @@
+alter table device_property_value
+    add column if not exists numeric_value double precision;
+
+alter table device_property_value
+    add column if not exists boolean_value boolean;
@@ -0,0 +1,25 @@
+create table if not exists device_property_value_rollup
+(
+    device_property_id uuid             not null
+        constraint device_property_value_rollup_device_property_id_fk references device_property on delete cascade,
+    type               varchar          not null,
+    resolution         varchar          not null,
+    bucket_start       timestamp        not null,
+    min_value          double precision not null,
+    max_value          double precision not null,
+    sum_value          double precision not null,
+    sample_count       bigint           not null,
+    last_value         double precision,
+    last_timestamp     timestamp        not null,
+    constraint device_property_value_rollup_pk primary key (device_property_id, type, resolution, bucket_start)
+);
+
+create index device_property_value_rollup_resolution_bucket_start_index
+    on device_property_value_rollup (resolution, bucket_start);
+
+create table if not exists device_property_value_rollup_watermark
+(
+    resolution      varchar   not null
+        constraint device_property_value_rollup_watermark_pk primary key,
+    rolled_up_until timestamp not null
+);
@@ -0,0 +1,16 @@
+create table if not exists push_notification_outbox
+(
+    id              uuid      not null
+        constraint push_notification_outbox_pk primary key,
+    provider_id     text      not null,
+    service_id      text      not null,
+    title           text,
+    message         text,
+    attempts        integer   not null,
+    next_attempt_at timestamp not null,
+    created_at      timestamp not null,
+    last_error      text
+);
+
+create index push_notification_outbox_next_attempt_at_index
+    on push_notification_outbox (next_attempt_at);
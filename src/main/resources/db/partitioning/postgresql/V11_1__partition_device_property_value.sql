@@ -0,0 +1,33 @@
+alter table device_property_value rename to device_property_value_legacy;
+alter table device_property_value_legacy rename constraint device_property_value_pk to device_property_value_legacy_pk;
+alter table device_property_value_legacy rename constraint device_property_value_device_property_id_fk to device_property_value_legacy_device_property_id_fk;
+alter index device_property_value_device_property_id_type_timestamp_uindex rename to device_property_value_legacy_device_property_id_type_timestamp_uindex;
+alter index device_property_value_timestamp_index rename to device_property_value_legacy_timestamp_index;
+alter index device_property_value_type_index rename to device_property_value_legacy_type_index;
+
+create table device_property_value (like device_property_value_legacy including defaults) partition by range (timestamp);
+
+alter table device_property_value
+    add constraint device_property_value_pk primary key (id, timestamp);
+alter table device_property_value
+    add constraint device_property_value_device_property_id_fk foreign key (device_property_id) references device_property on delete cascade;
+
+create unique index device_property_value_device_property_id_type_timestamp_uindex
+    on device_property_value (device_property_id, type, timestamp);
+
+create index device_property_value_timestamp_index
+    on device_property_value (timestamp);
+
+create index device_property_value_type_index
+    on device_property_value (type desc);
+
+-- the existing values become one partition that is dropped as a whole once all of its values expired
+do
+$$
+    begin
+        execute format('alter table device_property_value attach partition device_property_value_legacy for values from (minvalue) to (%L)',
+                       date_trunc('day', localtimestamp) + interval '1 day');
+    end
+$$;
+
+create table device_property_value_default partition of device_property_value default;
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.DevicePropertyValueRetention;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpringDataDevicePropertyValueRepositoryHousekeeperTest {
+
+  @Test
+  void deletesInChunksUntilAChunkIsNotFull() {
+    FakeRetention retention = new FakeRetention(8);
+    SpringDataDevicePropertyValueRepositoryHousekeeper housekeeper = new SpringDataDevicePropertyValueRepositoryHousekeeper(retention, Duration.ofDays(30), 3,
+        Duration.ZERO, Duration.ofMinutes(1));
+
+    housekeeper.deleteOldValues();
+
+    assertThat(retention.limits).containsExactly(3, 3, 3);
+    assertThat(retention.remaining).isZero();
+    assertThat(housekeeper.getLastRunDeletedCount()).isEqualTo(8);
+    assertThat(housekeeper.getChunkCount()).isEqualTo(3);
+  }
+
+  @Test
+  void deletesAllTheValuesBeforeTheSameTimestamp() {
+    FakeRetention retention = new FakeRetention(7);
+    SpringDataDevicePropertyValueRepositoryHousekeeper housekeeper = new SpringDataDevicePropertyValueRepositoryHousekeeper(retention, Duration.ofDays(30), 3,
+        Duration.ZERO, Duration.ofMinutes(1));
+
+    housekeeper.deleteOldValues();
+
+    assertThat(retention.timestamps).hasSize(3).containsOnly(retention.timestamps.getFirst());
+    assertThat(retention.timestamps.getFirst()).isBefore(OffsetDateTime.now().minusDays(29));
+  }
+
+  @Test
+  void stopsAfterMaxDuration() {
+    FakeRetention retention = new FakeRetention(10);
+    SpringDataDevicePropertyValueRepositoryHousekeeper housekeeper = new SpringDataDevicePropertyValueRepositoryHousekeeper(retention, Duration.ofDays(30), 3,
+        Duration.ZERO, Duration.ZERO);
+
+    housekeeper.deleteOldValues();
+
+    assertThat(retention.limits).containsExactly(3);
+    assertThat(retention.remaining).isEqualTo(7);
+    assertThat(housekeeper.getDeletedCount()).isEqualTo(3);
+  }
+
+  private static class FakeRetention implements DevicePropertyValueRetention {
+
+    final List<Integer> limits = new ArrayList<>();
+    final List<OffsetDateTime> timestamps = new ArrayList<>();
+    int remaining;
+
+    FakeRetention(int remaining) {
+      this.remaining = remaining;
+    }
+
+    @Override
+    public int deleteBefore(OffsetDateTime timestamp, int limit) {
+      limits.add(limit);
+      timestamps.add(timestamp);
+      int deleted = Math.min(limit, remaining);
+      remaining -= deleted;
+      return deleted;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.event;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.event.DataWithTimestamp;
+import io.github.davemeier82.homeautomation.core.event.DevicePropertyEvent;
+import io.github.davemeier82.homeautomation.core.event.defaults.DefaultDimmingLevelChangedEvent;
+import io.github.davemeier82.homeautomation.core.event.defaults.DefaultRelayStateChangedEvent;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.PayloadApplicationEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrioritizedApplicationEventMulticasterTest {
+
+  final DevicePropertyId devicePropertyId = new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "1");
+
+  @Test
+  void handsHighPriorityEventsToListenerFirst() throws InterruptedException {
+    PrioritizedApplicationEventMulticaster multicaster = multicaster(100, EventOrdering.NONE);
+    RecordingListener listener = new RecordingListener(5);
+    multicaster.addApplicationListener(listener);
+
+    publish(multicaster, dimmingLevel(devicePropertyId, 0));
+    assertThat(listener.started.await(5, SECONDS)).isTrue();
+    publish(multicaster, dimmingLevel(devicePropertyId, 1));
+    publish(multicaster, dimmingLevel(devicePropertyId, 2));
+    publish(multicaster, relayState(devicePropertyId, true));
+    publish(multicaster, relayState(devicePropertyId, false));
+    listener.release.countDown();
+
+    assertThat(listener.done.await(5, SECONDS)).isTrue();
+    assertThat(listener.received).containsExactly("DimmingLevel 0", "RelayState true", "RelayState false", "DimmingLevel 1", "DimmingLevel 2");
+    assertThat(multicaster.getDispatchedCount(EventPriority.HIGH)).isEqualTo(2);
+    assertThat(multicaster.getDispatchedCount(EventPriority.NORMAL)).isEqualTo(3);
+  }
+
+  @Test
+  void keepsPublicationOrderOfDeviceWithDeviceOrdering() throws InterruptedException {
+    PrioritizedApplicationEventMulticaster multicaster = multicaster(100, EventOrdering.DEVICE);
+    RecordingListener listener = new RecordingListener(3);
+    multicaster.addApplicationListener(listener);
+
+    publish(multicaster, dimmingLevel(devicePropertyId, 0));
+    assertThat(listener.started.await(5, SECONDS)).isTrue();
+    publish(multicaster, dimmingLevel(devicePropertyId, 1));
+    publish(multicaster, relayState(devicePropertyId, true));
+    listener.release.countDown();
+
+    assertThat(listener.done.await(5, SECONDS)).isTrue();
+    assertThat(listener.received).containsExactly("DimmingLevel 0", "DimmingLevel 1", "RelayState true");
+  }
+
+  @Test
+  void keepsOrderOfDevicePropertyWhenQueueIsFull() throws InterruptedException {
+    PrioritizedApplicationEventMulticaster multicaster = new PrioritizedApplicationEventMulticaster(
+        new EventMulticasterConfiguration(4, 2, EventOrdering.DEVICE_PROPERTY, Map.of(), List.of("RelayState")));
+    List<DevicePropertyId> devicePropertyIds = List.of(devicePropertyId, new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "2"),
+        new DevicePropertyId(new DeviceId("bbb", TestDeviceType.TEST), "1"));
+    OrderRecordingListener listener = new OrderRecordingListener(300);
+    multicaster.addApplicationListener(listener);
+
+    for (int i = 0; i < 100; i++) {
+      for (DevicePropertyId id : devicePropertyIds) {
+        publish(multicaster, dimmingLevel(id, i));
+      }
+    }
+
+    assertThat(listener.done.await(10, SECONDS)).isTrue();
+    assertThat(multicaster.getCallerRunsCount()).isZero();
+    for (DevicePropertyId id : devicePropertyIds) {
+      assertThat(listener.received.get(id)).as("values of %s", id).isSorted().hasSize(100);
+    }
+  }
+
+  private PrioritizedApplicationEventMulticaster multicaster(int queueCapacity, EventOrdering ordering) {
+    return new PrioritizedApplicationEventMulticaster(new EventMulticasterConfiguration(queueCapacity, 1, ordering, Map.of(), List.of("RelayState")));
+  }
+
+  private static void publish(PrioritizedApplicationEventMulticaster multicaster, DevicePropertyEvent<?> event) {
+    multicaster.multicastEvent(new PayloadApplicationEvent<>(multicaster, event), null);
+  }
+
+  private static DevicePropertyEvent<?> dimmingLevel(DevicePropertyId devicePropertyId, int value) {
+    return new DefaultDimmingLevelChangedEvent(devicePropertyId, "abc", new DataWithTimestamp<>(value), new DataWithTimestamp<>(value));
+  }
+
+  private static DevicePropertyEvent<?> relayState(DevicePropertyId devicePropertyId, boolean value) {
+    return new DefaultRelayStateChangedEvent(devicePropertyId, "abc", new DataWithTimestamp<>(value), new DataWithTimestamp<>(value));
+  }
+
+  static class OrderRecordingListener implements ApplicationListener<ApplicationEvent> {
+
+    final Map<DevicePropertyId, List<Integer>> received = new ConcurrentHashMap<>();
+    final CountDownLatch done;
+
+    OrderRecordingListener(int expectedEvents) {
+      done = new CountDownLatch(expectedEvents);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+      DevicePropertyEvent<?> devicePropertyEvent = (DevicePropertyEvent<?>) ((PayloadApplicationEvent<?>) event).getPayload();
+      // a lane handles one event at a time, the list of a device property is never written concurrently
+      received.computeIfAbsent(devicePropertyEvent.getDevicePropertyId(), id -> new ArrayList<>()).add((Integer) devicePropertyEvent.getNewValue());
+      Thread.yield();
+      done.countDown();
+    }
+  }
+
+  static class RecordingListener implements ApplicationListener<ApplicationEvent> {
+
+    final List<String> received = new CopyOnWriteArrayList<>();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CountDownLatch done;
+
+    RecordingListener(int expectedEvents) {
+      done = new CountDownLatch(expectedEvents);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+      DevicePropertyEvent<?> devicePropertyEvent = (DevicePropertyEvent<?>) ((PayloadApplicationEvent<?>) event).getPayload();
+      received.add(devicePropertyEvent.getValueType().getTypeName() + " " + devicePropertyEvent.getNewValue());
+      started.countDown();
+      try {
+        release.await(5, SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      done.countDown();
+    }
+  }
+}
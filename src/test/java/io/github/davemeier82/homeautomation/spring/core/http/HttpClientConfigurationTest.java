@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.http;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "homeautomation.spring-core.http-client.read-timeout=PT0.5S")
+@ActiveProfiles(profiles = {"it"})
+@TestPropertySource(locations = {"classpath:application-it.yml"})
+class HttpClientConfigurationTest {
+
+  final List<Integer> clientPorts = new CopyOnWriteArrayList<>();
+  @Autowired
+  RestClient restClient;
+  HttpServer server;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/ok", exchange -> {
+      clientPorts.add(exchange.getRemoteAddress().getPort());
+      byte[] body = "ok".getBytes(UTF_8);
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream outputStream = exchange.getResponseBody()) {
+        outputStream.write(body);
+      }
+    });
+    server.createContext("/slow", exchange -> {
+      try {
+        Thread.sleep(2000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.sendResponseHeaders(204, -1);
+      exchange.close();
+    });
+    server.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  void reusesPooledConnection() {
+    String first = restClient.get().uri(uri("/ok")).retrieve().body(String.class);
+    String second = restClient.get().uri(uri("/ok")).retrieve().body(String.class);
+
+    assertThat(first).isEqualTo("ok");
+    assertThat(second).isEqualTo("ok");
+    assertThat(clientPorts).hasSize(2);
+    assertThat(clientPorts.get(1)).isEqualTo(clientPorts.get(0));
+  }
+
+  @Test
+  void failsWhenResponseTakesLongerThanReadTimeout() {
+    assertThatThrownBy(() -> restClient.get().uri(uri("/slow")).retrieve().toBodilessEntity()).isInstanceOf(RestClientException.class);
+  }
+
+  private String uri(String path) {
+    return "http://localhost:" + server.getAddress().getPort() + path;
+  }
+}
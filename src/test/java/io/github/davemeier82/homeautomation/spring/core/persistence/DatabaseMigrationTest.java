@@ -0,0 +1,55 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DatabaseMigrationTest {
+
+  // the same settings as the datasource of the it profile
+  private static final String URL = "jdbc:h2:mem:migration;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+  private static final List<String> MIGRATIONS = List.of("V10__add_device_property_value_unique_index.sql",
+      "V11__create_device_property_latest_value_table.sql",
+      "V12__add_typed_device_property_value_columns.sql",
+      "V13__create_device_property_value_rollup_tables.sql",
+      "V14__create_push_notification_outbox_table.sql");
+
+  @Test
+  void migrationsRunOnH2() {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(URL, "sa", "password");
+    ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema-before-v10.sql"));
+    MIGRATIONS.forEach(migration -> populator.addScript(new ClassPathResource("db/migration/" + migration)));
+
+    populator.execute(dataSource);
+
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    assertThat(jdbcTemplate.queryForObject("select count(*) from device_property_value", Integer.class)).isEqualTo(2);
+    assertThat(jdbcTemplate.queryForList("select \"value\" from device_property_latest_value", String.class)).containsExactly("21.0");
+    assertThat(jdbcTemplate.queryForList("select \"value\" from latest_device_property_value where device_property_id = '1'", String.class)).containsExactly("21.0");
+    assertThat(jdbcTemplate.queryForObject("select count(*) from device_property_value_rollup_watermark", Integer.class)).isZero();
+    assertThat(jdbcTemplate.queryForObject("select count(*) from push_notification_outbox", Integer.class)).isZero();
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.cache;
+
+import io.github.davemeier82.homeautomation.core.device.Device;
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceParameterEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.DeviceParameterId;
+import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DeviceEntityMapper;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDeviceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.github.davemeier82.homeautomation.spring.core.TestDeviceType.TEST;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeviceRegistryTest {
+
+  final JpaDeviceRepository jpaDeviceRepository = mock(JpaDeviceRepository.class);
+  final DeviceEntityMapper deviceEntityMapper = mock(DeviceEntityMapper.class);
+  final DeviceTypeMapper deviceTypeMapper = mock(DeviceTypeMapper.class);
+  DeviceRegistry registry;
+
+  private static DeviceEntity device(String deviceId, String displayName, String parameterValue) {
+    DeviceEntity entity = new DeviceEntity("test", deviceId, displayName);
+    entity.addDeviceParameter(new DeviceParameterEntity(new DeviceParameterId(null, "param"), parameterValue));
+    return entity;
+  }
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    when(deviceTypeMapper.map("test")).thenReturn(TEST);
+    when(deviceTypeMapper.map(TEST)).thenReturn("test");
+    when(deviceEntityMapper.createDevice(any(), anyString(), anyString(), anyMap(), anyMap())).thenAnswer(invocation -> mock(Device.class));
+    TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+    registry = new DeviceRegistry(jpaDeviceRepository, deviceEntityMapper, deviceTypeMapper, transactionTemplate);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void returnsNewDeviceForEveryLookup() {
+    when(jpaDeviceRepository.findAllWithParametersAndCustomIdentifiers()).thenReturn(List.of(device("aaa", "Device A", "1")));
+    registry.load();
+
+    Device first = registry.find(new DeviceId("aaa", TEST)).orElseThrow();
+    Device second = registry.find(new DeviceId("aaa", TEST)).orElseThrow();
+    Device fromAll = registry.getDevices().iterator().next();
+    Device fromType = registry.getDevicesByType("test").iterator().next();
+
+    assertThat(first).isNotSameAs(second).isNotSameAs(fromAll).isNotSameAs(fromType);
+    assertThat(fromAll).isNotSameAs(fromType);
+    assertThat(registry.getHitCount()).isEqualTo(2);
+    assertThat(registry.getMissCount()).isZero();
+  }
+
+  @Test
+  void reloadReplacesTheDevices() {
+    when(jpaDeviceRepository.findAllWithParametersAndCustomIdentifiers()).thenReturn(List.of(device("aaa", "Device A", "1")),
+        List.of(device("bbb", "Device B", "2")));
+    registry.load();
+    registry.load();
+
+    assertThat(registry.size()).isEqualTo(1);
+    assertThat(registry.getAllParameters()).isEqualTo(Map.of(new DeviceId("bbb", TEST), Map.of("param", "2")));
+    assertThat(registry.find(new DeviceId("aaa", TEST))).isEmpty();
+    assertThat(registry.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  void skipsDevicesThatCannotBeCreated() {
+    when(deviceEntityMapper.createDevice(any(), eq("bbb"), anyString(), anyMap(), anyMap())).thenThrow(new IllegalStateException("no factory"));
+    when(jpaDeviceRepository.findAllWithParametersAndCustomIdentifiers()).thenReturn(List.of(device("aaa", "Device A", "1"), device("bbb", "Device B", "2")));
+    registry.load();
+
+    assertThat(registry.size()).isEqualTo(1);
+    assertThat(registry.getAllParameters()).containsOnlyKeys(new DeviceId("aaa", TEST));
+  }
+
+  @Test
+  void appliesPutAfterCommit() {
+    when(jpaDeviceRepository.findAllWithParametersAndCustomIdentifiers()).thenReturn(List.of(device("aaa", "Device A", "1")));
+    registry.load();
+    TransactionSynchronizationManager.initSynchronization();
+
+    registry.put(device("aaa", "Renamed", "3"));
+
+    assertThat(registry.getAllParameters()).isEqualTo(Map.of(new DeviceId("aaa", TEST), Map.of("param", "1")));
+    TransactionSynchronizationUtils.triggerAfterCommit();
+    assertThat(registry.getAllParameters()).isEqualTo(Map.of(new DeviceId("aaa", TEST), Map.of("param", "3")));
+    registry.find(new DeviceId("aaa", TEST));
+    verify(deviceEntityMapper).createDevice(TEST, "aaa", "Renamed", Map.of("param", "3"), Map.of());
+  }
+
+  @Test
+  void ignoresPutOnRollback() {
+    when(jpaDeviceRepository.findAllWithParametersAndCustomIdentifiers()).thenReturn(List.of());
+    registry.load();
+    TransactionSynchronizationManager.initSynchronization();
+
+    registry.put(device("aaa", "Device A", "1"));
+    TransactionSynchronizationUtils.triggerAfterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    assertThat(registry.size()).isZero();
+  }
+
+  @Test
+  void appliesRemoveAfterCommit() {
+    when(jpaDeviceRepository.findAllWithParametersAndCustomIdentifiers()).thenReturn(List.of(device("aaa", "Device A", "1")));
+    registry.load();
+    TransactionSynchronizationManager.initSynchronization();
+
+    registry.remove(new DeviceId("aaa", TEST));
+
+    assertThat(registry.size()).isEqualTo(1);
+    TransactionSynchronizationUtils.triggerAfterCommit();
+    assertThat(registry.size()).isZero();
+    assertThat(registry.getDevices()).isEmpty();
+  }
+
+  @Test
+  void dropsChangesBeforeTheFirstLoad() {
+    registry.put(device("aaa", "Device A", "1"));
+
+    assertThat(registry.isLoaded()).isFalse();
+    assertThat(registry.size()).isZero();
+  }
+
+  @Test
+  void addsMissedDeviceAfterItIsRead() {
+    when(jpaDeviceRepository.findAllWithParametersAndCustomIdentifiers()).thenReturn(List.of());
+    when(jpaDeviceRepository.findByDeviceIdAndDeviceType("aaa", "test")).thenReturn(Optional.of(device("aaa", "Device A", "1")));
+    registry.load();
+
+    assertThat(registry.find(new DeviceId("aaa", TEST))).isPresent();
+    assertThat(registry.find(new DeviceId("aaa", TEST))).isPresent();
+
+    assertThat(registry.getMissCount()).isEqualTo(1);
+    assertThat(registry.getHitCount()).isEqualTo(1);
+    verify(jpaDeviceRepository, times(1)).findByDeviceIdAndDeviceType("aaa", "test");
+  }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.cache;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.event.DataWithTimestamp;
+import io.github.davemeier82.homeautomation.core.event.DevicePropertyEvent;
+import io.github.davemeier82.homeautomation.core.event.defaults.DefaultDimmingLevelChangedEvent;
+import io.github.davemeier82.homeautomation.core.event.defaults.DefaultRelayStateChangedEvent;
+import io.github.davemeier82.homeautomation.core.event.defaults.DefaultRelayStateUpdatedEvent;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.EventPushNotificationConfigEntityMapper;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDevicePropertyRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaEventPushNotificationConfigRepository;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.SpringDataEventPushNotificationConfigRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@ActiveProfiles(profiles = {"it"})
+@TestPropertySource(locations = {"classpath:application-it.yml"})
+class EventPushNotificationConfigIndexTest {
+
+  @Autowired
+  JpaEventPushNotificationConfigRepository jpaEventPushNotificationConfigRepository;
+  @Autowired
+  JpaDevicePropertyRepository jpaDevicePropertyRepository;
+  @Autowired
+  EventPushNotificationConfigEntityMapper mapper;
+  @Autowired
+  DevicePropertyIdCache devicePropertyIdCache;
+  @Autowired
+  DeviceTypeMapper deviceTypeMapper;
+
+  EventPushNotificationConfigIndex index;
+  SpringDataEventPushNotificationConfigRepository queryBasedRepository;
+
+  @BeforeEach
+  void setUp() {
+    index = new EventPushNotificationConfigIndex(jpaEventPushNotificationConfigRepository, mapper, devicePropertyIdCache, deviceTypeMapper);
+    queryBasedRepository = new SpringDataEventPushNotificationConfigRepository(jpaEventPushNotificationConfigRepository, jpaDevicePropertyRepository, mapper,
+        deviceTypeMapper);
+  }
+
+  @Test
+  @Sql({"/add-test-device-type.sql", "/add-push-notification-config-combinations.sql"})
+  void matchesLikeTheQueryForAllWildcardCombinations() {
+    index.refresh();
+
+    for (DevicePropertyEvent<?> event : events()) {
+      assertThat(index.findAllByEvent(event))
+          .as("%s of %s", event.getClass().getSimpleName(), event.getDevicePropertyId())
+          .isEqualTo(queryBasedRepository.findAllByEvent(event));
+    }
+  }
+
+  @Test
+  @Sql({"/add-test-device-type.sql", "/add-push-notification-config-combinations.sql"})
+  void looksUpUnknownDevicePropertyOnlyOnce() {
+    index.refresh();
+    DevicePropertyId unknown = new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "unknown");
+    DefaultRelayStateChangedEvent event = new DefaultRelayStateChangedEvent(unknown, "abc", new DataWithTimestamp<>(true), new DataWithTimestamp<>(false));
+
+    assertThat(index.findAllByEvent(event)).isEmpty();
+    long missCount = devicePropertyIdCache.getMissCount();
+    assertThat(index.findAllByEvent(event)).isEmpty();
+
+    assertThat(devicePropertyIdCache.getMissCount()).isEqualTo(missCount);
+  }
+
+  @Test
+  @Sql({"/add-test-device-type.sql", "/add-push-notification-config-combinations.sql"})
+  void looksUpUnknownDevicePropertyAgainAfterInvalidation() {
+    index.refresh();
+    DevicePropertyId unknown = new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "unknown");
+    DefaultRelayStateChangedEvent event = new DefaultRelayStateChangedEvent(unknown, "abc", new DataWithTimestamp<>(true), new DataWithTimestamp<>(false));
+
+    assertThat(index.findAllByEvent(event)).isEmpty();
+    long missCount = devicePropertyIdCache.getMissCount();
+    devicePropertyIdCache.invalidate(unknown);
+    assertThat(index.findAllByEvent(event)).isEmpty();
+
+    assertThat(devicePropertyIdCache.getMissCount()).isEqualTo(missCount + 1);
+  }
+
+  private static List<DevicePropertyEvent<?>> events() {
+    List<DevicePropertyEvent<?>> events = new ArrayList<>();
+    for (String deviceId : List.of("aaa", "bbb", "ccc")) {
+      for (String devicePropertyId : List.of("1", "2", "3")) {
+        DevicePropertyId id = new DevicePropertyId(new DeviceId(deviceId, TestDeviceType.TEST), devicePropertyId);
+        events.add(new DefaultRelayStateChangedEvent(id, "abc", new DataWithTimestamp<>(true), new DataWithTimestamp<>(false)));
+        events.add(new DefaultRelayStateChangedEvent(id, "abc", new DataWithTimestamp<>(false), new DataWithTimestamp<>(true)));
+        events.add(new DefaultRelayStateUpdatedEvent(id, "abc", new DataWithTimestamp<>(true), new DataWithTimestamp<>(false)));
+        events.add(new DefaultDimmingLevelChangedEvent(id, "abc", new DataWithTimestamp<>(100), new DataWithTimestamp<>(50)));
+      }
+    }
+    return events;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.mapper;
+
+import io.github.davemeier82.homeautomation.core.device.property.DefaultDevicePropertyValueType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class DevicePropertyValueCodecTest {
+
+  private static List<Object> samples(Class<?> clazz) {
+    if (clazz.isEnum()) {
+      return Arrays.asList(clazz.getEnumConstants());
+    } else if (clazz.equals(Boolean.class)) {
+      return List.of(true, false);
+    } else if (clazz.equals(String.class)) {
+      return List.of("", "abc", "with ; separator");
+    } else if (clazz.equals(Long.class)) {
+      return List.of(0L, -1L, Long.MAX_VALUE);
+    } else if (clazz.equals(Integer.class)) {
+      return List.of(0, -1, Integer.MAX_VALUE);
+    } else if (clazz.equals(Short.class)) {
+      return List.of((short) 0, Short.MIN_VALUE);
+    } else if (clazz.equals(Byte.class)) {
+      return List.of((byte) 0, Byte.MAX_VALUE);
+    } else if (clazz.equals(Float.class)) {
+      return List.of(0f, -12.5f, 21.3f);
+    } else if (clazz.equals(Double.class)) {
+      return List.of(0d, -12.5d, 1013.25d);
+    }
+    return List.of();
+  }
+
+  @Test
+  void decodesEncodedValueOfEveryValueType() {
+    for (DefaultDevicePropertyValueType valueType : DefaultDevicePropertyValueType.values()) {
+      Class<?> clazz = valueType.getClazz();
+      DevicePropertyValueCodec<?> codec = DevicePropertyValueCodec.of(clazz);
+      for (Object value : samples(clazz)) {
+        String text = DevicePropertyValueEntityMapper.valueToString(value);
+
+        assertThat(codec.decode(text)).as("%s of %s", value, valueType.getTypeName()).isEqualTo(value);
+        if (value instanceof Number number) {
+          assertThat(codec.numericValue(text)).as("numeric value of %s", valueType.getTypeName()).isCloseTo(number.doubleValue(), within(1e-6));
+        } else {
+          assertThat(codec.numericValue(text)).isNull();
+        }
+        assertThat(codec.booleanValue(text)).isEqualTo(value instanceof Boolean ? value : null);
+      }
+    }
+  }
+
+  @Test
+  void decodesWithValueOfOfOtherClasses() {
+    DevicePropertyValueCodec<java.sql.Date> codec = DevicePropertyValueCodec.of(java.sql.Date.class);
+
+    assertThat(codec.decode("2024-01-02")).isEqualTo(java.sql.Date.valueOf("2024-01-02"));
+  }
+
+  @Test
+  void returnsNullForUnknownEnumConstant() {
+    DevicePropertyValueCodec<Thread.State> codec = DevicePropertyValueCodec.of(Thread.State.class);
+
+    assertThat(codec.decode("SLEEPING")).isNull();
+    assertThat(codec.decode(null)).isNull();
+  }
+
+  @Test
+  void returnsSameCodecForSameClass() {
+    assertThat(DevicePropertyValueCodec.of(Integer.class)).isSameAs(DevicePropertyValueCodec.of(Integer.class));
+  }
+}
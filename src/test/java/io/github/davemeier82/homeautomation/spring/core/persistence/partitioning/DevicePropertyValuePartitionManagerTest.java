@@ -0,0 +1,168 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.partitioning;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DevicePropertyValuePartitionManagerTest {
+
+  private static final String TABLE_NAME = "device_property_value";
+  // the values are stored in the JVM time zone, the zone of the clock must not matter
+  private static final Clock CLOCK = Clock.fixed(LocalDateTime.of(2024, 3, 10, 12, 0).atZone(ZoneId.systemDefault()).toInstant(), ZoneOffset.UTC);
+  private static final String[] LEGACY = {"device_property_value_legacy", "FOR VALUES FROM (MINVALUE) TO ('2024-03-11 00:00:00')"};
+  private static final String[] EXPIRED = {"device_property_value_p20240201", "FOR VALUES FROM ('2024-02-01 00:00:00') TO ('2024-02-02 00:00:00')"};
+  private static final String[] DEFAULT = {"device_property_value_default", "DEFAULT"};
+  private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+  private final DevicePropertyValuePartitionManager manager = new DevicePropertyValuePartitionManager(jdbcTemplate,
+      new PartitioningConfiguration(true, PartitionInterval.DAY, 2), Duration.ofDays(30), CLOCK);
+
+  @SuppressWarnings("unchecked")
+  private static Answer<List<Object>> partitions(String[]... rows) {
+    return invocation -> {
+      RowMapper<Object> rowMapper = invocation.getArgument(1);
+      List<Object> partitions = new ArrayList<>();
+      for (String[] row : rows) {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getString(1)).thenReturn(row[0]);
+        when(resultSet.getString(2)).thenReturn(row[1]);
+        partitions.add(rowMapper.mapRow(resultSet, partitions.size()));
+      }
+      return partitions;
+    };
+  }
+
+  @Test
+  void movesValuesOfTheDefaultPartitionIntoNewPartitions() {
+    givenPartitions(LEGACY, DEFAULT);
+
+    manager.maintainPartitions();
+
+    List<String> statements = executedStatements();
+    assertThat(statements).hasSize(2);
+    assertThat(statements.get(0)).contains("create table \"device_property_value_p20240311\" (like device_property_value including defaults);",
+        "delete from \"device_property_value_default\" where timestamp >= '2024-03-11 00:00:00' and timestamp < '2024-03-12 00:00:00'",
+        "insert into \"device_property_value_p20240311\" select * from moved;",
+        "alter table device_property_value attach partition \"device_property_value_p20240311\" for values from ('2024-03-11 00:00:00') to ('2024-03-12 00:00:00');");
+    assertThat(statements.get(1)).contains("create table \"device_property_value_p20240312\"",
+        "for values from ('2024-03-12 00:00:00') to ('2024-03-13 00:00:00')");
+  }
+
+  @Test
+  void createsPartitionsWithoutMovingValuesIfThereIsNoDefaultPartition() {
+    givenPartitions(LEGACY);
+
+    manager.maintainPartitions();
+
+    assertThat(executedStatements()).hasSize(2).noneMatch(statement -> statement.contains("delete from"));
+  }
+
+  @Test
+  void continuesAfterTheLastPartition() {
+    givenPartitions(LEGACY, DEFAULT, new String[]{"device_property_value_p20240311", "FOR VALUES FROM ('2024-03-11 00:00:00') TO ('2024-03-12 00:00:00')"});
+
+    manager.maintainPartitions();
+
+    assertThat(executedStatements()).singleElement().asString().contains("create table \"device_property_value_p20240312\"");
+  }
+
+  @Test
+  void detachesExpiredPartitionsConcurrentlyBeforeDroppingThem() {
+    givenPartitions(EXPIRED, LEGACY);
+
+    manager.maintainPartitions();
+
+    assertThat(executedStatements()).endsWith("alter table device_property_value detach partition \"device_property_value_p20240201\" concurrently",
+        "drop table \"device_property_value_p20240201\"");
+  }
+
+  @Test
+  void detachesExpiredPartitionsWithoutConcurrentlyIfThereIsADefaultPartition() {
+    givenPartitions(EXPIRED, LEGACY, DEFAULT);
+
+    manager.maintainPartitions();
+
+    assertThat(executedStatements()).endsWith("alter table device_property_value detach partition \"device_property_value_p20240201\"",
+        "drop table \"device_property_value_p20240201\"");
+  }
+
+  @Test
+  void deletesExpiredValuesOfTheDefaultPartition() {
+    givenPartitions(EXPIRED, LEGACY, DEFAULT);
+
+    manager.maintainPartitions();
+
+    verify(jdbcTemplate).update("delete from \"device_property_value_default\" where timestamp < '2024-02-09 12:00:00'");
+  }
+
+  @Test
+  void deletesNothingIfThereIsNoDefaultPartition() {
+    givenPartitions(EXPIRED, LEGACY);
+
+    manager.maintainPartitions();
+
+    verify(jdbcTemplate, never()).update(anyString());
+  }
+
+  @Test
+  void failsIfAPartitionCannotBeCreated() {
+    givenPartitions(LEGACY, DEFAULT);
+    doThrow(new DataIntegrityViolationException("check constraint violated")).when(jdbcTemplate).execute(contains("create table"));
+
+    assertThatThrownBy(manager::maintainPartitions).isInstanceOf(IllegalStateException.class)
+                                                   .hasMessageContaining("device_property_value_p20240311");
+  }
+
+  @SuppressWarnings("unchecked")
+  private void givenPartitions(String[]... rows) {
+    when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), eq(TABLE_NAME))).thenReturn(true);
+    when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq(TABLE_NAME))).thenAnswer(partitions(rows));
+  }
+
+  private List<String> executedStatements() {
+    ArgumentCaptor<String> statements = ArgumentCaptor.forClass(String.class);
+    verify(jdbcTemplate, atLeastOnce()).execute(statements.capture());
+    return statements.getAllValues();
+  }
+}
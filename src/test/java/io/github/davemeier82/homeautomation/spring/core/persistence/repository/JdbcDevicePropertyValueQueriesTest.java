@@ -0,0 +1,104 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static io.github.davemeier82.homeautomation.core.device.property.DefaultDevicePropertyValueType.RELAY_STATE;
+import static io.github.davemeier82.homeautomation.core.device.property.DefaultDevicePropertyValueType.TEMPERATURE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the JDBC queries against the same rows as the Spring Data queries, both have to return the same values.
+ */
+@SpringBootTest
+@Transactional
+@ActiveProfiles(profiles = {"it"})
+@TestPropertySource(locations = {"classpath:application-it.yml"})
+class JdbcDevicePropertyValueQueriesTest {
+
+  private static final UUID DEVICE_PROPERTY_ROW_ID = UUID.fromString("4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6");
+  private static final OffsetDateTime START = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+  final DevicePropertyId devicePropertyId = new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "1");
+  @Autowired
+  SpringDataDevicePropertyValueRepository repository;
+  @Autowired
+  JpaDevicePropertyValueRepository jpaDevicePropertyValueRepository;
+  @Autowired
+  DataSource dataSource;
+
+  private static Optional<Instant> instant(Optional<OffsetDateTime> timestamp) {
+    return timestamp.map(OffsetDateTime::toInstant);
+  }
+
+  private static List<Map.Entry<String, Instant>> values(List<TimestampedValueRow> rows) {
+    return rows.stream().map(row -> Map.entry(row.value(), row.timestamp().toInstant())).toList();
+  }
+
+  @Test
+  @Sql("/add-test-device-type.sql")
+  void returnsSameValuesAsSpringDataQueries() {
+    for (int i = 0; i < 10; i++) {
+      repository.insert(devicePropertyId, RELAY_STATE, "abc", i % 3 == 0, START.plusSeconds(i));
+      repository.insert(devicePropertyId, TEMPERATURE, "abc", i * 10.0, START.plusSeconds(i));
+    }
+    DevicePropertyValueQueries jdbc = new JdbcDevicePropertyValueQueries(new NamedParameterJdbcTemplate(dataSource));
+    DevicePropertyValueQueries springData = new SpringDataDevicePropertyValueQueries(jpaDevicePropertyValueRepository);
+    String relayState = RELAY_STATE.getTypeName();
+    String temperature = TEMPERATURE.getTypeName();
+
+    assertThat(instant(jdbc.findLastTimestampByBooleanValue(DEVICE_PROPERTY_ROW_ID, relayState, true)))
+        .isEqualTo(instant(springData.findLastTimestampByBooleanValue(DEVICE_PROPERTY_ROW_ID, relayState, true)))
+        .contains(START.plusSeconds(9).toInstant());
+    assertThat(instant(jdbc.findLastTimestampByNumericValue(DEVICE_PROPERTY_ROW_ID, temperature, 50)))
+        .isEqualTo(instant(springData.findLastTimestampByNumericValue(DEVICE_PROPERTY_ROW_ID, temperature, 50)))
+        .contains(START.plusSeconds(5).toInstant());
+    assertThat(instant(jdbc.findLastTimestampByValue(DEVICE_PROPERTY_ROW_ID, relayState, "false")))
+        .isEqualTo(instant(springData.findLastTimestampByValue(DEVICE_PROPERTY_ROW_ID, relayState, "false")))
+        .contains(START.plusSeconds(8).toInstant());
+    assertThat(jdbc.findLastTimestampByValue(DEVICE_PROPERTY_ROW_ID, relayState, "unknown")).isEmpty();
+
+    List<TimestampedValueRow> firstPage = jdbc.findFirstPage(DEVICE_PROPERTY_ROW_ID, relayState, START.plusSeconds(1), START.plusSeconds(9), 4);
+    assertThat(values(firstPage)).hasSize(4)
+                                 .isEqualTo(values(springData.findFirstPage(DEVICE_PROPERTY_ROW_ID, relayState, START.plusSeconds(1), START.plusSeconds(9), 4)));
+    OffsetDateTime after = firstPage.getLast().timestamp();
+    assertThat(values(jdbc.findNextPage(DEVICE_PROPERTY_ROW_ID, relayState, after, START.plusSeconds(9), 4))).hasSize(4)
+        .isEqualTo(values(springData.findNextPage(DEVICE_PROPERTY_ROW_ID, relayState, after, START.plusSeconds(9), 4)));
+
+    assertThat(jdbc.deleteChunkBefore(START.plusSeconds(5), 6)).isEqualTo(6);
+    assertThat(springData.deleteChunkBefore(START.plusSeconds(5), 6)).isEqualTo(4);
+    assertThat(jpaDevicePropertyValueRepository.count()).isEqualTo(10);
+  }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import io.github.davemeier82.homeautomation.spring.core.event.EventPipelineObserver;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DevicePropertyValueEntityMapper;
+import io.github.davemeier82.homeautomation.spring.core.persistence.writebehind.PendingDevicePropertyValue;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JdbcDevicePropertyValueWriterTest {
+
+  final DevicePropertyId devicePropertyId = new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "1");
+  final UUID devicePropertyRowId = UUID.fromString("4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6");
+  final UUID firstId = UUID.fromString("00000000-0000-7000-8000-000000000001");
+  final UUID secondId = UUID.fromString("00000000-0000-7000-8000-000000000002");
+  final OffsetDateTime time = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+  final NamedParameterJdbcTemplate jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+  final EventPipelineObserver observer = mock(EventPipelineObserver.class);
+
+  @Test
+  void resolvesRowsReportedWithoutCountByTheirId() {
+    when(jdbcTemplate.batchUpdate(eq(SqlDialect.GENERIC.insertDevicePropertyValueIfAbsent()), any(SqlParameterSource[].class)))
+        .thenReturn(new int[]{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+    when(jdbcTemplate.queryForList(anyString(), any(SqlParameterSource.class), eq(UUID.class))).thenReturn(List.of(secondId));
+
+    int inserted = writer().insertAll(List.of(value(time.minusSeconds(1)), value(time)));
+
+    assertThat(inserted).isEqualTo(1);
+    verify(observer).valuePersisted(time);
+    ArgumentCaptor<SqlParameterSource[]> latest = ArgumentCaptor.forClass(SqlParameterSource[].class);
+    verify(jdbcTemplate).batchUpdate(eq(SqlDialect.GENERIC.upsertLatestDevicePropertyValue().get(0)), latest.capture());
+    assertThat(latest.getValue()).singleElement().satisfies(row -> assertThat(row.getValue("value")).isEqualTo("true"));
+  }
+
+  @Test
+  void skipsDuplicatesReportedWithZeroCount() {
+    when(jdbcTemplate.batchUpdate(eq(SqlDialect.GENERIC.insertDevicePropertyValueIfAbsent()), any(SqlParameterSource[].class))).thenReturn(new int[]{0});
+
+    int inserted = writer().insertAll(List.of(value(time)));
+
+    assertThat(inserted).isZero();
+    verify(observer, never()).valuePersisted(any());
+  }
+
+  private JdbcDevicePropertyValueWriter writer() {
+    DevicePropertyIdCache devicePropertyIdCache = mock(DevicePropertyIdCache.class);
+    when(devicePropertyIdCache.find(devicePropertyId)).thenReturn(Optional.of(devicePropertyRowId));
+    Iterator<UUID> ids = List.of(firstId, secondId).iterator();
+    return new JdbcDevicePropertyValueWriter(jdbcTemplate, SqlDialect.GENERIC, devicePropertyIdCache, mock(DevicePropertyValueEntityMapper.class), observer, ids::next);
+  }
+
+  private PendingDevicePropertyValue value(OffsetDateTime timestamp) {
+    return new PendingDevicePropertyValue(devicePropertyId, "RelayState", String.valueOf(timestamp.equals(time)), timestamp);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static io.github.davemeier82.homeautomation.core.device.property.DefaultDevicePropertyValueType.RELAY_STATE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@ActiveProfiles(profiles = {"it"})
+@TestPropertySource(locations = {"classpath:application-it.yml"})
+class SpringDataDevicePropertyValueRepositoryTest {
+
+  private static final UUID DEVICE_PROPERTY_ROW_ID = UUID.fromString("4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6");
+  final DeviceId deviceId = new DeviceId("aaa", TestDeviceType.TEST);
+  @Autowired
+  SpringDataDevicePropertyValueRepository repository;
+  @Autowired
+  JpaDevicePropertyValueRepository jpaDevicePropertyValueRepository;
+  @Autowired
+  JpaDevicePropertyLatestValueRepository jpaDevicePropertyLatestValueRepository;
+  @Autowired
+  DataSource dataSource;
+
+  @Test
+  void returnsEmptyForUnknownDeviceProperty() {
+    DevicePropertyId devicePropertyId = new DevicePropertyId(deviceId, "1");
+
+    assertThat(repository.findLatestValue(devicePropertyId, RELAY_STATE, Boolean.class)).isEmpty();
+  }
+
+  @Test
+  @Sql("/add-test-device-type.sql")
+  void insertsValueOnlyOnceForSameTimestamp() {
+    DevicePropertyId devicePropertyId = new DevicePropertyId(deviceId, "1");
+    OffsetDateTime time = OffsetDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    repository.insert(devicePropertyId, RELAY_STATE, "abc", true, time);
+    repository.insert(devicePropertyId, RELAY_STATE, "abc", true, time);
+
+    assertThat(jpaDevicePropertyValueRepository.count()).isEqualTo(1);
+    assertThat(jpaDevicePropertyLatestValueRepository.count()).isEqualTo(1);
+    assertThat(repository.findLatestValue(devicePropertyId, RELAY_STATE, Boolean.class)).isPresent();
+    assertThat(repository.lastTimeValueMatched(devicePropertyId, RELAY_STATE, true)).isPresent();
+  }
+
+  @Test
+  @Sql("/add-test-device-type.sql")
+  void findsValuesOfTimeRange() {
+    DevicePropertyId devicePropertyId = new DevicePropertyId(deviceId, "1");
+    OffsetDateTime time = OffsetDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    repository.insert(devicePropertyId, RELAY_STATE, "abc", false, time.minusMinutes(2));
+    repository.insert(devicePropertyId, RELAY_STATE, "abc", true, time.minusMinutes(1));
+    repository.insert(devicePropertyId, RELAY_STATE, "abc", false, time);
+
+    assertThat(repository.findValues(devicePropertyId, RELAY_STATE, time.minusMinutes(2), time, Boolean.class)).hasSize(2);
+  }
+
+  @Test
+  @Sql("/add-test-device-type.sql")
+  void findsValuesAcrossPages() {
+    DevicePropertyId devicePropertyId = new DevicePropertyId(deviceId, "1");
+    OffsetDateTime start = OffsetDateTime.parse("2024-01-01T00:00:00Z");
+    int count = 1201;
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Timestamp timestamp = Timestamp.from(start.plusSeconds(i).toInstant());
+      rows.add(new Object[]{UUID.randomUUID(), DEVICE_PROPERTY_ROW_ID, RELAY_STATE.getTypeName(), String.valueOf(i % 2 == 0), timestamp});
+      // values of another type with the same timestamps must neither be returned nor shift the page boundaries
+      rows.add(new Object[]{UUID.randomUUID(), DEVICE_PROPERTY_ROW_ID, "DimmingLevel", String.valueOf(i % 100), timestamp});
+    }
+    new JdbcTemplate(dataSource).batchUpdate("insert into device_property_value (id, device_property_id, type, \"value\", timestamp) values (?, ?, ?, ?, ?)", rows);
+
+    assertThat(repository.findValues(devicePropertyId, RELAY_STATE, start, start.plusSeconds(count), Boolean.class)).hasSize(count);
+    assertThat(repository.findValues(devicePropertyId, RELAY_STATE, start.plusSeconds(1), start.plusSeconds(count), Boolean.class)).hasSize(count - 1);
+    assertThat(repository.findValues(devicePropertyId, RELAY_STATE, start, start.plusSeconds(500), Boolean.class)).hasSize(500);
+    assertThat(repository.findValues(devicePropertyId, RELAY_STATE, start, start.plusSeconds(1000), Boolean.class)).hasSize(1000);
+  }
+
+  @Test
+  @Sql("/add-test-device-type.sql")
+  void deletesValuesBeforeTimestampInChunks() {
+    DevicePropertyId devicePropertyId = new DevicePropertyId(deviceId, "1");
+    OffsetDateTime time = OffsetDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    for (int i = 1; i <= 5; i++) {
+      repository.insert(devicePropertyId, RELAY_STATE, "abc", i % 2 == 0, time.minusDays(i + 5));
+    }
+    repository.insert(devicePropertyId, RELAY_STATE, "abc", true, time);
+
+    assertThat(repository.deleteBefore(time.minusDays(1), 2)).isEqualTo(2);
+    assertThat(repository.deleteBefore(time.minusDays(1), 2)).isEqualTo(2);
+    assertThat(repository.deleteBefore(time.minusDays(1), 2)).isEqualTo(1);
+    assertThat(repository.deleteBefore(time.minusDays(1), 2)).isZero();
+    assertThat(jpaDevicePropertyValueRepository.count()).isEqualTo(1);
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.LatestDevicePropertyValueStore;
+import io.github.davemeier82.homeautomation.spring.core.persistence.mapper.DeviceEntityMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@ActiveProfiles(profiles = {"it"})
+@TestPropertySource(locations = {"classpath:application-it.yml"})
+class SpringDataDeviceRepositoryTest {
+
+  final DeviceId aaa = new DeviceId("aaa", TestDeviceType.TEST);
+  final DeviceId ccc = new DeviceId("ccc", TestDeviceType.TEST);
+  @Autowired
+  JpaDeviceRepository jpaDeviceRepository;
+  @Autowired
+  JpaCustomIdentifierRepository jpaCustomIdentifierRepository;
+  @Autowired
+  JpaDeviceParameterRepository jpaDeviceParameterRepository;
+  @Autowired
+  DeviceEntityMapper deviceEntityMapper;
+  @Autowired
+  DeviceTypeMapper deviceTypeMapper;
+  @Autowired
+  DevicePropertyIdCache devicePropertyIdCache;
+  @Autowired
+  LatestDevicePropertyValueStore latestDevicePropertyValueStore;
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  // without the registry every read goes to the database
+  SpringDataDeviceRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    repository = new SpringDataDeviceRepository(jpaDeviceRepository, jpaCustomIdentifierRepository, jpaDeviceParameterRepository, deviceEntityMapper,
+        deviceTypeMapper, devicePropertyIdCache, latestDevicePropertyValueStore, new TransactionTemplate(transactionManager));
+  }
+
+  @Test
+  void returnsEmptyMapsForEmptyDb() {
+    assertThat(repository.getAllCustomIdentifiers()).isEmpty();
+    assertThat(repository.getAllParameters()).isEmpty();
+  }
+
+  @Test
+  @Sql({"/add-test-device-type.sql", "/add-device-attributes.sql"})
+  void readsCustomIdentifiersByDevice() {
+    assertThat(repository.getAllCustomIdentifiers()).isEqualTo(Map.of(
+        aaa, Map.of("serial", "123", "mac", "aa:bb"),
+        ccc, Map.of("serial", "456")));
+  }
+
+  @Test
+  @Sql({"/add-test-device-type.sql", "/add-device-attributes.sql"})
+  void readsParametersByDevice() {
+    assertThat(repository.getAllParameters()).isEqualTo(Map.of(
+        aaa, Map.of("topic", "home/aaa"),
+        ccc, Map.of("topic", "home/ccc", "interval", "60")));
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimeOrderedUuidGeneratorTest {
+
+  final Clock clock = mock(Clock.class);
+  final TimeOrderedUuidGenerator generator = new TimeOrderedUuidGenerator(clock);
+
+  private static long millis(UUID uuid) {
+    return uuid.getMostSignificantBits() >>> 16;
+  }
+
+  private static long counter(UUID uuid) {
+    return uuid.getMostSignificantBits() & 0xFFFL;
+  }
+
+  private static void assertIncreasing(UUID previous, UUID next) {
+    assertThat(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits())).isPositive();
+  }
+
+  @Test
+  void setsVersionAndVariant() {
+    when(clock.millis()).thenReturn(1_700_000_000_000L);
+
+    for (int i = 0; i < 100; i++) {
+      UUID uuid = generator.get();
+      assertThat(uuid.version()).isEqualTo(7);
+      assertThat(uuid.variant()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void storesMillisInFirst48Bits() {
+    when(clock.millis()).thenReturn(0xFEDCBA987654L);
+
+    UUID uuid = generator.get();
+
+    assertThat(millis(uuid)).isEqualTo(0xFEDCBA987654L);
+    assertThat(counter(uuid)).isZero();
+    assertThat(uuid.toString()).startsWith("fedcba98-7654-7000-");
+  }
+
+  @Test
+  void countsWithinSameMillisecond() {
+    when(clock.millis()).thenReturn(1_000L);
+
+    UUID first = generator.get();
+    UUID second = generator.get();
+    UUID third = generator.get();
+
+    assertThat(millis(third)).isEqualTo(1_000L);
+    assertThat(counter(first)).isZero();
+    assertThat(counter(second)).isEqualTo(1);
+    assertThat(counter(third)).isEqualTo(2);
+    assertIncreasing(first, second);
+    assertIncreasing(second, third);
+  }
+
+  @Test
+  void carriesCounterIntoMillisWhenItRollsOver() {
+    when(clock.millis()).thenReturn(1_000L);
+
+    UUID previous = generator.get();
+    for (int i = 1; i < 4096; i++) {
+      UUID next = generator.get();
+      assertIncreasing(previous, next);
+      previous = next;
+    }
+    UUID rolledOver = generator.get();
+
+    assertThat(millis(previous)).isEqualTo(1_000L);
+    assertThat(counter(previous)).isEqualTo(0xFFFL);
+    assertThat(millis(rolledOver)).isEqualTo(1_001L);
+    assertThat(counter(rolledOver)).isZero();
+    assertIncreasing(previous, rolledOver);
+    assertThat(rolledOver.version()).isEqualTo(7);
+  }
+
+  @Test
+  void staysIncreasingWhenClockGoesBackwards() {
+    when(clock.millis()).thenReturn(1_000L, 900L, 1_001L);
+
+    UUID first = generator.get();
+    UUID afterBackwardsStep = generator.get();
+    UUID afterRecovery = generator.get();
+
+    assertThat(millis(afterBackwardsStep)).isEqualTo(1_000L);
+    assertThat(counter(afterBackwardsStep)).isEqualTo(1);
+    assertIncreasing(first, afterBackwardsStep);
+    assertThat(millis(afterRecovery)).isEqualTo(1_001L);
+    assertThat(counter(afterRecovery)).isZero();
+    assertIncreasing(afterBackwardsStep, afterRecovery);
+  }
+}
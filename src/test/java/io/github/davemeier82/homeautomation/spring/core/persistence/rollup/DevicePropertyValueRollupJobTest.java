@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.rollup;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import io.github.davemeier82.homeautomation.spring.core.persistence.cache.DevicePropertyIdCache;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaDevicePropertyValueRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static io.github.davemeier82.homeautomation.core.device.property.DefaultDevicePropertyValueType.TEMPERATURE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@ActiveProfiles(profiles = {"it"})
+@TestPropertySource(locations = {"classpath:application-it.yml"})
+@Sql("/add-test-device-type.sql")
+class DevicePropertyValueRollupJobTest {
+
+  private static final UUID DEVICE_PROPERTY_ROW_ID = UUID.fromString("4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6");
+  private static final Instant NOW = Instant.parse("2024-01-03T00:10:00Z");
+  private final DevicePropertyId devicePropertyId = new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "1");
+  private final RollupConfiguration configuration = new RollupConfiguration(true, Duration.ofMinutes(5), Duration.ofDays(90), Duration.ofDays(730), null, ZoneOffset.UTC);
+  @Autowired
+  DataSource dataSource;
+  @Autowired
+  PlatformTransactionManager transactionManager;
+  @Autowired
+  JpaDevicePropertyValueRollupRepository jpaDevicePropertyValueRollupRepository;
+  @Autowired
+  DevicePropertyIdCache devicePropertyIdCache;
+  JdbcTemplate jdbcTemplate;
+  DevicePropertyValueRollupRepository repository;
+
+  private static OffsetDateTime time(String timestamp) {
+    return OffsetDateTime.parse(timestamp);
+  }
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    repository = new DevicePropertyValueRollupRepository(jpaDevicePropertyValueRollupRepository, devicePropertyIdCache, configuration);
+    insert("2024-01-01T10:00:10Z", 10);
+    insert("2024-01-01T10:00:40Z", 20);
+    insert("2024-01-01T11:30:00Z", 30);
+    insert("2024-01-02T08:00:00Z", 40);
+  }
+
+  @Test
+  void rollsUpMinutesIntoHoursAndHoursIntoDays() {
+    rollUp();
+
+    assertThat(repository.findAggregates(devicePropertyId, TEMPERATURE, RollupResolution.MINUTE, time("2024-01-01T00:00:00Z"), time("2024-01-03T00:00:00Z")))
+        .extracting(DevicePropertyValueAggregate::average)
+        .containsExactly(15.0, 30.0, 40.0);
+    assertThat(repository.findAggregates(devicePropertyId, TEMPERATURE, RollupResolution.HOUR, time("2024-01-01T00:00:00Z"), time("2024-01-03T00:00:00Z")))
+        .extracting(DevicePropertyValueAggregate::average)
+        .containsExactly(15.0, 30.0, 40.0);
+    List<DevicePropertyValueAggregate> days = repository.findAggregates(devicePropertyId, TEMPERATURE, RollupResolution.DAY, time("2024-01-01T00:00:00Z"),
+        time("2024-01-03T00:00:00Z"));
+    assertThat(days).hasSize(2);
+    assertThat(days.getFirst().bucketStart().toInstant()).isEqualTo(Instant.parse("2024-01-01T00:00:00Z"));
+    assertThat(days.getFirst().min()).isEqualTo(10.0);
+    assertThat(days.getFirst().max()).isEqualTo(30.0);
+    assertThat(days.getFirst().average()).isEqualTo(20.0);
+    assertThat(days.getFirst().last()).isEqualTo(30.0);
+    assertThat(days.getFirst().count()).isEqualTo(3);
+    assertThat(days.get(1).average()).isEqualTo(40.0);
+  }
+
+  @Test
+  void continuesFromTheWatermark() {
+    rollUp();
+    insert("2024-01-03T00:20:00Z", 50);
+
+    new DevicePropertyValueRollupJob(jdbcTemplate, new TransactionTemplate(transactionManager), configuration, Clock.fixed(NOW.plus(Duration.ofHours(1)), ZoneOffset.UTC))
+        .rollUp();
+
+    assertThat(jdbcTemplate.queryForObject("select count(*) from device_property_value_rollup where resolution = 'MINUTE'", Integer.class)).isEqualTo(4);
+    assertThat(jdbcTemplate.queryForObject("select count(*) from device_property_value_rollup where resolution = 'HOUR'", Integer.class)).isEqualTo(4);
+  }
+
+  @Test
+  void fillsTheRangeAfterTheWatermarkWithFinerBuckets() {
+    rollUp();
+    insert("2024-01-03T00:07:00Z", 50);
+
+    List<DevicePropertyValueAggregate> aggregates = repository.findAggregates(devicePropertyId, TEMPERATURE, RollupResolution.DAY, time("2024-01-01T00:00:00Z"),
+        time("2024-01-04T00:00:00Z"));
+
+    assertThat(aggregates).extracting(DevicePropertyValueAggregate::resolution)
+                          .containsExactly(RollupResolution.DAY, RollupResolution.DAY, RollupResolution.MINUTE);
+    assertThat(aggregates.getLast().bucketStart().toInstant()).isEqualTo(Instant.parse("2024-01-03T00:07:00Z"));
+    assertThat(aggregates.getLast().last()).isEqualTo(50.0);
+  }
+
+  @Test
+  void returnsTheValuesAsMinuteBucketsBeforeTheFirstRollup() {
+    assertThat(repository.findAggregates(devicePropertyId, TEMPERATURE, RollupResolution.HOUR, time("2024-01-01T00:00:00Z"), time("2024-01-03T00:00:00Z")))
+        .extracting(DevicePropertyValueAggregate::count)
+        .containsExactly(2L, 1L, 1L);
+  }
+
+  private void rollUp() {
+    new DevicePropertyValueRollupJob(jdbcTemplate, new TransactionTemplate(transactionManager), configuration, Clock.fixed(NOW, ZoneOffset.UTC)).rollUp();
+  }
+
+  private void insert(String timestamp, double value) {
+    jdbcTemplate.update("insert into device_property_value (id, device_property_id, type, \"value\", numeric_value, timestamp) values (?, ?, ?, ?, ?, ?)",
+        UUID.randomUUID(), DEVICE_PROPERTY_ROW_ID, TEMPERATURE.getTypeName(), String.valueOf(value), value, Timestamp.from(Instant.parse(timestamp)));
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadReplicaRoutingDataSourceTest {
+
+  final DataSource primary = mock(DataSource.class);
+  final DataSource replicaDataSource = mock(DataSource.class);
+  final Connection primaryConnection = mock(Connection.class);
+  final Connection replicaConnection = mock(Connection.class);
+  ReadReplica readReplica;
+
+  private static void inTransaction(boolean readOnly) {
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+  }
+
+  private static Connection onReplica(DataSource dataSource) {
+    return ReadReplicaScope.onReplica(() -> {
+      try {
+        return dataSource.getConnection();
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+  }
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    when(primary.getConnection()).thenReturn(primaryConnection);
+    when(replicaDataSource.getConnection()).thenReturn(replicaConnection);
+    DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+    when(metaData.getDatabaseProductName()).thenReturn("H2");
+    when(replicaConnection.getMetaData()).thenReturn(metaData);
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.setActualTransactionActive(false);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+  }
+
+  private ReadReplicaRoutingDataSource routingDataSource(boolean replicaValid, boolean fallbackToPrimary) throws SQLException {
+    when(replicaConnection.isValid(anyInt())).thenReturn(replicaValid);
+    readReplica = new ReadReplica(replicaDataSource, Duration.ofSeconds(5), fallbackToPrimary);
+    readReplica.checkLag();
+    return new ReadReplicaRoutingDataSource(primary, readReplica);
+  }
+
+  @Test
+  void routesReadsInScopeToReplica() throws SQLException {
+    ReadReplicaRoutingDataSource dataSource = routingDataSource(true, true);
+
+    assertThat(onReplica(dataSource)).isSameAs(replicaConnection);
+    inTransaction(true);
+    assertThat(onReplica(dataSource)).isSameAs(replicaConnection);
+
+    assertThat(readReplica.isAvailable()).isTrue();
+    assertThat(readReplica.getReplicaConnectionCount()).isEqualTo(2);
+    assertThat(readReplica.getPrimaryConnectionCount()).isZero();
+  }
+
+  @Test
+  void keepsReadsOutsideOfScopeOnPrimary() throws SQLException {
+    ReadReplicaRoutingDataSource dataSource = routingDataSource(true, true);
+
+    assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+    inTransaction(true);
+    assertThat(dataSource.getConnection()).isSameAs(primaryConnection);
+
+    assertThat(readReplica.getReplicaConnectionCount()).isZero();
+  }
+
+  @Test
+  void keepsReadWriteTransactionInScopeOnPrimary() throws SQLException {
+    ReadReplicaRoutingDataSource dataSource = routingDataSource(true, true);
+    inTransaction(false);
+
+    assertThat(onReplica(dataSource)).isSameAs(primaryConnection);
+  }
+
+  @Test
+  void fallsBackToPrimaryWhileReplicaIsNotValid() throws SQLException {
+    ReadReplicaRoutingDataSource dataSource = routingDataSource(false, true);
+
+    assertThat(onReplica(dataSource)).isSameAs(primaryConnection);
+
+    assertThat(readReplica.isAvailable()).isFalse();
+    assertThat(readReplica.getPrimaryConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  void fallsBackToPrimaryWhileReplicaCannotBeReached() throws SQLException {
+    when(replicaDataSource.getConnection()).thenThrow(new SQLException("replica is down"));
+    ReadReplicaRoutingDataSource dataSource = routingDataSource(true, true);
+
+    assertThat(onReplica(dataSource)).isSameAs(primaryConnection);
+
+    assertThat(readReplica.getLag()).isNull();
+    assertThat(readReplica.getLagSeconds()).isNaN();
+  }
+
+  @Test
+  void returnsToReplicaOnceItIsValidAgain() throws SQLException {
+    ReadReplicaRoutingDataSource dataSource = routingDataSource(false, true);
+    assertThat(onReplica(dataSource)).isSameAs(primaryConnection);
+
+    when(replicaConnection.isValid(anyInt())).thenReturn(true);
+    readReplica.checkLag();
+
+    assertThat(onReplica(dataSource)).isSameAs(replicaConnection);
+  }
+
+  @Test
+  void usesReplicaThatIsNotValidWithoutFallback() throws SQLException {
+    ReadReplicaRoutingDataSource dataSource = routingDataSource(false, false);
+
+    assertThat(onReplica(dataSource)).isSameAs(replicaConnection);
+    assertThat(readReplica.getReplicaConnectionCount()).isEqualTo(1);
+  }
+
+  @Test
+  void routesConnectionOfReadOnlyTransactionOnFirstStatement() throws SQLException {
+    routingDataSource(true, true);
+    DataSource dataSource = ReadReplicaRoutingDataSource.wrap(primary, readReplica);
+    when(replicaConnection.createStatement()).thenReturn(mock(Statement.class));
+    inTransaction(true);
+
+    // the transaction manager fetches the connection before the scope starts
+    Connection connection = dataSource.getConnection();
+    ReadReplicaScope.onReplica(() -> {
+      try {
+        return connection.createStatement();
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+
+    verify(replicaConnection).createStatement();
+    verify(primaryConnection, never()).createStatement();
+  }
+
+  @Test
+  void keepsScopeUntilOutermostReadsAreDone() {
+    ReadReplicaScope.onReplica(() -> {
+      ReadReplicaScope.onReplica(() -> null);
+      assertThat(ReadReplicaScope.isActive()).isTrue();
+      return null;
+    });
+
+    assertThat(ReadReplicaScope.isActive()).isFalse();
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.writebehind;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceTypeFactory;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JdbcDevicePropertyValueWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DevicePropertyValueWriteBehindBufferTest {
+
+  final DevicePropertyId devicePropertyId = new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "1");
+  final DeviceTypeMapper deviceTypeMapper = new DeviceTypeMapper(List.of(new TestDeviceTypeFactory()));
+  final List<PendingDevicePropertyValue> written = Collections.synchronizedList(new ArrayList<>());
+  JdbcDevicePropertyValueWriter writer;
+
+  @BeforeEach
+  void setUp() {
+    writer = mock(JdbcDevicePropertyValueWriter.class);
+    when(writer.insertAll(anyList())).thenAnswer(invocation -> {
+      List<PendingDevicePropertyValue> batch = invocation.getArgument(0);
+      written.addAll(batch);
+      return batch.size();
+    });
+  }
+
+  @Test
+  void writesValuesDirectlyBeforeStart() {
+    DevicePropertyValueWriteBehindBuffer buffer = buffer(BackpressureStrategy.BLOCK, 1);
+
+    buffer.enqueue(value(0));
+    buffer.enqueue(value(1));
+
+    assertThat(written).containsExactly(value(0), value(1));
+  }
+
+  @Test
+  void writesQueuedValuesOnStop() {
+    DevicePropertyValueWriteBehindBuffer buffer = buffer(BackpressureStrategy.BLOCK, 100);
+    buffer.start();
+
+    buffer.enqueue(value(0));
+    buffer.enqueue(value(1));
+    assertThat(buffer.findLatest(devicePropertyId, "RelayState")).contains(value(1));
+    buffer.stop();
+
+    assertThat(written).containsExactly(value(0), value(1));
+    assertThat(buffer.findLatest(devicePropertyId, "RelayState")).isEmpty();
+  }
+
+  @Test
+  void writesValuesDirectlyAfterStop() {
+    DevicePropertyValueWriteBehindBuffer buffer = buffer(BackpressureStrategy.BLOCK, 100);
+    buffer.start();
+    buffer.stop();
+
+    buffer.enqueue(value(0));
+
+    assertThat(written).containsExactly(value(0));
+  }
+
+  @Test
+  void losesNoValueEnqueuedWhileStopping() throws Exception {
+    DevicePropertyValueWriteBehindBuffer buffer = buffer(BackpressureStrategy.BLOCK, 10);
+    buffer.start();
+    int threads = 4;
+    int valuesPerThread = 1000;
+    CountDownLatch started = new CountDownLatch(threads);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int offset = t * valuesPerThread;
+      futures.add(executor.submit(() -> {
+        started.countDown();
+        for (int i = 0; i < valuesPerThread; i++) {
+          buffer.enqueue(value(offset + i));
+        }
+      }));
+    }
+    started.await();
+    buffer.stop();
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    assertThat(written).hasSize(threads * valuesPerThread).doesNotHaveDuplicates();
+  }
+
+  @Test
+  void writesBatchAfterTheWriterRecovered() throws Exception {
+    CountDownLatch recovered = new CountDownLatch(1);
+    doThrow(new IllegalStateException("database is not available")).doAnswer(invocation -> {
+      List<PendingDevicePropertyValue> batch = invocation.getArgument(0);
+      written.addAll(batch);
+      recovered.countDown();
+      return batch.size();
+    }).when(writer).insertAll(anyList());
+    DevicePropertyValueWriteBehindBuffer buffer = buffer(BackpressureStrategy.BLOCK, 100, 2);
+    buffer.start();
+
+    buffer.enqueue(value(0));
+    buffer.enqueue(value(1));
+
+    assertThat(recovered.await(10, SECONDS)).isTrue();
+    buffer.stop();
+    assertThat(written).containsExactly(value(0), value(1));
+    assertThat(buffer.getDroppedCount()).isZero();
+    assertThat(buffer.getFailedCount()).isZero();
+  }
+
+  @Test
+  void findsLastMatchingPendingValue() {
+    DevicePropertyValueWriteBehindBuffer buffer = buffer(BackpressureStrategy.BLOCK, 100);
+    buffer.start();
+
+    buffer.enqueue(value(0));
+    buffer.enqueue(value(1));
+    buffer.enqueue(value(2));
+    buffer.enqueue(value(3));
+
+    assertThat(buffer.findLatest(devicePropertyId, "RelayState")).contains(value(3));
+    assertThat(buffer.findLastMatching(devicePropertyId, "RelayState", "true")).contains(value(2));
+    buffer.stop();
+    assertThat(buffer.findLastMatching(devicePropertyId, "RelayState", "true")).isEmpty();
+  }
+
+  private DevicePropertyValueWriteBehindBuffer buffer(BackpressureStrategy backpressure, int capacity) {
+    return buffer(backpressure, capacity, 50);
+  }
+
+  private DevicePropertyValueWriteBehindBuffer buffer(BackpressureStrategy backpressure, int capacity, int batchSize) {
+    return new DevicePropertyValueWriteBehindBuffer(writer, deviceTypeMapper, new WriteBehindConfiguration(true, capacity, batchSize, Duration.ofMinutes(1), backpressure, null));
+  }
+
+  private PendingDevicePropertyValue value(int second) {
+    return new PendingDevicePropertyValue(devicePropertyId, "RelayState", String.valueOf(second % 2 == 0), OffsetDateTime.parse("2024-01-01T00:00:00Z").plusSeconds(second));
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.davemeier82.homeautomation.spring.core.persistence.writebehind;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.DeviceTypeMapper;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceTypeFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpillFileTest {
+
+  final DevicePropertyId devicePropertyId = new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "1");
+  @TempDir
+  Path directory;
+
+  @Test
+  void replaysSpilledValuesInChunks() {
+    SpillFile spillFile = new SpillFile(directory, new DeviceTypeMapper(List.of(new TestDeviceTypeFactory())));
+    spillFile.append(List.of(value(0, "true"), value(1, null)));
+    spillFile.append(List.of(value(2, "12.5")));
+    List<List<PendingDevicePropertyValue>> chunks = new ArrayList<>();
+
+    spillFile.replay(2, chunks::add);
+
+    assertThat(chunks).containsExactly(List.of(value(0, "true"), value(1, null)), List.of(value(2, "12.5")));
+    assertThat(spillFile.isEmpty()).isTrue();
+  }
+
+  @Test
+  void keepsValuesSpilledDuringReplayForNextReplay() {
+    SpillFile spillFile = new SpillFile(directory, new DeviceTypeMapper(List.of(new TestDeviceTypeFactory())));
+    spillFile.append(List.of(value(0, "true")));
+    List<PendingDevicePropertyValue> replayed = new ArrayList<>();
+
+    spillFile.replay(10, chunk -> {
+      replayed.addAll(chunk);
+      spillFile.append(List.of(value(1, "false")));
+    });
+
+    assertThat(replayed).containsExactly(value(0, "true"));
+    assertThat(spillFile.isEmpty()).isFalse();
+
+    spillFile.replay(10, replayed::addAll);
+
+    assertThat(replayed).containsExactly(value(0, "true"), value(1, "false"));
+    assertThat(spillFile.isEmpty()).isTrue();
+  }
+
+  private PendingDevicePropertyValue value(int second, String value) {
+    return new PendingDevicePropertyValue(devicePropertyId, "RelayState", value, OffsetDateTime.parse("2024-01-01T00:00:00+01:00").plusSeconds(second));
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.pushnotification.coalescing;
+
+import io.github.davemeier82.homeautomation.core.device.DeviceId;
+import io.github.davemeier82.homeautomation.core.device.property.DevicePropertyId;
+import io.github.davemeier82.homeautomation.core.notification.PushNotificationService;
+import io.github.davemeier82.homeautomation.spring.core.TestDeviceType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PushNotificationCoalescerTest {
+
+  final DevicePropertyId firstProperty = new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "1");
+  final DevicePropertyId secondProperty = new DevicePropertyId(new DeviceId("aaa", TestDeviceType.TEST), "2");
+  final PushNotificationService delegate = mock(PushNotificationService.class);
+  PushNotificationCoalescer coalescer;
+
+  @AfterEach
+  void tearDown() {
+    if (coalescer.isRunning()) {
+      coalescer.stop();
+    }
+  }
+
+  @Test
+  void sendsFirstNotificationRightAwayAndTheOthersAsDigest() {
+    PushNotificationService service = start(Duration.ofMillis(100));
+
+    send(service, firstProperty, "title", "open");
+    send(service, firstProperty, "title", "closed");
+    send(service, firstProperty, "title", "open again");
+
+    verify(delegate).sendTextMessageToServiceWithId("service", "title", "open");
+    verify(delegate, timeout(1000)).sendTextMessageToServiceWithId("service", "title", "closed\nopen again");
+    assertThat(coalescer.getCoalescedCount()).isEqualTo(2);
+    assertThat(coalescer.getDigestCount()).isEqualTo(1);
+  }
+
+  @Test
+  void extendsWindowWhileNotificationsArrive() throws InterruptedException {
+    PushNotificationService service = start(Duration.ofMillis(200));
+    send(service, firstProperty, "title", "open");
+    send(service, firstProperty, "title", "closed");
+    verify(delegate, timeout(1000)).sendTextMessageToServiceWithId("service", "title", "closed");
+
+    send(service, firstProperty, "title", "open");
+
+    verify(delegate, times(1)).sendTextMessageToServiceWithId("service", "title", "open");
+    verify(delegate, timeout(1000).times(2)).sendTextMessageToServiceWithId("service", "title", "open");
+    Thread.sleep(500);
+    assertThat(coalescer.getOpenWindowCount()).isZero();
+  }
+
+  @Test
+  void dropsRepeatedMessages() {
+    PushNotificationService service = start(Duration.ofSeconds(10));
+
+    send(service, firstProperty, "title", "open");
+    send(service, firstProperty, "title", "open");
+    send(service, firstProperty, "title", "closed");
+    send(service, firstProperty, "title", "closed");
+    coalescer.stop();
+
+    verify(delegate).sendTextMessageToServiceWithId("service", "title", "open");
+    verify(delegate).sendTextMessageToServiceWithId("service", "title", "closed");
+    assertThat(coalescer.getSuppressedCount()).isEqualTo(2);
+  }
+
+  @Test
+  void keepsMessageThatReturnsAfterAnotherOne() {
+    PushNotificationService service = start(Duration.ofSeconds(10));
+
+    send(service, firstProperty, "title", "open");
+    send(service, firstProperty, "title", "closed");
+    send(service, firstProperty, "title", "open");
+    send(service, firstProperty, "title", "open");
+    coalescer.stop();
+
+    verify(delegate).sendTextMessageToServiceWithId("service", "title", "open");
+    verify(delegate).sendTextMessageToServiceWithId("service", "title", "closed\nopen");
+    assertThat(coalescer.getCoalescedCount()).isEqualTo(2);
+    assertThat(coalescer.getSuppressedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void mergesByDevicePropertyInsteadOfTitle() {
+    PushNotificationService service = start(Duration.ofSeconds(10));
+
+    send(service, firstProperty, "window open", "kitchen");
+    send(service, firstProperty, "window closed", "kitchen at 10:00");
+    send(service, secondProperty, "window open", "kitchen");
+
+    verify(delegate, times(2)).sendTextMessageToServiceWithId("service", "window open", "kitchen");
+    verify(delegate, never()).sendTextMessageToServiceWithId("service", "window closed", "kitchen at 10:00");
+    assertThat(coalescer.getOpenWindowCount()).isEqualTo(2);
+  }
+
+  @Test
+  void mergesByTitleOutsideOfAnEvent() {
+    PushNotificationService service = start(Duration.ofSeconds(10));
+
+    service.sendTextMessageToServiceWithId("service", "title", "first");
+    service.sendTextMessageToServiceWithId("service", "title", "second");
+    service.sendTextMessageToServiceWithId("service", "other title", "third");
+
+    verify(delegate).sendTextMessageToServiceWithId("service", "title", "first");
+    verify(delegate).sendTextMessageToServiceWithId("service", "other title", "third");
+    verify(delegate, never()).sendTextMessageToServiceWithId("service", "title", "second");
+  }
+
+  @Test
+  void sendsCollectedNotificationsOnStop() {
+    PushNotificationService service = start(Duration.ofSeconds(10));
+    send(service, firstProperty, "title", "open");
+    send(service, firstProperty, "title", "closed");
+    send(service, secondProperty, "other title", "on");
+    send(service, secondProperty, "other title", "off");
+    verify(delegate, times(2)).sendTextMessageToServiceWithId(any(), any(), any());
+
+    coalescer.stop();
+
+    verify(delegate).sendTextMessageToServiceWithId("service", "title", "closed");
+    verify(delegate).sendTextMessageToServiceWithId("service", "other title", "off");
+    assertThat(coalescer.getOpenWindowCount()).isZero();
+  }
+
+  private PushNotificationService start(Duration window) {
+    coalescer = new PushNotificationCoalescer(new PushNotificationCoalescingConfiguration(true, window, 10));
+    coalescer.start();
+    return coalescer.wrap(delegate);
+  }
+
+  private void send(PushNotificationService service, DevicePropertyId devicePropertyId, String title, String message) {
+    coalescer.sendFor(devicePropertyId, () -> service.sendTextMessageToServiceWithId("service", title, message));
+  }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery;
+
+import io.github.davemeier82.homeautomation.spring.core.persistence.entity.PushNotificationOutboxEntity;
+import io.github.davemeier82.homeautomation.spring.core.persistence.repository.JpaPushNotificationOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PushNotificationDispatcherTest {
+
+  final UUID firstId = UUID.randomUUID();
+  final UUID secondId = UUID.randomUUID();
+  final JpaPushNotificationOutboxRepository outboxRepository = mock(JpaPushNotificationOutboxRepository.class);
+  final PushNotificationTransport transport = mock(PushNotificationTransport.class);
+  PushNotificationDispatcher dispatcher;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    when(transactionTemplate.execute(any())).thenAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+    ObjectProvider<PushNotificationTransport> transportProvider = mock(ObjectProvider.class);
+    when(transportProvider.orderedStream()).thenAnswer(invocation -> Stream.of(transport));
+    when(transport.getProviderId()).thenReturn("pushover");
+    PushNotificationOutboxEntity first = mock(PushNotificationOutboxEntity.class);
+    when(first.getId()).thenReturn(firstId);
+    PushNotificationOutboxEntity second = mock(PushNotificationOutboxEntity.class);
+    when(second.getId()).thenReturn(secondId);
+    when(outboxRepository.save(any())).thenReturn(first, second);
+
+    PushNotificationDeliveryConfiguration configuration = new PushNotificationDeliveryConfiguration(true, 1, 3, Duration.ofMillis(10), Duration.ofMillis(100),
+        Duration.ofMinutes(5), Map.of("pushover", new RateLimitConfiguration(10, 1)));
+    dispatcher = new PushNotificationDispatcher(outboxRepository, transactionTemplate, transportProvider, configuration);
+    dispatcher.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    dispatcher.stop();
+  }
+
+  @Test
+  void deliversAndRemovesNotification() {
+    dispatcher.submit("pushover", "service", "title", "message");
+
+    verify(outboxRepository, timeout(1000)).deleteById(firstId);
+    verify(transport).deliver("service", "title", "message");
+    assertThat(dispatcher.getDeliveredCount()).isEqualTo(1);
+  }
+
+  @Test
+  void retriesRemovalInsteadOfDeliveringAgain() {
+    doThrow(new IllegalStateException("connection lost")).doNothing().when(outboxRepository).deleteById(firstId);
+
+    dispatcher.submit("pushover", "service", "title", "message");
+
+    verify(outboxRepository, timeout(1000).times(2)).deleteById(firstId);
+    verify(transport, times(1)).deliver("service", "title", "message");
+    verify(outboxRepository, never()).reschedule(any(), anyInt(), any(), any());
+    assertThat(dispatcher.getDeliveredCount()).isEqualTo(1);
+    assertThat(dispatcher.getRetriedCount()).isZero();
+  }
+
+  @Test
+  void reschedulesRetryableFailure() {
+    doThrow(new IllegalStateException("timeout")).when(transport).deliver("service", "title", "message");
+
+    dispatcher.submit("pushover", "service", "title", "message");
+
+    verify(outboxRepository, timeout(1000)).reschedule(eq(firstId), eq(1), any(), eq("timeout"));
+    verify(outboxRepository, never()).deleteById(firstId);
+    assertThat(dispatcher.getRetriedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void dropsNotificationOnNotRetryableFailure() {
+    doThrow(new IllegalArgumentException("invalid")).when(transport).deliver("service", "title", "message");
+
+    dispatcher.submit("pushover", "service", "title", "message");
+
+    verify(outboxRepository, timeout(1000)).deleteById(firstId);
+    verify(outboxRepository, never()).reschedule(any(), anyInt(), any(), any());
+    assertThat(dispatcher.getFailedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void renewsLeaseBeforeWaitingForRateLimit() {
+    doNothing().when(transport).deliver(any(), any(), any());
+
+    dispatcher.submit("pushover", "service", "first", "message");
+    dispatcher.submit("pushover", "service", "second", "message");
+
+    verify(outboxRepository, timeout(1000)).deleteById(secondId);
+    verify(outboxRepository).renewLease(eq(secondId), any());
+    verify(outboxRepository, never()).renewLease(eq(firstId), any());
+    InOrder inOrder = inOrder(transport);
+    inOrder.verify(transport).deliver("service", "first", "message");
+    inOrder.verify(transport).deliver("service", "second", "message");
+  }
+}
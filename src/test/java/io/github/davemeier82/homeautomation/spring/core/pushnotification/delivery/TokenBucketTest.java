@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.davemeier82.homeautomation.spring.core.pushnotification.delivery;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+  final AtomicLong nanoTime = new AtomicLong();
+
+  @Test
+  void handsOutTheBurstWithoutWaiting() {
+    TokenBucket bucket = new TokenBucket(new RateLimitConfiguration(1, 3), nanoTime::get);
+
+    assertThat(bucket.reserve()).isZero();
+    assertThat(bucket.reserve()).isZero();
+    assertThat(bucket.reserve()).isZero();
+  }
+
+  @Test
+  void reservesTokensInTheOrderOfTheCalls() {
+    TokenBucket bucket = new TokenBucket(new RateLimitConfiguration(10, 1), nanoTime::get);
+
+    assertThat(bucket.reserve()).isZero();
+    assertThat(bucket.reserve()).isEqualTo(MILLISECONDS.toNanos(100));
+    assertThat(bucket.reserve()).isEqualTo(MILLISECONDS.toNanos(200));
+    assertThat(bucket.reserve()).isEqualTo(MILLISECONDS.toNanos(300));
+  }
+
+  @Test
+  void countsReservationsAgainstRefilledTokens() {
+    TokenBucket bucket = new TokenBucket(new RateLimitConfiguration(10, 1), nanoTime::get);
+    bucket.reserve();
+    bucket.reserve();
+
+    nanoTime.addAndGet(MILLISECONDS.toNanos(150));
+
+    assertThat(bucket.reserve()).isEqualTo(MILLISECONDS.toNanos(50));
+  }
+
+  @Test
+  void refillsUpToTheBurst() {
+    TokenBucket bucket = new TokenBucket(new RateLimitConfiguration(10, 2), nanoTime::get);
+    bucket.reserve();
+    bucket.reserve();
+
+    nanoTime.addAndGet(MILLISECONDS.toNanos(10_000));
+
+    assertThat(bucket.reserve()).isZero();
+    assertThat(bucket.reserve()).isZero();
+    assertThat(bucket.reserve()).isEqualTo(MILLISECONDS.toNanos(100));
+  }
+}
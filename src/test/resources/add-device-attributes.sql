@@ -0,0 +1,16 @@
+insert into device (id, device_id, device_type, display_name)
+values ('9a7e3c1f-4b2d-4e8a-b6c5-3d2f1e0a9b87', 'ccc', 'test', 'bla');
+
+insert into custom_identifier (device_id, name, value)
+values ('763d87b3-cc38-4787-a32b-4fe62edf4250', 'serial', '123');
+insert into custom_identifier (device_id, name, value)
+values ('763d87b3-cc38-4787-a32b-4fe62edf4250', 'mac', 'aa:bb');
+insert into custom_identifier (device_id, name, value)
+values ('9a7e3c1f-4b2d-4e8a-b6c5-3d2f1e0a9b87', 'serial', '456');
+
+insert into device_parameter (device_id, name, value)
+values ('763d87b3-cc38-4787-a32b-4fe62edf4250', 'topic', 'home/aaa');
+insert into device_parameter (device_id, name, value)
+values ('9a7e3c1f-4b2d-4e8a-b6c5-3d2f1e0a9b87', 'topic', 'home/ccc');
+insert into device_parameter (device_id, name, value)
+values ('9a7e3c1f-4b2d-4e8a-b6c5-3d2f1e0a9b87', 'interval', '60');
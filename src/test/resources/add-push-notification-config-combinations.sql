@@ -0,0 +1,29 @@
+insert into device (id, device_id, device_type, display_name)
+values ('5d0c3d0a-6a43-4bd6-9c0e-0e1f4c3a7b21', 'bbb', 'test', 'bla');
+insert into device_property (id, device_id, type, device_property_id, display_name)
+values ('a3f1e5c2-2b5e-4f0a-8d57-6a3b1c9e0f42', '763d87b3-cc38-4787-a32b-4fe62edf4250', 'xxx', '2', 'bla');
+insert into device_property (id, device_id, type, device_property_id, display_name)
+values ('e8b2c7d4-91f3-4c6a-b0d5-2f7e4a8c1b63', '5d0c3d0a-6a43-4bd6-9c0e-0e1f4c3a7b21', 'xxx', '1', 'bla');
+
+insert into event_push_notification_config (id, on_change_only, service_ids)
+values ('0b6e2f1a-0001-4c3d-9e8f-1a2b3c4d5e01', false, 'all');
+insert into event_push_notification_config (id, on_change_only, service_ids)
+values ('0b6e2f1a-0002-4c3d-9e8f-1a2b3c4d5e02', true, 'all-changes');
+insert into event_push_notification_config (id, property_value_type, on_change_only, service_ids, boolean_value_filter)
+values ('0b6e2f1a-0003-4c3d-9e8f-1a2b3c4d5e03', 'RelayState', false, 'relay-on', true);
+insert into event_push_notification_config (id, device_id, on_change_only, service_ids)
+values ('0b6e2f1a-0004-4c3d-9e8f-1a2b3c4d5e04', '763d87b3-cc38-4787-a32b-4fe62edf4250', false, 'aaa');
+insert into event_push_notification_config (id, device_id, property_value_type, on_change_only, service_ids, boolean_value_filter)
+values ('0b6e2f1a-0005-4c3d-9e8f-1a2b3c4d5e05', '763d87b3-cc38-4787-a32b-4fe62edf4250', 'RelayState', true, 'aaa-relay-off', false);
+insert into event_push_notification_config (id, device_property_id, on_change_only, service_ids)
+values ('0b6e2f1a-0006-4c3d-9e8f-1a2b3c4d5e06', '4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6', false, 'aaa-1');
+insert into event_push_notification_config (id, device_id, device_property_id, property_value_type, on_change_only, service_ids)
+values ('0b6e2f1a-0007-4c3d-9e8f-1a2b3c4d5e07', '763d87b3-cc38-4787-a32b-4fe62edf4250', '4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6', 'RelayState', false, 'aaa-1-relay');
+insert into event_push_notification_config (id, device_id, on_change_only, service_ids)
+values ('0b6e2f1a-0008-4c3d-9e8f-1a2b3c4d5e08', '5d0c3d0a-6a43-4bd6-9c0e-0e1f4c3a7b21', false, 'bbb');
+insert into event_push_notification_config (id, device_property_id, property_value_type, on_change_only, service_ids)
+values ('0b6e2f1a-0009-4c3d-9e8f-1a2b3c4d5e09', 'e8b2c7d4-91f3-4c6a-b0d5-2f7e4a8c1b63', 'RelayState', true, 'bbb-1-relay');
+insert into event_push_notification_config (id, device_property_id, on_change_only, service_ids)
+values ('0b6e2f1a-0010-4c3d-9e8f-1a2b3c4d5e10', 'a3f1e5c2-2b5e-4f0a-8d57-6a3b1c9e0f42', true, 'aaa-2');
+insert into event_push_notification_config (id, device_id, device_property_id, on_change_only, service_ids)
+values ('0b6e2f1a-0011-4c3d-9e8f-1a2b3c4d5e11', '5d0c3d0a-6a43-4bd6-9c0e-0e1f4c3a7b21', '4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6', false, 'never');
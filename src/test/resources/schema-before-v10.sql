@@ -0,0 +1,58 @@
+-- the schema of V1 to V9 with the types H2 can index, the migrations from V10 on run unchanged on top of it
+create table device
+(
+    id           uuid    not null
+        constraint device_id_pk primary key,
+    device_id    varchar not null,
+    device_type  varchar not null,
+    display_name varchar,
+    constraint device_id_uk unique (device_id, device_type)
+);
+
+create table device_property
+(
+    id                 uuid    not null
+        constraint device_property_pk primary key,
+    device_id          uuid    not null
+        constraint device_property_device_id_fk references device on delete cascade,
+    type               varchar not null,
+    device_property_id varchar not null,
+    display_name       varchar,
+    constraint device_property_pk_2 unique (device_id, device_property_id)
+);
+
+create table device_property_value
+(
+    device_property_id uuid      not null
+        constraint device_property_value_device_property_id_fk references device_property on delete cascade,
+    "value"            varchar,
+    timestamp          timestamp not null,
+    type               varchar   not null,
+    id                 uuid      not null
+        constraint device_property_value_pk primary key
+);
+
+create index device_property_value_device_property_id_type_index
+    on device_property_value (device_property_id, type);
+
+create index device_property_value_timestamp_index
+    on device_property_value (timestamp);
+
+create view latest_device_property_value
+as
+SELECT d.device_id, dp.device_property_id, dpv."value", dpv.type, dpv.timestamp
+FROM device_property_value dpv
+         JOIN device_property dp ON dp.id = dpv.device_property_id
+         JOIN device d ON dp.device_id = d.id;
+
+insert into device (id, device_id, device_type, display_name)
+values ('763d87b3-cc38-4787-a32b-4fe62edf4250', 'aaa', 'test', 'bla');
+insert into device_property (id, device_id, type, device_property_id, display_name)
+values ('4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6', '763d87b3-cc38-4787-a32b-4fe62edf4250', 'xxx', '1', 'bla');
+
+insert into device_property_value (id, device_property_id, type, "value", timestamp)
+values ('00000000-0000-0000-0000-000000000001', '4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6', 'Temperature', '20.5', timestamp '2024-01-01 10:00:00');
+insert into device_property_value (id, device_property_id, type, "value", timestamp)
+values ('00000000-0000-0000-0000-000000000002', '4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6', 'Temperature', '20.5', timestamp '2024-01-01 10:00:00');
+insert into device_property_value (id, device_property_id, type, "value", timestamp)
+values ('00000000-0000-0000-0000-000000000003', '4571fbe3-0fc7-4528-a01a-8d1e4d71a9c6', 'Temperature', '21.0', timestamp '2024-01-01 11:00:00');